@@ -219,9 +219,10 @@ public class LogInWindow implements ActionListener {
                 fldUserName.setText("");
                 return;
             }
+            this.mainController.applyRemoteChanges();
             loginController.login(fldUserName.getText(), String.valueOf(fldPassword.getPassword()));
             if (loginController.isLoggedIn()){
-                IOSerializable ioSerializable = new IOSerializable(true, false);
+                IOSerializable ioSerializable = this.mainController.getIoSerializable();
                 this.mainController.setEventController(new EventController(ioSerializable.hasSavedData(), ioSerializable,
                         mainController.getUserController()));
                 MainMenu mainMenu = new MainMenu(mainController);
@@ -231,6 +232,7 @@ public class LogInWindow implements ActionListener {
             lblLoginMessage.setText("Incorrect Username or Password - Please Try Again");
         }
         if (e.getSource() == btnSignUp) {
+            this.mainController.applyRemoteChanges();
             new SignUpPage(this.loginController);
         }
         fldPassword.setText("");
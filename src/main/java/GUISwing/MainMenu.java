@@ -257,8 +257,8 @@ public class MainMenu implements ActionListener, MeltParentWindow {
             new LogInWindow(this.mc);
         }
         else if (e.getSource() == buttonExit) {
-            mc.saveAndExitProgram();
             frame.dispose();
+            mc.saveAndExitProgram();
         }
         else {
             this.refresh();
@@ -270,6 +270,8 @@ public class MainMenu implements ActionListener, MeltParentWindow {
      */
     @Override
     public void refresh() {
+        this.mc.getJournal().sync();
+        this.mc.getPersistenceService().tick();
         this.ec.getWorkSessionController().refresh(this.mc.getUserController().getPreferences(),
                 this.ec.getEventManager());
         this.welcomePanel.removeAll();
@@ -299,12 +301,12 @@ public class MainMenu implements ActionListener, MeltParentWindow {
     }
 
     /**
-     * exit the frame
+     * exit the frame, once the data is saved (or the save timed out)
      */
     @Override
     public void exitFrame() {
-        this.mc.getIoSerializable().usersWriteToSerializable(this.mc.getUserController().getUserManager().getAllUsers());
-        this.mc.getIoSerializable().eventsWriteToSerializable(this.mc.getEventController().getEventManager().getUuidEventsMap());
+        this.mc.getPersistenceService().saveNow();
+        this.mc.getPersistenceService().shutdown(MainController.EXIT_SAVE_TIMEOUT);
         this.frame.dispose();
     }
 
@@ -12,7 +12,6 @@ import presenters.MenuStrategies.CalNextActionMenuContent;
 import presenters.MenuStrategies.CalendarTypeMenuContent;
 import presenters.MenuStrategies.CalendarYearMonthMenuContent;
 import interfaces.MenuContent;
-import usecases.EventCalendarCollaborator;
 import usecases.calendar.CalendarByType;
 import usecases.calendar.CalendarManager;
 import usecases.events.EventManager;
@@ -179,13 +178,12 @@ public class CalendarController {
     private String getEventID(EventController eventController) {
         EventManager eventManager = eventController.getEventManager();
         EventIDConverter converter = new EventIDConverter(eventManager);
-        Map<Integer, UUID> eventIDMap = converter.getEventIDMap();
         System.out.println("Please type the Event ID that applies or type Return to return to end the task");
         String eventID = scanner.nextLine();
         if (eventID.equalsIgnoreCase("Return")) {
             return "Return";
         }
-        while (!(helper.isInteger(eventID) && eventIDMap.containsKey(Integer.valueOf(eventID)))) {
+        while (!(helper.isInteger(eventID) && converter.containsInt(Integer.parseInt(eventID)))) {
             System.out.println("Please type the valid ID");
             eventID = scanner.nextLine();
             if (eventID.equalsIgnoreCase("Return")) {
@@ -202,12 +200,8 @@ public class CalendarController {
      * @return displayCalendarFactory with the calendarManager that contains event information from eventController
      */
     public CalendarDisplayFactory getDisplayCalendarFactory(EventController eventController) {
-        CalendarManager calendarManager = new CalendarManager();
         EventManager eventManager = eventController.getEventManager();
-        EventCalendarCollaborator collaborator = new EventCalendarCollaborator(eventManager, calendarManager);
-        collaborator.addAllEvents();
-        calendarManager = collaborator.getCalendarManager();
-        return new CalendarDisplayFactory(calendarManager, eventManager);
+        return new CalendarDisplayFactory(eventManager.getCalendarManager(), eventManager);
     }
 
     /**
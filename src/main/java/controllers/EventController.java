@@ -1,5 +1,6 @@
 package controllers;
 
+import entities.Event;
 import gateways.IOSerializable;
 import helpers.ControllerHelper;
 import helpers.EventIDConverter;
@@ -45,13 +46,11 @@ public class EventController {
         this.workSessionController = workSessionController;
         if (hasSavedData) {
             this.eventManager =
-                    new EventManager(ioSerializable.eventsReadFromSerializable().getOrDefault(userController.getCurrentUser(), new ArrayList<>()),
-                            ioSerializable.recursiveEventsReadFromSerializable().getOrDefault(userController.getCurrentUser(), new HashMap<>()));
+                    new EventManager(ioSerializable.eventsReadFromSerializable(userController.getCurrentUser()),
+                            ioSerializable.recursiveEventsReadFromSerializable(userController.getCurrentUser()));
         } else {
             this.eventManager = new EventManager(new ArrayList<>());
         }
-        this.eventManager.setUuidEventsMap(ioSerializable.eventsReadFromSerializable());
-        this.eventManager.setUuidRecursiveEventsMap(ioSerializable.recursiveEventsReadFromSerializable());
         this.ioController = new IOController();
     }
 
@@ -66,13 +65,11 @@ public class EventController {
     public EventController(boolean hasSavedData, IOSerializable ioSerializable, UserController userController) {
         if (hasSavedData) {
             this.eventManager =
-                    new EventManager(ioSerializable.eventsReadFromSerializable().getOrDefault(userController.getCurrentUser(), new ArrayList<>()),
-                            ioSerializable.recursiveEventsReadFromSerializable().getOrDefault(userController.getCurrentUser(), new HashMap<>()));
+                    new EventManager(ioSerializable.eventsReadFromSerializable(userController.getCurrentUser()),
+                            ioSerializable.recursiveEventsReadFromSerializable(userController.getCurrentUser()));
         } else {
             this.eventManager = new EventManager(new ArrayList<>());
         }
-        this.eventManager.setUuidEventsMap(ioSerializable.eventsReadFromSerializable());
-        this.eventManager.setUuidRecursiveEventsMap(ioSerializable.recursiveEventsReadFromSerializable());
         this.ioController = new IOController();
         this.workSessionController = new WorkSessionController(userController.getPreferences());
     }
@@ -170,11 +167,10 @@ public class EventController {
      */
     private UUID getRecursiveID() {
         EventIDConverter converter = new EventIDConverter(this.getEventManager());
-        Map<Integer, UUID> eventIDMap = converter.getEventIDMap();
         String eventID = ioController.getAnswer("Enter the ID of an event in the recursion in which you " +
                 "want to add your event to");
         ControllerHelper helper = new ControllerHelper();
-        while (!(helper.isInteger(eventID) && eventIDMap.containsKey(Integer.valueOf(eventID)))) {
+        while (!(helper.isInteger(eventID) && converter.containsInt(Integer.parseInt(eventID)))) {
             eventID = ioController.getAnswer("Please type a valid ID");
         }
         UUID uuid = converter.getUUIDFromInt(Integer.parseInt(eventID));
@@ -215,6 +211,44 @@ public class EventController {
         return false;
     }
 
+    /**
+     * returns the busy time of an event: its own time if it has a start, and that of its work sessions
+     *
+     * @param ID the ID of the event
+     * @return list of {start, end} intervals, empty if there is no event with this ID
+     */
+    private List<LocalDateTime[]> busyTimes(UUID ID) {
+        List<LocalDateTime[]> busyTimes = new ArrayList<>();
+        Event event = this.eventManager.get(ID);
+        if (event == null) {
+            return busyTimes;
+        }
+        if (event.hasStart()) {
+            busyTimes.add(new LocalDateTime[]{event.getStartTime(), event.getEndTime()});
+        }
+        for (Event session : event.getWorkSessions()) {
+            busyTimes.add(new LocalDateTime[]{session.getStartTime(), session.getEndTime()});
+        }
+        return busyTimes;
+    }
+
+    /**
+     * reschedules the work sessions that depend on the busy time of an event that was changed or deleted, or all of
+     * them if the change was carried to a recursion
+     *
+     * @param ID      the ID of the event
+     * @param changed the busy time of the event before the change
+     * @param carried true if the change was carried to the recursion of the event
+     */
+    private void refreshWorkSessions(UUID ID, List<LocalDateTime[]> changed, boolean carried) {
+        if (carried) {
+            workSessionController.refresh(eventManager);
+        } else {
+            changed.addAll(this.busyTimes(ID));
+            workSessionController.refresh(eventManager, changed);
+        }
+    }
+
     /**
      * prompts a user to confirm that they wish to delete an event, then removes event from eventManager
      *
@@ -238,13 +272,15 @@ public class EventController {
      * @param ID ID of an event
      */
     public void delete(UUID ID) {
-        if (carryToRecursion(ID)) {
+        List<LocalDateTime[]> changed = this.busyTimes(ID);
+        boolean carried = carryToRecursion(ID);
+        if (carried) {
             this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
             this.eventManager.remove(ID);
             this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
         }
         this.eventManager.remove(ID);
-        workSessionController.refresh(eventManager);
+        this.refreshWorkSessions(ID, changed, carried);
     }
 
     /**
@@ -260,8 +296,10 @@ public class EventController {
 
 
     public void changeStartDate(UUID ID, LocalDate newStart) {
+        List<LocalDateTime[]> changed = this.busyTimes(ID);
+        boolean carried = carryToRecursion(ID);
         if (this.eventManager.getDefaultEventInfoGetter().getStartTime(ID) == null) {
-            if (carryToRecursion(ID)) {
+            if (carried) {
                 this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(newStart, LocalTime.of(0, 0)));
                 this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
@@ -269,7 +307,7 @@ public class EventController {
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(newStart, LocalTime.of(0, 0)));
             }
         } else {
-            if (carryToRecursion(ID)) {
+            if (carried) {
                 this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(newStart, this.eventManager.getDefaultEventInfoGetter().getStartTime(ID)));
                 this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
@@ -277,7 +315,7 @@ public class EventController {
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(newStart, this.eventManager.getDefaultEventInfoGetter().getStartTime(ID)));
             }
         }
-        workSessionController.refresh(eventManager);
+        this.refreshWorkSessions(ID, changed, carried);
     }
 
     /**
@@ -291,14 +329,16 @@ public class EventController {
     }
 
     public void changeEndDate(UUID ID, LocalDate newEnd) {
-        if (carryToRecursion(ID)) {
+        List<LocalDateTime[]> changed = this.busyTimes(ID);
+        boolean carried = carryToRecursion(ID);
+        if (carried) {
             this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
             this.eventManager.getDefaultEventInfoGetter().setEnd(ID, LocalDateTime.of(newEnd, this.eventManager.getDefaultEventInfoGetter().getEndTime(ID)));
             this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
         } else {
             this.eventManager.getDefaultEventInfoGetter().setEnd(ID, LocalDateTime.of(newEnd, this.eventManager.getDefaultEventInfoGetter().getEndTime(ID)));
         }
-        workSessionController.refresh(eventManager);
+        this.refreshWorkSessions(ID, changed, carried);
     }
 
     /**
@@ -312,14 +352,16 @@ public class EventController {
     }
 
     public void changeEndTime(UUID ID, LocalTime newEnd) {
-        if (carryToRecursion(ID)) {
+        List<LocalDateTime[]> changed = this.busyTimes(ID);
+        boolean carried = carryToRecursion(ID);
+        if (carried) {
             this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
             this.eventManager.getDefaultEventInfoGetter().setEnd(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getEndDate(ID), newEnd));
             this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
         } else {
             this.eventManager.getDefaultEventInfoGetter().setEnd(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getEndDate(ID), newEnd));
         }
-        workSessionController.refresh(eventManager);
+        this.refreshWorkSessions(ID, changed, carried);
     }
 
     /**
@@ -333,8 +375,10 @@ public class EventController {
     }
 
     public void changeStartTime(UUID ID, LocalTime newStart) {
+        List<LocalDateTime[]> changed = this.busyTimes(ID);
+        boolean carried = carryToRecursion(ID);
         if (this.eventManager.get(ID).getStartTime() == null) {
-            if (carryToRecursion(ID)) {
+            if (carried) {
                 this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getEndDate(ID), newStart));
                 this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
@@ -342,7 +386,7 @@ public class EventController {
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getEndDate(ID), newStart));
             }
         } else {
-            if (carryToRecursion(ID)) {
+            if (carried) {
                 this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getStartDate(ID), newStart));
                 this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
@@ -350,7 +394,7 @@ public class EventController {
                 this.eventManager.getDefaultEventInfoGetter().setStart(ID, LocalDateTime.of(this.eventManager.getDefaultEventInfoGetter().getStartDate(ID), newStart));
             }
         }
-        workSessionController.refresh(eventManager);
+        this.refreshWorkSessions(ID, changed, carried);
     }
 
     /**
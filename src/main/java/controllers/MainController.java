@@ -1,24 +1,30 @@
 package controllers;
 
 // Just to type cast, never uses any variables or methods in entities.User
-import entities.Event;
 import entities.User;
-import entities.recursions.RecursiveEvent;
 
+import gateways.EventJournal;
 import gateways.ICalendar;
 import gateways.IOSerializable;
+import gateways.PersistenceService;
 
 import helpers.ControllerHelper;
 import presenters.MenuStrategies.DisplayMenu;
 import presenters.MenuStrategies.BasicMenuContent;
-import usecases.UserManager;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The main controller for the program, which initializes other controllers and their respective managers.
  * Takes user input and utilizes them as the program sees fit.
+ * The changes to the events of the current user are kept in an EventJournal as they are made, and saved in the
+ * background by a PersistenceService, which empties the journal once they are uploaded.
  *
  * @author Sebin Im
  * @author Seo Won Yi
@@ -27,6 +33,10 @@ import java.util.*;
  * @see LoginController
  */
 public class MainController {
+    private static final Logger logger = Logger.getLogger(MainController.class.getPackage().getName());
+    private static final String JOURNAL_DIRECTORY = "journal";
+    public static final Duration EXIT_SAVE_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration RECONCILIATION_WAIT = Duration.ofSeconds(10);
 
     private final UserController userController;
     private final CalendarController calendarController;
@@ -34,6 +44,11 @@ public class MainController {
     private final LoginController loginController;
 
     private final IOSerializable ioSerializable;
+    private final EventJournal journal = new EventJournal(new File(JOURNAL_DIRECTORY));
+    private final PersistenceService persistenceService;
+    private final Future<?> reconciliation;
+    private boolean waitedForReconciliation;
+    private boolean remoteChangesApplied;
     private final Scanner scanner = new Scanner(System.in);
     private final ControllerHelper helper = new ControllerHelper();
 
@@ -41,17 +56,77 @@ public class MainController {
 
     /**
      * Initialize the entire program as this class is being initialized.
-     * First, initialize and run IOSerializable, to retrieve serialized data from the dropbox repository.
+     * First, initialize IOSerializable from the files as they were last synced, and start retrieving the changes made
+     * in the dropbox repository since then in the background, so that the login screen does not wait for them.
      * Then asks the user to log in, which then will provide the user with the rest of the program.
      */
     public MainController() {
-        this.ioSerializable = new IOSerializable(true, false);
+        long start = System.nanoTime();
+        this.ioSerializable = new IOSerializable(true, true);
+        this.ioSerializable.restoreLastSynced();
+        long restored = System.nanoTime();
         this.userController = new UserController(this.ioSerializable.hasSavedData(), this.ioSerializable);
+        long usersRead = System.nanoTime();
+        ExecutorService reconciler = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "remote-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reconciliation = reconciler.submit(this::reconcile);
+        reconciler.shutdown();
+        logger.fine(String.format("Startup: local copy %.1f ms, users %.1f ms", (restored - start) / 1e6,
+                (usersRead - restored) / 1e6));
+        this.persistenceService = new PersistenceService(this.ioSerializable, this.journal,
+                this.userController.getUserManager(), (step, exception) -> logger.log(Level.WARNING,
+                "Cannot save the " + step + ", the changes are kept in the journal.", exception));
         this.loginController = new LoginController(this.userController);
         this.calendarController = new CalendarController();
         this.displayMenu = new DisplayMenu();
     }
 
+    /**
+     * Download and merge the changes made elsewhere, on the background thread started at launch.
+     */
+    private void reconcile() {
+        long start = System.nanoTime();
+        try {
+            this.ioSerializable.reconcileWithRemote();
+            logger.fine(String.format("Startup: remote changes merged in %.1f ms", (System.nanoTime() - start) / 1e6));
+        } catch (IOException eIO) {
+            logger.log(Level.WARNING, "Cannot download the changes made elsewhere, working from the local copy.", eIO);
+        }
+    }
+
+    /**
+     * Add the users downloaded in the background to those who can log in, once the download is done. The first call
+     * waits for it for a while, so that the events of the user logging in are read from the merged files; if it
+     * takes longer the program carries on from the local copy and the changes are merged into the files only.
+     * To be called before logging in or signing up.
+     */
+    public void applyRemoteChanges() {
+        if (this.remoteChangesApplied) {
+            return;
+        }
+        try {
+            long wait = this.waitedForReconciliation ? 0 : RECONCILIATION_WAIT.toMillis();
+            this.waitedForReconciliation = true;
+            this.reconciliation.get(wait, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException eTimeout) {
+            return;
+        } catch (ExecutionException eExecution) {
+            logger.log(Level.WARNING, "Cannot merge the changes made elsewhere.", eExecution.getCause());
+        } catch (InterruptedException eInterrupted) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        this.remoteChangesApplied = true;
+        for (User user : this.ioSerializable.usersReadFromSerializable()) {
+            if (!user.getId().equals(this.userController.getCurrentUser())) {
+                this.userController.getUserManager().getUserInfo().put(user.getId(), user);
+            }
+        }
+    }
+
     /**
      * Display the main screen. Used at and only at launch. Initially show screen of login/signup/exit.
      * Temporary for now since the presenter isn't fully implemented.
@@ -61,6 +136,7 @@ public class MainController {
             System.out.println("Type 'Sign Up' to create a new account, and type 'Log In' to login.");
             System.out.println("Type 'Exit' to exit this program.");
             String SUorLI = scanner.nextLine();
+            this.applyRemoteChanges();
             if (SUorLI.equalsIgnoreCase("Sign Up")) {
                 this.loginController.signUp();
             } else if (SUorLI.equalsIgnoreCase("Log In")) {
@@ -71,7 +147,8 @@ public class MainController {
                 System.out.println("Invalid input! Try again.");
             }
         }
-        this.eventController = new EventController(this.ioSerializable.hasSavedData(), this.ioSerializable, this.userController);
+        this.setEventController(new EventController(this.ioSerializable.hasSavedData(), this.ioSerializable,
+                this.userController));
         System.out.println("WELCOME " + this.userController.getCurrentUsername() + "!");
     }
 
@@ -80,8 +157,8 @@ public class MainController {
      * User will be directed to different controllers depending on what they want to achieve
      */
     public void displayScreen() {
-        this.eventController = new EventController(this.ioSerializable.hasSavedData(), this.ioSerializable,
-                this.userController);
+        this.setEventController(new EventController(this.ioSerializable.hasSavedData(), this.ioSerializable,
+                this.userController));
         while (this.loginController.isLoggedIn()) {
             System.out.println(this.calendarController.showDefaultCalendar(this.eventController));
             System.out.println("Please choose your action");
@@ -118,6 +195,8 @@ public class MainController {
                     this.saveAndExitProgram();
                     break;
             }
+            this.journal.sync();
+            this.persistenceService.tick();
         }
     }
 
@@ -136,44 +215,20 @@ public class MainController {
         }
     }
 
-    /**
-     * Used to make sure the User files that are being imported into the dropbox is up-to-date with any new data that
-     * were added whilst the program was running.
-     *
-     * @return ArrayList of the union set of all users in the dropbox repository and this program
-     */
-    public ArrayList<User> combineTwoUserFileContents(UserManager um1, UserManager um2) {
-        ArrayList<User> arrayListUM1 = new ArrayList<>(um1.getAllUsers());
-        ArrayList<User> arrayListUM2 = new ArrayList<>(um2.getAllUsers());
-        Set<User> set = new HashSet<>();
-        set.addAll(arrayListUM1);
-        set.addAll(arrayListUM2);
-        return new ArrayList<>(set);
-    }
-
-
-
     /**
      * Save and exit the program.
-     * Make sure the file saves the union set of localized serialized files and also the perhaps newly serialized files
-     * in the Dropbox cloud repository, that may have been saved while this local program was running.
+     * The last save is started in the background like the others, merging the users with those in the files, and the
+     * program exits once it is done. If it does not finish in time or fails, the files are kept and the journal still
+     * holds the changes.
      */
     public void saveAndExitProgram() {
-        // Variables below are only for the final serialization process
-        IOSerializable tempIoSerializable = new IOSerializable(false, false);
-        UserController tempUserController = new UserController(true, tempIoSerializable);
-        if (this.eventController != null) {
-            Map<UUID, List<Event>> map = this.eventController.getEventManager().getUuidEventsMap();
-            Map<UUID, Map<UUID, RecursiveEvent>> map1 = this.eventController.getEventManager().getUuidRecursiveEventsMap();
-            map.put(this.userController.getCurrentUser(), this.eventController.getEventManager().getDefaultEventInfoGetter().getAllEvents());
-            tempIoSerializable.eventsWriteToSerializable(map);
-            tempIoSerializable.recursiveEventsWriteToSerializable(map1);
+        this.applyRemoteChanges();
+        this.journal.sync();
+        this.persistenceService.saveNow();
+        if (this.persistenceService.shutdown(EXIT_SAVE_TIMEOUT) && this.persistenceService.lastSaveSucceeded()) {
+            this.ioSerializable.deleteOldFiles();
+            this.ioSerializable.deleteNewFiles();
         }
-        tempIoSerializable.usersWriteToSerializable(combineTwoUserFileContents(this.userController.getUserManager(),
-                tempUserController.getUserManager()));
-        tempIoSerializable.saveToDropbox();
-        this.ioSerializable.deleteOldFiles();
-        this.ioSerializable.deleteNewFiles();
         System.exit(0);
     }
 
@@ -194,7 +249,23 @@ public class MainController {
         return this.ioSerializable;
     }
 
+    public EventJournal getJournal() {
+        return this.journal;
+    }
+
+    public PersistenceService getPersistenceService() {
+        return this.persistenceService;
+    }
+
+    /**
+     * Set the EventController of the current user, applying the changes in the journal to its events and recording
+     * the changes made to them from now on.
+     *
+     * @param eventController the EventController of the current user
+     */
     public void setEventController(EventController eventController){
         this.eventController = eventController;
+        this.journal.follow(this.userController.getCurrentUser(), eventController.getEventManager());
+        this.persistenceService.follow(this.userController.getCurrentUser(), eventController.getEventManager());
     }
 }
@@ -132,9 +132,8 @@ public class RecursionController {
     public void createNewRecursion(List<UUID> eventIDList, EventManager eventManager){
         UUID uuid = addEventsToRecursiveObject(eventIDList, eventManager);
         setDateGetter(eventManager, uuid);
-        eventManager.getRepeatedEventManager().getRecursiveIdToDateToEventsMap().put(uuid,
-                eventManager.getRepeatedEventManager().eventListToMap(eventManager.
-                        getRepeatedEventManager().getEventsFromRecursion(uuid), eventIDList.size()));
+        eventManager.getRepeatedEventManager().addRecursion(eventManager.getRepeatedEventManager().
+                getRecursiveEventMap().get(uuid));
     }
 
     /**
@@ -154,9 +153,8 @@ public class RecursionController {
         input[1] = dateTime2;
         eventManager.getRepeatedEventManager().getRecursiveEventMap().get(uuid).
                 setIntervalDateDateGetter(input);
-        eventManager.getRepeatedEventManager().getRecursiveIdToDateToEventsMap().put(uuid,
-                eventManager.getRepeatedEventManager().eventListToMap(eventManager.
-                        getRepeatedEventManager().getEventsFromRecursion(uuid), eventIDList.size()));
+        eventManager.getRepeatedEventManager().addRecursion(eventManager.getRepeatedEventManager().
+                getRecursiveEventMap().get(uuid));
     }
 
     /**
@@ -172,8 +170,7 @@ public class RecursionController {
         UUID uuid = addEventsToRecursiveObject(eventIDList, eventManager, secondFirstEventDateTime);
         eventManager.getRepeatedEventManager().getRecursiveEventMap().get(uuid).
                 setNumberOfRepetitionDateGetter(numRepetition);
-        eventManager.getRepeatedEventManager().getRecursiveIdToDateToEventsMap().put(uuid,
-                eventManager.getRepeatedEventManager().eventListToMap(eventManager.
-                        getRepeatedEventManager().getEventsFromRecursion(uuid), eventIDList.size()));
+        eventManager.getRepeatedEventManager().addRecursion(eventManager.getRepeatedEventManager().
+                getRecursiveEventMap().get(uuid));
     }
 }
\ No newline at end of file
@@ -235,7 +235,7 @@ public class UserController {
     }
 
     public void setProcrastinate(boolean procrastinate) {
-        this.userManager.getPreferences(currentUser).setProcrastinate(procrastinate);
+        this.userManager.setProcrastinate(this.currentUser, procrastinate);
     }
 
     private void toggleMorningPerson() {
@@ -243,7 +243,7 @@ public class UserController {
     }
 
     public void setMorningPerson(boolean morningPerson) {
-        this.userManager.getPreferences(currentUser).setMorningPerson(morningPerson);
+        this.userManager.setMorningPerson(this.currentUser, morningPerson);
     }
 
     private void toggleCram() {
@@ -256,7 +256,7 @@ public class UserController {
     }
 
     public void setSessionSpacing(String sessionSpacing) {
-        this.userManager.getPreferences(currentUser).setSpacingSameDay(sessionSpacing);
+        this.userManager.setSpacingSameDay(this.currentUser, sessionSpacing);
     }
 
     public UserPreferences getPreferences() {
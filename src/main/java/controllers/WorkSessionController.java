@@ -1,6 +1,5 @@
 package controllers;
 
-import entities.Event;
 import entities.UserPreferences;
 import helpers.Constants;
 import helpers.ControllerHelper;
@@ -12,6 +11,8 @@ import usecases.events.worksessions.WorkSessionScheduler;
 import usecases.events.worksessions.WorkSessionSchedulerBuilder;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -56,14 +57,24 @@ public class WorkSessionController {
     }
 
     /**
-     * Reschedules all events in eventManager
+     * Reschedules all events in eventManager in one pass
      *
      * @param eventManager EventManager
+     * @see WorkSessionScheduler#autoScheduleAll
      */
     public void refresh(EventManager eventManager) {
-        for (Event event : eventManager.getDefaultEventInfoGetter().getAllEvents()) {
-            this.workSessionScheduler.autoSchedule(eventManager.getDefaultEventInfoGetter().getID(event), eventManager);
-        }
+        this.workSessionScheduler.autoScheduleAll(eventManager);
+    }
+
+    /**
+     * Reschedules the events in eventManager whose work sessions may depend on the busy time that changed
+     *
+     * @param eventManager EventManager
+     * @param changed      the {start, end} intervals of busy time before and after the change
+     * @see WorkSessionScheduler#autoScheduleAffected
+     */
+    public void refresh(EventManager eventManager, List<LocalDateTime[]> changed) {
+        this.workSessionScheduler.autoScheduleAffected(eventManager, changed);
     }
 
     /**
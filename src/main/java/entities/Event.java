@@ -116,6 +116,7 @@ public class Event implements Serializable {
      * Getter methods
      */
     public UUID getRecursiveId() {return recursiveId;}
+    public UUID getCategories() {return Categories;}
     public Long getStartWorking(){
         return this.startWorking;
     }
@@ -10,8 +10,6 @@ import java.time.YearMonth;
 public class OurCalendar {
 
     private final List<Integer> dateInfo; //in the form of [year, month, # of days in the month]
-    private boolean conflict;  // if the calendar has any conflicted information
-    private List<UUID> conflictEvent; // All the UUID of the events that are conflicting
     private final Map<Integer, List<UUID>> calendarMap; // map of calendar
 
     /**
@@ -33,10 +31,6 @@ public class OurCalendar {
             }
         };
 
-        // no conflict because empty
-        this.conflict = false;
-        // empty list of conflicted object to start with
-        this.conflictEvent = new ArrayList<>();
         // create an empty calendar map with keys of days and values of list of events (empty to start with) for the
         // provided year and month
         Map<Integer, List<UUID>> tempMap = new HashMap<>();
@@ -51,8 +45,6 @@ public class OurCalendar {
         GregorianCalendar temp = new GregorianCalendar();
         OurCalendar tempCalendar = new OurCalendar(temp.get(Calendar.YEAR), temp.get(Calendar.MONTH) + 1);
         this.dateInfo = tempCalendar.dateInfo;
-        this.conflict = tempCalendar.conflict;
-        this.conflictEvent = tempCalendar.conflictEvent;
         this.calendarMap = tempCalendar.calendarMap;
     }
 
@@ -69,6 +61,18 @@ public class OurCalendar {
         }
     }
 
+    /**
+     * Remove the event ID from the calendar for the given date, if it is there
+     * @param eventID the event ID that wants to be removed
+     * @param date the date it was added to
+     */
+    public void removeEventID(UUID eventID, int date){
+        List<UUID> eventIDList = this.calendarMap.get(date);
+        if (eventIDList != null) {
+            eventIDList.remove(eventID);
+        }
+    }
+
     /**
      * get dateInfo
      * @return dateInfo
@@ -85,21 +89,5 @@ public class OurCalendar {
         return this.calendarMap;
     }
 
-    /**
-     * Set the conflict to the result
-     * @param result boolean to indicate the conflict status
-     */
-    public void setConflict(boolean result) {
-        this.conflict = result;
-    }
-
-    /**
-     * set the conflict events to the given list
-     * @param conflictEvent list of conflicted events
-     */
-    public void setConflictEvent(List<UUID> conflictEvent) {
-        this.conflictEvent = conflictEvent;
-    }
-
 }
 
@@ -7,9 +7,7 @@ import interfaces.DateGetter;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * @author Malik Lahlou
@@ -17,13 +15,18 @@ import java.util.UUID;
 
 public class IntervalDateInput implements DateGetter {
 
+    /**
+     * how far repetitions of a recursion without an end date are listed by listOfEventsInTheCycles
+     */
+    public static final Period OPEN_ENDED_HORIZON = Period.ofYears(2);
+
     private final LocalDateTime[] periodOfRepetition;
     private EventHelper eventHelper = new EventHelper();
 
     /**
      * constructor of IntervalDateInput.
      * @param beginningOfCycles The date this repetition should begin.
-     * @param endOfCycles The date this repetition ends.
+     * @param endOfCycles The date this repetition ends, or null if it repeats forever.
      */
 
     public IntervalDateInput(LocalDateTime beginningOfCycles, LocalDateTime endOfCycles){
@@ -32,22 +35,28 @@ public class IntervalDateInput implements DateGetter {
         this.periodOfRepetition[1] = endOfCycles;
     }
 
+    /**
+     * @return a copy of the date this repetition begins and the date it ends (or null).
+     */
+    public LocalDateTime[] getPeriodOfRepetition(){
+        return this.periodOfRepetition.clone();
+    }
+
 
     /**
      * helper method.
      * @param event the event I want to copy.
      * @param period the time period that should be added to event start/end time until it's after periodOfRepetition[0].
      * @return creates an event after periodOfRepetition[0] by adding period to the event start or end date (if there
-     * is no start date).
+     * is no start date) the smallest number of times needed, computed directly.
      */
 
     private Event getEventAfterStartDate(Event event, Period period){
         LocalDateTime startTime = eventHelper.startTimeGetter(event);
         Period startEndTimeDifference = Period.between(LocalDate.from(startTime), LocalDate.from(event.getEndTime()));
         LocalDateTime hoursDifference = event.getEndTime().minusHours(startTime.getHour());
-        while(startTime.isBefore(this.periodOfRepetition[0])){
-            startTime = startTime.plus(period);
-        }
+        startTime = startTime.plus(period.multipliedBy((int) RecurrenceRule.periodsUntil(startTime, period,
+                this.periodOfRepetition[0])));
         if (startEndTimeDifference == Period.ZERO & hoursDifference.getHour() == 0){
             return new Event(UUID.randomUUID(), event.getName(), startTime);
         }
@@ -77,52 +86,77 @@ public class IntervalDateInput implements DateGetter {
 
     /**
      * returns repetitions of event in events by adding the period between the first and last event in the list to
-     * each event in the list until one become after periodOfRepetition[1].
+     * each event in the list until one become after periodOfRepetition[1]. If there is no periodOfRepetition[1], the
+     * repetitions stop after OPEN_ENDED_HORIZON from the later of periodOfRepetition[0] and today.
      * @param events the list of events I want to repeat.
      * @return list of repetitions of event in events
      */
 
     @Override
     public List<Event> listOfEventsInTheCycles(List<Event> events) {
-        int cycleLength = events.size() - 1;
-        Event firstEvent1 = events.get(0);
-        Event firstEvent2 = events.get(cycleLength);
-        events.remove(cycleLength);
-        LocalDateTime eventDate1 = firstEvent1.getEndTime();
-        LocalDateTime eventDate2 = firstEvent2.getEndTime();
-        Period period = Period.between(LocalDate.from(eventDate1), LocalDate.from(eventDate2));
-        List<Event> newEvents = getEventListAfterBeginningOfCycles(events, period);
-        List<Event> result = new ArrayList<>();
-        LocalDateTime currentDate = eventHelper.startTimeGetter(newEvents.get(0));
-        if (this.periodOfRepetition[0].isAfter(eventDate1)){
-            result.addAll(newEvents);
-        }
-        List<String> nameList = new ArrayList<>();
-        for (Event event : newEvents){
-            nameList.add(event.getName());
+        LocalDateTime horizon = null;
+        if (this.periodOfRepetition[1] == null){
+            LocalDateTime today = LocalDate.now().atStartOfDay();
+            horizon = (today.isAfter(this.periodOfRepetition[0]) ? today : this.periodOfRepetition[0])
+                    .plus(OPEN_ENDED_HORIZON);
         }
-        int i = 2;
-        int eventIndex = 0;
-        while(currentDate.plus(period).isBefore(this.periodOfRepetition[1])){
-            String name = nameList.get(eventIndex);
-            Event thisEvent = newEvents.get(eventIndex);
-            LocalDateTime newEndTime = thisEvent.getEndTime().plus(period);
-            Event newThisEvent = new Event(UUID.randomUUID(), name + "-" + i, newEndTime);
-            if(thisEvent.getStartTime() != null){
-                LocalDateTime newStartTime = thisEvent.getStartTime().plus(period);
-                newThisEvent.setStartTime(newStartTime);
-            }
-            result.add(newThisEvent);
-            newEvents.remove(eventIndex);
-            newEvents.add(eventIndex, newThisEvent); // To keep adding only one period instead of multiplying by scalar.
-            eventIndex++;
-            if(eventIndex == cycleLength){
-                eventIndex = 0;
-                i ++;
+        List<Event> result = new ArrayList<>();
+        Iterator<Event> occurrences = occurrenceIterator(events);
+        while(occurrences.hasNext()){
+            Event event = occurrences.next();
+            if (horizon != null && eventHelper.startTimeGetter(event).isAfter(horizon)){
+                break;
             }
-            currentDate = eventHelper.startTimeGetter(newEvents.get(eventIndex));
+            result.add(event);
         }
-        events.add(firstEvent2);
         return result;
     }
+
+    /**
+     * Compiles the repetitions of a cycle: the events of the cycle except the last (which is the second instance of
+     * the first event) moved after periodOfRepetition[0], then moved by one more period for each repetition while
+     * they start before periodOfRepetition[1]. The moved events of the first cycle are only part of the repetitions if
+     * periodOfRepetition[0] is after the first event.
+     * @param events the list of events I want to repeat.
+     * @return the recurrence rule of the repetitions of event in events
+     */
+    public RecurrenceRule getRecurrenceRule(List<Event> events) {
+        int cycleLength = events.size() - 1;
+        if (cycleLength <= 0){
+            return new RecurrenceRule(new ArrayList<>(), Period.ZERO, 1, null, 0);
+        }
+        LocalDateTime eventDate1 = events.get(0).getEndTime();
+        LocalDateTime eventDate2 = events.get(cycleLength).getEndTime();
+        Period period = Period.between(LocalDate.from(eventDate1), LocalDate.from(eventDate2));
+        List<Event> newEvents = getEventListAfterBeginningOfCycles(events.subList(0, cycleLength), period);
+        int firstShift = this.periodOfRepetition[0].isAfter(eventDate1) ? 0 : 1;
+        return new RecurrenceRule(newEvents, period, firstShift, this.periodOfRepetition[1], -1);
+    }
+
+    /**
+     * returns the same events as listOfEventsInTheCycles one at a time. If there is no periodOfRepetition[1] the
+     * iterator never ends.
+     * @param events the list of events I want to repeat.
+     * @return iterator over the repetitions of event in events
+     */
+
+    @Override
+    public Iterator<Event> occurrenceIterator(List<Event> events) {
+        return getRecurrenceRule(events).iterator(0);
+    }
+
+    @Override
+    public Iterator<Event> occurrenceIterator(List<Event> events, long fromIndex) {
+        return getRecurrenceRule(events).iterator(fromIndex);
+    }
+
+    @Override
+    public Event occurrence(List<Event> events, long index) {
+        return getRecurrenceRule(events).get(index);
+    }
+
+    @Override
+    public long indexOfFirstOccurrenceAtOrAfter(List<Event> events, LocalDateTime time) {
+        return getRecurrenceRule(events).indexOfFirstAtOrAfter(time);
+    }
 }
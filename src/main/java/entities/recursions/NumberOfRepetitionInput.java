@@ -7,9 +7,7 @@ import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * @author Malik Lahlou
@@ -28,6 +26,13 @@ public class NumberOfRepetitionInput implements DateGetter, Serializable {
         this.numberOfRepetitions = numberOfRepetitions;
     }
 
+    /**
+     * @return the number of times the cycle is repeated.
+     */
+    public int getNumberOfRepetitions(){
+        return this.numberOfRepetitions;
+    }
+
     /**
      * returns repetitions of event in events by adding the period between the first and last event in the list to
      * each event in the list a numberOfRepetitions of times
@@ -37,32 +42,55 @@ public class NumberOfRepetitionInput implements DateGetter, Serializable {
 
     @Override
     public List<Event> listOfEventsInTheCycles(List<Event> events) {
-        int cycleLength = events.size() - 1;
-        Event firstEvent1 = events.get(0);
-        Event firstEvent2 = events.get(cycleLength);
-        LocalDateTime eventDate1 = firstEvent1.getEndTime();
-        LocalDateTime eventDate2 = firstEvent2.getEndTime();
-        Period period = Period.between(LocalDate.from(eventDate1), LocalDate.from(eventDate2));
         List<Event> result = new ArrayList<>();
-        int repetitionIndex = 0;
-        int i = 2;
-        while(repetitionIndex < this.numberOfRepetitions){
-            int eventIndex = 0;
-            while(eventIndex < cycleLength){
-                Event thisEvent = events.get(eventIndex);
-                Period multiple = periodMultiplicationByScalar(period, repetitionIndex);
-                LocalDateTime newEndTime = thisEvent.getEndTime().plus(multiple);
-                Event newThisEvent = new Event(UUID.randomUUID(), thisEvent.getName() + "-" + i, newEndTime);
-                if(thisEvent.getStartTime() != null){
-                    LocalDateTime newStartTime = thisEvent.getStartTime().plus(multiple);
-                    newThisEvent.setStartTime(newStartTime);
-                }
-                result.add(newThisEvent);
-                eventIndex++;
-            }
-            repetitionIndex++;
-            i++;
+        Iterator<Event> occurrences = occurrenceIterator(events);
+        while(occurrences.hasNext()){
+            result.add(occurrences.next());
         }
         return result;
     }
+
+    /**
+     * Compiles the repetitions of a cycle: the events of the cycle except the last (which is the second instance of
+     * the first event), moved by the period between the first and last events once for each repetition.
+     * @param events the list of events I want to repeat.
+     * @return the recurrence rule of the repetitions of event in events
+     */
+    public RecurrenceRule getRecurrenceRule(List<Event> events) {
+        int cycleLength = events.size() - 1;
+        if (cycleLength <= 0){
+            return new RecurrenceRule(new ArrayList<>(), Period.ZERO, 1, null, 0);
+        }
+        LocalDateTime eventDate1 = events.get(0).getEndTime();
+        LocalDateTime eventDate2 = events.get(cycleLength).getEndTime();
+        Period period = Period.between(LocalDate.from(eventDate1), LocalDate.from(eventDate2));
+        return new RecurrenceRule(events.subList(0, cycleLength), period, 1, null,
+                (long) this.numberOfRepetitions * cycleLength);
+    }
+
+    /**
+     * returns the same events as listOfEventsInTheCycles one at a time.
+     * @param events the list of events I want to repeat.
+     * @return iterator over the repetitions of event in events
+     */
+
+    @Override
+    public Iterator<Event> occurrenceIterator(List<Event> events) {
+        return getRecurrenceRule(events).iterator(0);
+    }
+
+    @Override
+    public Iterator<Event> occurrenceIterator(List<Event> events, long fromIndex) {
+        return getRecurrenceRule(events).iterator(fromIndex);
+    }
+
+    @Override
+    public Event occurrence(List<Event> events, long index) {
+        return getRecurrenceRule(events).get(index);
+    }
+
+    @Override
+    public long indexOfFirstOccurrenceAtOrAfter(List<Event> events, LocalDateTime time) {
+        return getRecurrenceRule(events).indexOfFirstAtOrAfter(time);
+    }
 }
@@ -0,0 +1,191 @@
+package entities.recursions;
+
+import entities.Event;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.*;
+
+/**
+ * Compiled form of a recursion: the events of the first cycle (the templates) and the period between cycles. The
+ * event at index k of the recursion is template k % c moved by (k / c + firstShift) periods, where c is the number of
+ * templates, so any event of the recursion, the first event ending at or after some time and the number of events in
+ * a range are computed without going through the events before them.
+ * <p>
+ * Events moved by zero periods are the templates themselves. Events moved by r periods, r &gt; 0, are named
+ * "name-(r + 1)", and the recursion stops at the first of them that starts at or after the end date (if there is one)
+ * or after the maximum number of events (if there is one).
+ *
+ * @see IntervalDateInput
+ * @see NumberOfRepetitionInput
+ */
+public class RecurrenceRule {
+    /**
+     * average length of a month in seconds, used to guess how many periods fit between two times
+     */
+    private static final double SECONDS_PER_MONTH = 365.2425 * 24 * 60 * 60 / 12;
+
+    private final List<Event> templates;
+    private final Period period;
+    private final int firstShift;
+    private final long size;
+
+    /**
+     * constructor of RecurrenceRule.
+     * @param templates the events of the first cycle, in chronological order.
+     * @param period the period between two cycles.
+     * @param firstShift 0 if the templates are the first cycle of the recursion, 1 if the first cycle is the templates
+     *                   moved by one period.
+     * @param endOfCycles the recursion stops at the first moved event that starts at or after this date, or null.
+     * @param maximumSize the maximum number of events in the recursion, or a negative number if there is none.
+     */
+    public RecurrenceRule(List<Event> templates, Period period, int firstShift, LocalDateTime endOfCycles,
+                          long maximumSize){
+        this.templates = new ArrayList<>(templates);
+        this.period = period;
+        this.firstShift = firstShift;
+        long size = maximumSize < 0 ? Long.MAX_VALUE : maximumSize;
+        if (this.templates.isEmpty()){
+            size = 0;
+        }
+        else if (!isPositive(period)){
+            // a recursion that does not move forward in time would never reach its end date
+            size = Math.min(size, firstShift == 0 ? this.templates.size() : 0);
+        }
+        else if (endOfCycles != null){
+            size = Math.min(size, this.firstIndex(endOfCycles, true, 1));
+        }
+        this.size = size;
+    }
+
+    /**
+     * @return the number of events in the recursion, Long.MAX_VALUE if it never ends.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of an event in the recursion.
+     * @return a new event with a new ID which is the event of the recursion at this index, or null if the recursion
+     * has less events.
+     */
+    public Event get(long index){
+        if (index < 0 || index >= size){
+            return null;
+        }
+        Event template = this.templates.get((int) (index % this.templates.size()));
+        int shift = (int) (index / this.templates.size()) + this.firstShift;
+        if (shift == 0){
+            return template;
+        }
+        Period multiple = this.period.multipliedBy(shift);
+        Event event = new Event(UUID.randomUUID(), template.getName() + "-" + (shift + 1),
+                template.getEndTime().plus(multiple));
+        if (template.getStartTime() != null){
+            event.setStartTime(template.getStartTime().plus(multiple));
+        }
+        return event;
+    }
+
+    /**
+     * @param time any time.
+     * @return the index of the first event of the recursion ending at or after time (for deadlines, the first deadline
+     * at or after time), or size() if there is none.
+     */
+    public long indexOfFirstAtOrAfter(LocalDateTime time){
+        if (!isPositive(this.period)){
+            for (int index = 0; index < size; index++){
+                if (!this.templates.get(index).getEndTime().isBefore(time)){
+                    return index;
+                }
+            }
+            return size;
+        }
+        return Math.min(size, this.firstIndex(time, false, this.firstShift));
+    }
+
+    /**
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @return the number of events of the recursion ending in [from, to).
+     */
+    public long numberOfEventsBetween(LocalDateTime from, LocalDateTime to){
+        return Math.max(0, this.indexOfFirstAtOrAfter(to) - this.indexOfFirstAtOrAfter(from));
+    }
+
+    /**
+     * @param fromIndex the index of the first event to return.
+     * @return an iterator over the events of the recursion from this index on.
+     */
+    public Iterator<Event> iterator(long fromIndex){
+        return new Iterator<>() {
+            private long index = Math.max(0, fromIndex);
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+
+    /**
+     * The smallest index whose template is moved by at least minimumShift periods and whose start (if byStart) or
+     * end time is at or after time. Each template gets later with every period, so the smallest index is the smallest
+     * over the templates of the first index of that template to reach time.
+     */
+    private long firstIndex(LocalDateTime time, boolean byStart, int minimumShift){
+        long result = Long.MAX_VALUE;
+        for (int i = 0; i < this.templates.size(); i++){
+            Event template = this.templates.get(i);
+            LocalDateTime templateTime = byStart && template.getStartTime() != null ? template.getStartTime() :
+                    template.getEndTime();
+            long shift = Math.max(minimumShift, periodsUntil(templateTime, this.period, time));
+            long index = (shift - this.firstShift) * this.templates.size() + i;
+            result = Math.min(result, index);
+        }
+        return result;
+    }
+
+    /**
+     * @param period any period.
+     * @return true if adding period to a time makes it later.
+     */
+    public static boolean isPositive(Period period){
+        return period.toTotalMonths() > 0 || (period.toTotalMonths() == 0 && period.getDays() > 0);
+    }
+
+    /**
+     * Computes the smallest number of times period has to be added to start for it to be at or after target, without
+     * adding it that many times.
+     *
+     * @param start any time.
+     * @param period a period, 0 is returned if it does not move forward in time.
+     * @param target the time to reach.
+     * @return the smallest m &gt;= 0 such that start plus m times period is not before target.
+     */
+    public static long periodsUntil(LocalDateTime start, Period period, LocalDateTime target){
+        if (!start.isBefore(target) || !isPositive(period)){
+            return 0;
+        }
+        double periodSeconds = period.toTotalMonths() * SECONDS_PER_MONTH + period.getDays() * 86400.0;
+        long guess = Math.max(0, (long) Math.ceil(Duration.between(start, target).getSeconds() / periodSeconds));
+        // months are not all the same length, so the guess may be off by a little
+        while (guess > 0 && !start.plus(period.multipliedBy((int) (guess - 1))).isBefore(target)){
+            guess--;
+        }
+        while (start.plus(period.multipliedBy((int) guess)).isBefore(target)){
+            guess++;
+        }
+        return guess;
+    }
+}
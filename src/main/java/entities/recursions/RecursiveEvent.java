@@ -66,6 +66,7 @@ public class RecursiveEvent implements Serializable {
 
     public UUID getId() {return id;}
     public List<Event> getEventsInOneCycle() {return eventsInOneCycle;}
+    public DateGetter getMethodToGetDate() {return methodToGetDate;}
     public int getCycleLength(){
         return eventsInOneCycle.size() -1;
     }
@@ -101,6 +102,48 @@ public class RecursiveEvent implements Serializable {
         return toReturn;
     }
 
+    /**
+     *
+     * Uses the classes that implement the date getter interface to return the events of the recursion one at a time,
+     * without computing the whole recursion.
+     * @return iterator over the repetitions of the events in one cycle, in the order of listOfEventsInCycles
+     */
+    public Iterator<Event> occurrenceIterator(){
+        return this.occurrenceIterator(0);
+    }
+
+    /**
+     *
+     * Same as occurrenceIterator(), but starting at the event at index fromIndex in the recursion.
+     * @param fromIndex the index of the first event to return
+     * @return iterator over the repetitions of the events in one cycle from fromIndex on
+     */
+    public Iterator<Event> occurrenceIterator(long fromIndex){
+        Iterator<Event> occurrences = methodToGetDate.occurrenceIterator(this.eventsInOneCycle, fromIndex);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return occurrences.hasNext();
+            }
+
+            @Override
+            public Event next() {
+                Event event = occurrences.next();
+                event.setRecursiveId(id);
+                return event;
+            }
+        };
+    }
+
+    /**
+     *
+     * @param time any time
+     * @return the index in the recursion of the first event ending at or after time
+     */
+    public long indexOfFirstOccurrenceAtOrAfter(LocalDateTime time){
+        return methodToGetDate.indexOfFirstOccurrenceAtOrAfter(this.eventsInOneCycle, time);
+    }
+
     /**
      *
      * Helper method to return the last event in the cycle of the recursion.
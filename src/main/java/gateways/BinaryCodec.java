@@ -0,0 +1,535 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.UserPreferences;
+import entities.recursions.IntervalDateInput;
+import entities.recursions.NumberOfRepetitionInput;
+import entities.recursions.RecursiveEvent;
+import interfaces.DateGetter;
+import interfaces.StorageCodec;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * A compact binary format for the saved events, recursions and users, written field by field instead of as Java
+ * object graphs so that the files do not break when a class changes.
+ * <p>
+ * Every file starts with the bytes "CALB", the schema version and the kind of data in it, followed by a table of the
+ * strings used in the file (each name written once) and the records. Numbers are written as varints (small numbers
+ * take one byte), times as minutes since the epoch with the seconds only written when there are some, the end of an
+ * event as minutes after its start, and UUIDs as two longs. Fields of an event that have their default value are left
+ * out and marked in a bit set.
+ * <p>
+ * The categories and suggestions of users are not saved, as they are not used after logging in yet.
+ *
+ * @see StorageCodec
+ * @see IOSerializable
+ */
+public class BinaryCodec implements StorageCodec {
+    public static final int SCHEMA_VERSION = 1;
+    private static final byte[] MAGIC = "CALB".getBytes(StandardCharsets.US_ASCII);
+
+    // kinds of data
+    private static final int EVENTS = 1;
+    private static final int RECURSIVE_EVENTS = 2;
+    private static final int USERS = 3;
+
+    // fields of an event that are written
+    private static final int HAS_START = 1;
+    private static final int HAS_DESCRIPTION = 1 << 1;
+    private static final int HAS_CATEGORY = 1 << 2;
+    private static final int HAS_RECURSIVE_ID = 1 << 3;
+    private static final int HAS_HOURS_NEEDED = 1 << 4;
+    private static final int HAS_SESSION_LENGTH = 1 << 5;
+    private static final int HAS_START_WORKING = 1 << 6;
+    private static final int SUB_MINUTE = 1 << 7;
+    private static final int NULL_HOURS_NEEDED = 1 << 8;
+    private static final int NULL_SESSION_LENGTH = 1 << 9;
+    private static final int NULL_START_WORKING = 1 << 10;
+
+    // defaults of the constructors of Event, not written
+    private static final long DEFAULT_HOURS_NEEDED = 0L;
+    private static final long DEFAULT_SESSION_LENGTH = 1L;
+    private static final long DEFAULT_START_WORKING = 6L;
+
+    // ways of getting the dates of a recursion
+    private static final int NO_DATE_GETTER = 0;
+    private static final int INTERVAL_DATE_GETTER = 1;
+    private static final int REPETITION_DATE_GETTER = 2;
+
+    // preferences of a user
+    private static final int PROCRASTINATE = 1;
+    private static final int MORNING_PERSON = 1 << 1;
+    private static final int CRAM = 1 << 2;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * @param in a stream supporting mark and reset
+     * @return true if the stream starts with the header of this format. The stream is reset to where it was
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean isBinary(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        byte[] start = in.readNBytes(MAGIC.length);
+        in.reset();
+        return Arrays.equals(start, MAGIC);
+    }
+
+    @Override
+    public void writeEvents(Map<UUID, List<Event>> events, OutputStream out) throws IOException {
+        RecordWriter writer = new RecordWriter();
+        writer.writeVarint(events.size());
+        for (Map.Entry<UUID, List<Event>> entry : events.entrySet()) {
+            writer.writeUUID(entry.getKey());
+            writer.writeEvents(entry.getValue());
+        }
+        writer.writeTo(out, EVENTS);
+    }
+
+    @Override
+    public Map<UUID, List<Event>> readEvents(InputStream in) throws IOException {
+        RecordReader reader = new RecordReader(in, EVENTS);
+        int users = reader.readVarint();
+        Map<UUID, List<Event>> events = new HashMap<>();
+        for (int i = 0; i < users; i++) {
+            events.put(reader.readUUID(), reader.readEvents());
+        }
+        return events;
+    }
+
+    @Override
+    public void writeRecursiveEvents(Map<UUID, Map<UUID, RecursiveEvent>> recursiveEvents, OutputStream out)
+            throws IOException {
+        RecordWriter writer = new RecordWriter();
+        writer.writeVarint(recursiveEvents.size());
+        for (Map.Entry<UUID, Map<UUID, RecursiveEvent>> entry : recursiveEvents.entrySet()) {
+            writer.writeUUID(entry.getKey());
+            writer.writeVarint(entry.getValue().size());
+            for (RecursiveEvent recursiveEvent : entry.getValue().values()) {
+                writer.writeRecursiveEvent(recursiveEvent);
+            }
+        }
+        writer.writeTo(out, RECURSIVE_EVENTS);
+    }
+
+    @Override
+    public Map<UUID, Map<UUID, RecursiveEvent>> readRecursiveEvents(InputStream in) throws IOException {
+        RecordReader reader = new RecordReader(in, RECURSIVE_EVENTS);
+        int users = reader.readVarint();
+        Map<UUID, Map<UUID, RecursiveEvent>> recursiveEvents = new HashMap<>();
+        for (int i = 0; i < users; i++) {
+            UUID userID = reader.readUUID();
+            int count = reader.readVarint();
+            Map<UUID, RecursiveEvent> userRecursions = new HashMap<>();
+            for (int j = 0; j < count; j++) {
+                RecursiveEvent recursiveEvent = reader.readRecursiveEvent();
+                userRecursions.put(recursiveEvent.getId(), recursiveEvent);
+            }
+            recursiveEvents.put(userID, userRecursions);
+        }
+        return recursiveEvents;
+    }
+
+    @Override
+    public void writeUsers(List<User> users, OutputStream out) throws IOException {
+        RecordWriter writer = new RecordWriter();
+        writer.writeVarint(users.size());
+        for (User user : users) {
+            writer.writeUser(user);
+        }
+        writer.writeTo(out, USERS);
+    }
+
+    @Override
+    public List<User> readUsers(InputStream in) throws IOException {
+        RecordReader reader = new RecordReader(in, USERS);
+        int count = reader.readVarint();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(reader.readUser());
+        }
+        return users;
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static long nanosInMinute(LocalDateTime time) {
+        return time.getSecond() * NANOS_PER_SECOND + time.getNano();
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute, long nanosInMinute) {
+        return LocalDateTime.ofEpochSecond(minute * 60 + nanosInMinute / NANOS_PER_SECOND,
+                (int) (nanosInMinute % NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes the records into a buffer while collecting the strings they use, then writes the header, the string
+     * table and the buffer.
+     */
+    private static class RecordWriter {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream body = new DataOutputStream(buffer);
+        private final Map<String, Integer> stringIndex = new LinkedHashMap<>();
+
+        void writeTo(OutputStream out, int kind) throws IOException {
+            RecordWriter header = new RecordWriter();
+            header.body.write(MAGIC);
+            header.writeVarint(SCHEMA_VERSION);
+            header.body.writeByte(kind);
+            header.writeVarint(this.stringIndex.size());
+            for (String string : this.stringIndex.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                header.writeVarint(bytes.length);
+                header.body.write(bytes);
+            }
+            header.buffer.writeTo(out);
+            this.buffer.writeTo(out);
+            out.flush();
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                this.body.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.body.writeByte((int) value);
+        }
+
+        void writeSignedVarint(long value) throws IOException {
+            this.writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeUUID(UUID id) throws IOException {
+            this.body.writeLong(id.getMostSignificantBits());
+            this.body.writeLong(id.getLeastSignificantBits());
+        }
+
+        /**
+         * writes the index of the string in the string table plus one, or 0 for null
+         */
+        void writeString(String string) throws IOException {
+            if (string == null) {
+                this.writeVarint(0);
+            } else {
+                Integer index = this.stringIndex.computeIfAbsent(string, k -> this.stringIndex.size());
+                this.writeVarint(index + 1);
+            }
+        }
+
+        /**
+         * writes 0 for null, otherwise 1 followed by the minute and the nanoseconds within the minute
+         */
+        void writeNullableTime(LocalDateTime time) throws IOException {
+            if (time == null) {
+                this.writeVarint(0);
+            } else {
+                this.writeVarint(1);
+                this.writeSignedVarint(epochMinute(time));
+                this.writeVarint(nanosInMinute(time));
+            }
+        }
+
+        void writeEvents(List<Event> events) throws IOException {
+            this.writeVarint(events.size());
+            for (Event event : events) {
+                this.writeEvent(event);
+            }
+        }
+
+        void writeEvent(Event event) throws IOException {
+            LocalDateTime start = event.getStartTime();
+            LocalDateTime end = event.getEndTime();
+            int flags = 0;
+            if (start != null) {
+                flags |= HAS_START;
+            }
+            if (event.getDescription() != null) {
+                flags |= HAS_DESCRIPTION;
+            }
+            if (event.getCategories() != null) {
+                flags |= HAS_CATEGORY;
+            }
+            if (event.getRecursiveId() != null) {
+                flags |= HAS_RECURSIVE_ID;
+            }
+            flags |= this.longFlags(event.getHoursNeeded(), DEFAULT_HOURS_NEEDED, HAS_HOURS_NEEDED, NULL_HOURS_NEEDED);
+            flags |= this.longFlags(event.getSessionLength(), DEFAULT_SESSION_LENGTH, HAS_SESSION_LENGTH,
+                    NULL_SESSION_LENGTH);
+            flags |= this.longFlags(event.getStartWorking(), DEFAULT_START_WORKING, HAS_START_WORKING,
+                    NULL_START_WORKING);
+            if (nanosInMinute(end) != 0 || (start != null && nanosInMinute(start) != 0)) {
+                flags |= SUB_MINUTE;
+            }
+
+            this.writeUUID(event.getID());
+            this.writeString(event.getName());
+            this.writeVarint(flags);
+            if (start != null) {
+                this.writeSignedVarint(epochMinute(start));
+                this.writeSignedVarint(epochMinute(end) - epochMinute(start));
+            } else {
+                this.writeSignedVarint(epochMinute(end));
+            }
+            if ((flags & SUB_MINUTE) != 0) {
+                if (start != null) {
+                    this.writeVarint(nanosInMinute(start));
+                }
+                this.writeVarint(nanosInMinute(end));
+            }
+            if (event.getDescription() != null) {
+                this.writeString(event.getDescription());
+            }
+            if (event.getCategories() != null) {
+                this.writeUUID(event.getCategories());
+            }
+            if (event.getRecursiveId() != null) {
+                this.writeUUID(event.getRecursiveId());
+            }
+            if ((flags & HAS_HOURS_NEEDED) != 0) {
+                this.writeSignedVarint(event.getHoursNeeded());
+            }
+            if ((flags & HAS_SESSION_LENGTH) != 0) {
+                this.writeSignedVarint(event.getSessionLength());
+            }
+            if ((flags & HAS_START_WORKING) != 0) {
+                this.writeSignedVarint(event.getStartWorking());
+            }
+            this.writeEvents(event.getWorkSessions());
+        }
+
+        /**
+         * @return no flag if value is the default, the null flag if it is null and the has flag otherwise
+         */
+        private int longFlags(Long value, long defaultValue, int hasFlag, int nullFlag) {
+            if (value == null) {
+                return nullFlag;
+            }
+            return value == defaultValue ? 0 : hasFlag;
+        }
+
+        void writeRecursiveEvent(RecursiveEvent recursiveEvent) throws IOException {
+            this.writeUUID(recursiveEvent.getId());
+            this.writeEvents(recursiveEvent.getEventsInOneCycle());
+            DateGetter dateGetter = recursiveEvent.getMethodToGetDate();
+            if (dateGetter == null) {
+                this.writeVarint(NO_DATE_GETTER);
+            } else if (dateGetter instanceof IntervalDateInput) {
+                LocalDateTime[] period = ((IntervalDateInput) dateGetter).getPeriodOfRepetition();
+                this.writeVarint(INTERVAL_DATE_GETTER);
+                this.writeNullableTime(period[0]);
+                this.writeNullableTime(period[1]);
+            } else if (dateGetter instanceof NumberOfRepetitionInput) {
+                this.writeVarint(REPETITION_DATE_GETTER);
+                this.writeVarint(((NumberOfRepetitionInput) dateGetter).getNumberOfRepetitions());
+            } else {
+                throw new IOException("Cannot save recursions repeated with " + dateGetter.getClass().getName());
+            }
+        }
+
+        void writeUser(User user) throws IOException {
+            this.writeUUID(user.getId());
+            this.writeString(user.getName());
+            this.writeString(user.getUsername());
+            this.writeString(user.getPassword());
+            this.writeEvents(user.getEvents());
+            UserPreferences preferences = user.getUserPreferences();
+            int flags = 0;
+            if (preferences.getProcrastinate()) {
+                flags |= PROCRASTINATE;
+            }
+            if (preferences.getMorningPerson()) {
+                flags |= MORNING_PERSON;
+            }
+            if (preferences.getCram()) {
+                flags |= CRAM;
+            }
+            this.writeVarint(flags);
+            this.writeString(preferences.getSpacingSameDay());
+            this.writeVarint(preferences.getFreeTime().size());
+            for (Map.Entry<LocalTime, LocalTime> freeTime : preferences.getFreeTime().entrySet()) {
+                this.writeVarint(freeTime.getKey().toNanoOfDay());
+                this.writeVarint(freeTime.getValue().toNanoOfDay());
+            }
+        }
+    }
+
+    /**
+     * Checks the header and reads the string table, then reads the records in the order RecordWriter wrote them.
+     */
+    private static class RecordReader {
+        private final DataInputStream in;
+        private final String[] strings;
+
+        RecordReader(InputStream in, int kind) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary calendar file.");
+            }
+            int version = this.readVarint();
+            if (version > SCHEMA_VERSION) {
+                throw new IOException("Cannot read schema version " + version + ", the latest known is " +
+                        SCHEMA_VERSION + ".");
+            }
+            int fileKind = this.in.readUnsignedByte();
+            if (fileKind != kind) {
+                throw new IOException("Expected data of kind " + kind + " but found " + fileKind + ".");
+            }
+            this.strings = new String[this.readVarint()];
+            for (int i = 0; i < this.strings.length; i++) {
+                byte[] bytes = new byte[this.readVarint()];
+                this.in.readFully(bytes);
+                this.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        long readLongVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int next = this.in.readUnsignedByte();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint.");
+        }
+
+        int readVarint() throws IOException {
+            long value = this.readLongVarint();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Varint out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = this.readLongVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        UUID readUUID() throws IOException {
+            return new UUID(this.in.readLong(), this.in.readLong());
+        }
+
+        String readString() throws IOException {
+            int reference = this.readVarint();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > this.strings.length) {
+                throw new IOException("Unknown string " + reference + ".");
+            }
+            return this.strings[reference - 1];
+        }
+
+        LocalDateTime readNullableTime() throws IOException {
+            if (this.readVarint() == 0) {
+                return null;
+            }
+            long minute = this.readSignedVarint();
+            return fromEpochMinute(minute, this.readLongVarint());
+        }
+
+        List<Event> readEvents() throws IOException {
+            int count = this.readVarint();
+            List<Event> events = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                events.add(this.readEvent());
+            }
+            return events;
+        }
+
+        Event readEvent() throws IOException {
+            UUID id = this.readUUID();
+            String name = this.readString();
+            int flags = this.readVarint();
+            boolean hasStart = (flags & HAS_START) != 0;
+            long startMinute = hasStart ? this.readSignedVarint() : 0;
+            long endMinute = hasStart ? startMinute + this.readSignedVarint() : this.readSignedVarint();
+            long startNanos = 0;
+            long endNanos = 0;
+            if ((flags & SUB_MINUTE) != 0) {
+                startNanos = hasStart ? this.readLongVarint() : 0;
+                endNanos = this.readLongVarint();
+            }
+            LocalDateTime end = fromEpochMinute(endMinute, endNanos);
+            Event event = hasStart ? new Event(id, name, fromEpochMinute(startMinute, startNanos), end) :
+                    new Event(id, name, end);
+            if ((flags & HAS_DESCRIPTION) != 0) {
+                event.setDescription(this.readString());
+            }
+            if ((flags & HAS_CATEGORY) != 0) {
+                event.setCategories(this.readUUID());
+            }
+            if ((flags & HAS_RECURSIVE_ID) != 0) {
+                event.setRecursiveId(this.readUUID());
+            }
+            if ((flags & (HAS_HOURS_NEEDED | NULL_HOURS_NEEDED)) != 0) {
+                event.setHoursNeeded((flags & NULL_HOURS_NEEDED) != 0 ? null : this.readSignedVarint());
+            }
+            if ((flags & (HAS_SESSION_LENGTH | NULL_SESSION_LENGTH)) != 0) {
+                event.setSessionLength((flags & NULL_SESSION_LENGTH) != 0 ? null : this.readSignedVarint());
+            }
+            if ((flags & (HAS_START_WORKING | NULL_START_WORKING)) != 0) {
+                event.setStartWorking((flags & NULL_START_WORKING) != 0 ? null : this.readSignedVarint());
+            }
+            event.setWorkSessions(this.readEvents());
+            return event;
+        }
+
+        RecursiveEvent readRecursiveEvent() throws IOException {
+            UUID id = this.readUUID();
+            List<Event> cycle = this.readEvents();
+            int dateGetterKind = this.readVarint();
+            DateGetter dateGetter;
+            if (dateGetterKind == NO_DATE_GETTER) {
+                dateGetter = null;
+            } else if (dateGetterKind == INTERVAL_DATE_GETTER) {
+                LocalDateTime beginningOfCycles = this.readNullableTime();
+                dateGetter = new IntervalDateInput(beginningOfCycles, this.readNullableTime());
+            } else if (dateGetterKind == REPETITION_DATE_GETTER) {
+                dateGetter = new NumberOfRepetitionInput(this.readVarint());
+            } else {
+                throw new IOException("Unknown way of repeating " + dateGetterKind + ".");
+            }
+            return new RecursiveEvent(id, cycle, dateGetter);
+        }
+
+        User readUser() throws IOException {
+            UUID id = this.readUUID();
+            String name = this.readString();
+            String username = this.readString();
+            User user = new User(id, name, username, this.readString());
+            user.setEvents(this.readEvents());
+            UserPreferences preferences = user.getUserPreferences();
+            int flags = this.readVarint();
+            preferences.setProcrastinate((flags & PROCRASTINATE) != 0);
+            preferences.setMorningPerson((flags & MORNING_PERSON) != 0);
+            preferences.setCram((flags & CRAM) != 0);
+            String spacing = this.readString();
+            if (spacing != null) {
+                preferences.setSpacingSameDay(spacing);
+            }
+            for (LocalTime start : new ArrayList<>(preferences.getFreeTime().keySet())) {
+                preferences.removeFreeTime(start);
+            }
+            int freeTimes = this.readVarint();
+            for (int i = 0; i < freeTimes; i++) {
+                LocalTime start = LocalTime.ofNanoOfDay(this.readLongVarint());
+                preferences.setFreeTime(start, LocalTime.ofNanoOfDay(this.readLongVarint()));
+            }
+            return user;
+        }
+    }
+}
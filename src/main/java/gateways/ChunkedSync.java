@@ -0,0 +1,380 @@
+package gateways;
+
+import interfaces.RemoteStore;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps files in sync with a RemoteStore, transferring only the parts of them that changed.
+ * <p>
+ * A file is cut into chunks where the bytes before the cut match a pattern, so that inserting or removing bytes only
+ * changes the chunks around them, and every chunk is stored once under the SHA-256 hash of its content
+ * ("chunks/&lt;hash&gt;"). The file itself is stored as a manifest listing its chunks ("&lt;name&gt;.chunks"), which
+ * is uploaded after all of its chunks, so that the store never lists a chunk it does not have.
+ * <p>
+ * A copy of every file as it was last synced is kept in the cache directory, so that the next sync only downloads
+ * the chunks that are not in it, even if the file itself was deleted in between. Chunks are transferred in parallel,
+ * and downloaded chunks are kept in the cache until their file is put together, so an interrupted sync carries on
+ * from where it stopped. Files stored whole before, without a manifest, are still downloaded whole.
+ *
+ * @see RemoteStore
+ */
+public class ChunkedSync {
+    public static final int FORMAT_VERSION = 1;
+    public static final int MIN_CHUNK_LENGTH = 2 << 10;
+    public static final int MAX_CHUNK_LENGTH = 64 << 10;
+    // a cut once every 8 KiB on average: the 13 highest bits of the rolling hash are 0
+    private static final int AVERAGE_CHUNK_BITS = 13;
+    private static final int MAGIC = 0x43414C4D; // "CALM"
+    private static final String CHUNKS_FOLDER = "chunks/";
+    private static final String MANIFEST_SUFFIX = ".chunks";
+    private static final int HASH_LENGTH = 32;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(MAGIC);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final RemoteStore store;
+    private final File cache;
+    private final int threads;
+
+    /**
+     * @param store   where the files are synced to
+     * @param cache   the directory holding the copies of the synced files and the chunks being downloaded
+     * @param threads the number of chunks transferred at once
+     */
+    public ChunkedSync(RemoteStore store, File cache, int threads) {
+        this.store = store;
+        this.cache = cache;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * uploads the chunks of file that the store does not have, then its manifest. The file is copied first and the
+     * copy is what is hashed, uploaded and kept as the last synced copy, so that a file replaced in the meantime cannot
+     * be uploaded under the hashes of the one before it
+     *
+     * @param file the file to upload
+     * @param name the name of the file in the store
+     * @throws IOException if the file cannot be read or uploaded. The chunks uploaded so far are not uploaded again
+     */
+    public void push(File file, String name) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException("Cannot find " + file.getPath() + ".");
+        }
+        File copy = this.lastSynced(name);
+        Files.createDirectories(copy.getAbsoluteFile().getParentFile().toPath());
+        File snapshot = temporaryFile(copy);
+        try {
+            Files.copy(file.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            List<Chunk> chunks = chunk(snapshot);
+            byte[] manifest = writeManifest(chunks);
+            byte[] remoteManifest = this.store.download(name + MANIFEST_SUFFIX);
+            if (remoteManifest == null || !Arrays.equals(manifest, remoteManifest)) {
+                Set<String> uploaded = new HashSet<>();
+                if (remoteManifest != null) {
+                    for (Chunk chunk : readManifest(remoteManifest)) {
+                        uploaded.add(chunk.hash);
+                    }
+                }
+                Map<String, Chunk> missing = new LinkedHashMap<>();
+                for (Chunk chunk : chunks) {
+                    if (!uploaded.contains(chunk.hash)) {
+                        missing.putIfAbsent(chunk.hash, chunk);
+                    }
+                }
+                this.inParallel(missing.values(), chunk -> {
+                    if (!this.store.exists(CHUNKS_FOLDER + chunk.hash)) {
+                        this.store.upload(CHUNKS_FOLDER + chunk.hash, read(snapshot, chunk));
+                    }
+                });
+                this.store.upload(name + MANIFEST_SUFFIX, manifest);
+            }
+            if (!copy.getCanonicalFile().equals(file.getCanonicalFile())) {
+                replace(snapshot, copy);
+            }
+        } finally {
+            Files.deleteIfExists(snapshot.toPath());
+        }
+    }
+
+    /**
+     * downloads the chunks of a file that are not in its last synced copy, and puts the file together
+     *
+     * @param name   the name of the file in the store
+     * @param target where the file is written
+     * @return false if the store has no file by this name, in which case target is left as it is
+     * @throws IOException if the file cannot be downloaded or written. The chunks downloaded so far are kept
+     */
+    public boolean pull(String name, File target) throws IOException {
+        byte[] manifest = this.store.download(name + MANIFEST_SUFFIX);
+        if (manifest == null) {
+            byte[] whole = this.store.download(name);
+            if (whole == null) {
+                return false;
+            }
+            File temporary = temporaryFile(target);
+            Files.write(temporary.toPath(), whole);
+            replace(temporary, target);
+            this.keepCopy(target, name);
+            return true;
+        }
+
+        List<Chunk> chunks = readManifest(manifest);
+        File base = this.lastSynced(name);
+        if (!base.isFile()) {
+            base = target;
+        }
+        Map<String, Chunk> inBase = new HashMap<>();
+        if (base.isFile()) {
+            for (Chunk chunk : chunk(base)) {
+                inBase.putIfAbsent(chunk.hash, chunk);
+            }
+        }
+        Map<String, Chunk> missing = new LinkedHashMap<>();
+        for (Chunk chunk : chunks) {
+            if (!inBase.containsKey(chunk.hash) && !this.downloaded(chunk).isFile()) {
+                missing.putIfAbsent(chunk.hash, chunk);
+            }
+        }
+        this.inParallel(missing.values(), this::download);
+
+        File temporary = temporaryFile(target);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temporary))) {
+            for (Chunk chunk : chunks) {
+                Chunk local = inBase.get(chunk.hash);
+                output.write(local != null ? read(base, local) : Files.readAllBytes(this.downloaded(chunk).toPath()));
+            }
+        }
+        replace(temporary, target);
+        this.keepCopy(target, name);
+        for (Chunk chunk : chunks) {
+            Files.deleteIfExists(this.downloaded(chunk).toPath());
+        }
+        return true;
+    }
+
+    /**
+     * cuts a file into chunks
+     *
+     * @param file the file to cut
+     * @return the chunks of the file, in order
+     * @throws IOException if the file cannot be read
+     */
+    static List<Chunk> chunk(File file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1 << 16];
+        long offset = 0;
+        int length = 0;
+        long hash = 0;
+        try (InputStream input = new FileInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+                    length++;
+                    if ((length >= MIN_CHUNK_LENGTH && hash >>> (Long.SIZE - AVERAGE_CHUNK_BITS) == 0) ||
+                            length >= MAX_CHUNK_LENGTH) {
+                        digest.update(buffer, start, i + 1 - start);
+                        chunks.add(new Chunk(hex(digest.digest()), offset, length));
+                        offset += length;
+                        length = 0;
+                        hash = 0;
+                        start = i + 1;
+                    }
+                }
+                digest.update(buffer, start, read - start);
+            }
+        }
+        if (length > 0) {
+            chunks.add(new Chunk(hex(digest.digest()), offset, length));
+        }
+        return chunks;
+    }
+
+    private void download(Chunk chunk) throws IOException {
+        byte[] data = this.store.download(CHUNKS_FOLDER + chunk.hash);
+        if (data == null) {
+            throw new IOException("The store has no chunk " + chunk.hash + ".");
+        }
+        if (data.length != chunk.length || !hex(sha256().digest(data)).equals(chunk.hash)) {
+            throw new IOException("The chunk " + chunk.hash + " was damaged.");
+        }
+        File downloaded = this.downloaded(chunk);
+        Files.createDirectories(downloaded.getParentFile().toPath());
+        File temporary = temporaryFile(downloaded);
+        Files.write(temporary.toPath(), data);
+        replace(temporary, downloaded);
+    }
+
+    private File downloaded(Chunk chunk) {
+        return new File(this.cache, CHUNKS_FOLDER + chunk.hash);
+    }
+
+    /**
+     * @param name the name of a file in the store
+     * @return the copy of the file as it was last pushed or pulled, which does not exist if it never was
+     */
+    File lastSynced(String name) {
+        return new File(this.cache, name);
+    }
+
+    private void keepCopy(File file, String name) throws IOException {
+        File copy = this.lastSynced(name);
+        if (copy.getCanonicalFile().equals(file.getCanonicalFile())) {
+            return;
+        }
+        Files.createDirectories(copy.getParentFile().toPath());
+        File temporary = temporaryFile(copy);
+        Files.copy(file.toPath(), temporary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        replace(temporary, copy);
+    }
+
+    /**
+     * runs transfer on every chunk with the given number of threads, and waits for all of them
+     */
+    private void inParallel(Collection<Chunk> chunks, Transfer transfer) throws IOException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        ExecutorService transfers = Executors.newFixedThreadPool(Math.min(this.threads, chunks.size()), runnable -> {
+            Thread thread = new Thread(runnable, "chunk-transfer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                futures.add(transfers.submit(() -> {
+                    transfer.run(chunk);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException eExecution) {
+            if (eExecution.getCause() instanceof IOException) {
+                throw (IOException) eExecution.getCause();
+            }
+            throw new IOException("Cannot transfer a chunk.", eExecution.getCause());
+        } catch (InterruptedException eInterrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while transferring chunks.");
+        } finally {
+            transfers.shutdownNow();
+        }
+    }
+
+    private static byte[] read(File file, Chunk chunk) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            byte[] data = new byte[chunk.length];
+            input.seek(chunk.offset);
+            input.readFully(data);
+            return data;
+        }
+    }
+
+    private static byte[] writeManifest(List<Chunk> chunks) throws IOException {
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(manifest);
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        output.writeInt(chunks.size());
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                output.writeByte(Integer.parseInt(chunk.hash.substring(2 * i, 2 * i + 2), 16));
+            }
+            output.writeInt(chunk.length);
+        }
+        output.flush();
+        return manifest.toByteArray();
+    }
+
+    private static List<Chunk> readManifest(byte[] manifest) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(manifest));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a manifest.");
+        }
+        int version = input.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Cannot read manifest version " + version + ", the latest known is " +
+                    FORMAT_VERSION + ".");
+        }
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Damaged manifest.");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        long offset = 0;
+        byte[] hash = new byte[HASH_LENGTH];
+        for (int i = 0; i < count; i++) {
+            input.readFully(hash);
+            int length = input.readInt();
+            if (length <= 0 || length > MAX_CHUNK_LENGTH) {
+                throw new IOException("Damaged manifest.");
+            }
+            chunks.add(new Chunk(hex(hash), offset, length));
+            offset += length;
+        }
+        return chunks;
+    }
+
+    private static File temporaryFile(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        return File.createTempFile(file.getName(), ".part", directory);
+    }
+
+    private static void replace(File temporary, File file) throws IOException {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException eAlgorithm) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(eAlgorithm);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * A part of a file, named after the hash of its content.
+     */
+    static class Chunk {
+        final String hash;
+        final long offset;
+        final int length;
+
+        Chunk(String hash, long offset, int length) {
+            this.hash = hash;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private interface Transfer {
+        void run(Chunk chunk) throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+package gateways;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DownloadErrorException;
+import com.dropbox.core.v2.files.GetMetadataErrorException;
+import com.dropbox.core.v2.files.WriteMode;
+import interfaces.RemoteStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * A RemoteStore in the Dropbox repository of the application, with every name relative to its root folder.
+ */
+public class DropboxRemoteStore implements RemoteStore {
+    private final DbxClientV2 client;
+
+    /**
+     * @param accessToken the security token of the Dropbox application
+     */
+    public DropboxRemoteStore(String accessToken) {
+        this.client = new DbxClientV2(DbxRequestConfig.newBuilder("dropbox/Sebin").build(), accessToken);
+    }
+
+    @Override
+    public byte[] download(String name) throws IOException {
+        try {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            this.client.files().download("/" + name).download(data);
+            return data.toByteArray();
+        } catch (DownloadErrorException eDownload) {
+            if (eDownload.errorValue.isPath() && eDownload.errorValue.getPathValue().isNotFound()) {
+                return null;
+            }
+            throw new IOException("Dropbox raised an exception.", eDownload);
+        } catch (DbxException eDBX) {
+            throw new IOException("Dropbox raised an exception.", eDBX);
+        }
+    }
+
+    @Override
+    public void upload(String name, byte[] data) throws IOException {
+        try {
+            this.client.files().uploadBuilder("/" + name).withMode(WriteMode.OVERWRITE)
+                    .uploadAndFinish(new ByteArrayInputStream(data));
+        } catch (DbxException eDBX) {
+            throw new IOException("Dropbox raised an exception.", eDBX);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) throws IOException {
+        try {
+            this.client.files().getMetadata("/" + name);
+            return true;
+        } catch (GetMetadataErrorException eMetadata) {
+            if (eMetadata.errorValue.isPath() && eMetadata.errorValue.getPathValue().isNotFound()) {
+                return false;
+            }
+            throw new IOException("Dropbox raised an exception.", eMetadata);
+        } catch (DbxException eDBX) {
+            throw new IOException("Dropbox raised an exception.", eDBX);
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package gateways;
+
+import entities.Event;
+import entities.recursions.RecursiveEvent;
+import interfaces.EventListObserver;
+import interfaces.StorageCodec;
+import usecases.events.EventManager;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes made to the events of the current user since the data was last saved, so
+ * that a crash does not lose the session. Each change costs one record of the changed event instead of saving every
+ * event again.
+ * <p>
+ * The journal follows the EventManager of the current user as an <code>EventListObserver</code>: added and changed
+ * events are written with BinaryCodec, removed events as their IDs, and the recursions of the user are written again
+ * when the RepeatedEventManager was modified. Records go to the current segment file and are flushed to disk every
+ * SYNC_BATCH records or when sync is called. Once a segment grows past COMPACTION_THRESHOLD, a new segment is started
+ * and the latest record of every event is written to a snapshot in the background, after which the older segments
+ * are deleted. When the journal is opened the snapshot and the segments after it are read back (a record torn by a
+ * crash ends its segment), and following the EventManager of a user applies the changes of that user to it.
+ * <p>
+ * The journal only holds what is not saved yet: once the data of a user was saved and uploaded, clear drops the
+ * changes of that user.
+ *
+ * @see BinaryCodec
+ * @see controllers.MainController
+ */
+public class EventJournal implements EventListObserver {
+    private static final Logger logger = Logger.getLogger(EventJournal.class.getPackage().getName());
+
+    public static final int SYNC_BATCH = 32; // records written before they are flushed to disk
+    public static final long COMPACTION_THRESHOLD = 1 << 20; // size of a segment in bytes before compacting
+
+    private static final int SNAPSHOT_MAGIC = 0x43414C4A; // "CALJ"
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // kinds of records
+    private static final int EVENT_ADDED = 1;
+    private static final int EVENT_CHANGED = 2;
+    private static final int EVENT_REMOVED = 3;
+    private static final int RECURSIONS = 4;
+
+    private final File directory;
+    private final StorageCodec codec = new BinaryCodec();
+    // latest record of every event (key: user and event ID) and of the recursions of every user (key: user ID)
+    private final Map<List<UUID>, byte[]> latest = new LinkedHashMap<>();
+    // sequence number of the latest record of every key, 0 for records read back when the journal was opened
+    private final Map<List<UUID>, Long> latestSequence = new HashMap<>();
+    private long sequence;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> compaction;
+
+    private long segment;
+    private FileOutputStream segmentFile;
+    private DataOutputStream segmentOutput;
+    private long segmentSize;
+    private int pending;
+
+    private UUID userID;
+    private EventManager eventManager;
+    private int recursionModificationCount;
+
+    /**
+     * opens the journal kept in directory, reading back the changes it holds, and starts a new segment
+     *
+     * @param directory the directory of the journal, created if it does not exist
+     */
+    public EventJournal(File directory) {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.log(Level.SEVERE, "Cannot create the journal directory " + directory + ".");
+        }
+        long first = this.readSnapshot();
+        long last = first - 1;
+        for (long number : this.segmentNumbers()) {
+            if (number >= first) {
+                this.readRecords(this.segmentPath(number), false);
+            }
+            last = Math.max(last, number);
+        }
+        this.startSegment(last + 1);
+    }
+
+    /**
+     * applies the changes of userID in the journal to eventManager, then records the changes made to eventManager
+     * from now on as those of userID. The previous EventManager is not followed anymore
+     *
+     * @param userID       the ID of the user whose events are in eventManager
+     * @param eventManager the EventManager of the current user
+     */
+    public synchronized void follow(UUID userID, EventManager eventManager) {
+        if (this.eventManager != null) {
+            this.eventManager.removeObserver(this);
+        }
+        this.sync();
+        for (byte[] record : new ArrayList<>(this.latest.values())) {
+            try {
+                this.apply(record, userID, eventManager);
+            } catch (IOException eIO) {
+                logger.log(Level.SEVERE, "Cannot apply a journal record, skipping it.", eIO);
+            }
+        }
+        this.userID = userID;
+        this.eventManager = eventManager;
+        this.recursionModificationCount = eventManager.getRepeatedEventManager().getModificationCount();
+        eventManager.addObserver(this);
+    }
+
+    /**
+     * records the event that was added, changed or is about to be removed. Changes to events that are not in the
+     * EventManager (such as repeated events) are left to the record of the recursions
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public synchronized void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null || eventManager != this.eventManager || !eventManager.containsID(changed.getID())) {
+            return;
+        }
+        try {
+            if (addRemoveChange.equalsIgnoreCase("remove")) {
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                DataOutputStream ids = new DataOutputStream(payload);
+                this.writeUUID(ids, this.userID);
+                this.writeUUID(ids, changed.getID());
+                this.append(List.of(this.userID, changed.getID()), EVENT_REMOVED, payload.toByteArray());
+            } else if (addRemoveChange.equalsIgnoreCase("add") || addRemoveChange.equalsIgnoreCase("change")) {
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                this.codec.writeEvents(Map.of(this.userID, List.of(changed)), payload);
+                this.append(List.of(this.userID, changed.getID()),
+                        addRemoveChange.equalsIgnoreCase("add") ? EVENT_ADDED : EVENT_CHANGED, payload.toByteArray());
+            }
+            this.recordRecursions();
+        } catch (IOException eIO) {
+            logger.log(Level.SEVERE, "Cannot write to the journal.", eIO);
+        }
+    }
+
+    /**
+     * records the recursions if they were modified, flushes every record written so far to disk and starts a
+     * compaction if the segment is too large. To be called after every action of the user
+     */
+    public synchronized void sync() {
+        try {
+            this.recordRecursions();
+            if (this.segmentOutput != null && this.pending > 0) {
+                this.segmentOutput.flush();
+                this.segmentFile.getFD().sync();
+                this.pending = 0;
+            }
+            if (this.segmentSize > COMPACTION_THRESHOLD && (this.compaction == null || this.compaction.isDone())) {
+                this.compact();
+            }
+        } catch (IOException eIO) {
+            logger.log(Level.SEVERE, "Cannot write to the journal.", eIO);
+        }
+    }
+
+    /**
+     * drops the changes of a user once their data was saved elsewhere. The changes of other users are kept until
+     * they log in again, and the files are compacted without the dropped changes
+     *
+     * @param userID the ID of the user whose data was saved
+     */
+    public void clear(UUID userID) {
+        this.clear(userID, Long.MAX_VALUE);
+    }
+
+    /**
+     * drops the changes of a user that were saved elsewhere, keeping those made after the data was saved
+     *
+     * @param userID    the ID of the user whose data was saved
+     * @param savedUpTo the sequence number of the journal when the saved data was taken
+     * @see #getSequence
+     */
+    public synchronized void clear(UUID userID, long savedUpTo) {
+        this.sync();
+        this.awaitCompaction();
+        this.latest.keySet().removeIf(key -> key.get(0).equals(userID) && this.latestSequence.get(key) <= savedUpTo);
+        this.latestSequence.keySet().retainAll(this.latest.keySet());
+        if (!this.latest.isEmpty()) {
+            this.compact();
+            return;
+        }
+        this.closeSegment();
+        for (long number : this.segmentNumbers()) {
+            this.delete(this.segmentPath(number));
+        }
+        this.delete(new File(this.directory, SNAPSHOT));
+        this.startSegment(this.segment + 1);
+    }
+
+    /**
+     * @param userID the ID of a user
+     * @return true if the journal holds a change to the events or recursions of the user that was not saved
+     */
+    public synchronized boolean hasChanges(UUID userID) {
+        for (List<UUID> key : this.latest.keySet()) {
+            if (key.get(0).equals(userID)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of events and recursion maps the journal holds a change of
+     */
+    public synchronized int size() {
+        return this.latest.size();
+    }
+
+    /**
+     * @return the sequence number of the latest record written since the journal was opened, to be given to clear
+     * once the data taken now is saved
+     */
+    public synchronized long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * starts a new segment and writes the latest record of everything before it to a new snapshot in the
+     * background, then deletes the segments before it
+     */
+    synchronized void compact() {
+        List<byte[]> records = new ArrayList<>(this.latest.values());
+        this.closeSegment();
+        long first = this.segment + 1;
+        this.startSegment(first);
+        this.compaction = this.compactor.submit(() -> {
+            File temporary = new File(this.directory, SNAPSHOT + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temporary)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file));
+                output.writeInt(SNAPSHOT_MAGIC);
+                output.writeLong(first);
+                for (byte[] record : records) {
+                    output.write(record);
+                }
+                output.flush();
+                file.getFD().sync();
+            } catch (IOException eIO) {
+                logger.log(Level.SEVERE, "Cannot write the journal snapshot.", eIO);
+                return;
+            }
+            try {
+                Files.move(temporary.toPath(), new File(this.directory, SNAPSHOT).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException eIO) {
+                logger.log(Level.SEVERE, "Cannot replace the journal snapshot.", eIO);
+                return;
+            }
+            for (long number : this.segmentNumbers()) {
+                if (number < first) {
+                    this.delete(this.segmentPath(number));
+                }
+            }
+        });
+    }
+
+    /**
+     * waits for the compaction in the background, if any, to be done
+     */
+    void awaitCompaction() {
+        if (this.compaction != null) {
+            try {
+                this.compaction.get();
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "The journal compaction failed.", e);
+            }
+        }
+    }
+
+    /**
+     * writes the recursions of the user again if the RepeatedEventManager was modified since they were last written
+     */
+    private void recordRecursions() throws IOException {
+        if (this.eventManager == null ||
+                this.recursionModificationCount == this.eventManager.getRepeatedEventManager().getModificationCount()) {
+            return;
+        }
+        this.recursionModificationCount = this.eventManager.getRepeatedEventManager().getModificationCount();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        this.codec.writeRecursiveEvents(Map.of(this.userID,
+                this.eventManager.getRepeatedEventManager().getRecursiveEventMap()), payload);
+        this.append(List.of(this.userID), RECURSIONS, payload.toByteArray());
+    }
+
+    private void append(List<UUID> key, int kind, byte[] payload) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(record);
+        output.writeByte(kind);
+        output.writeInt(payload.length);
+        output.write(payload);
+        CRC32 crc = new CRC32();
+        crc.update(kind);
+        crc.update(payload);
+        output.writeInt((int) crc.getValue());
+        byte[] bytes = record.toByteArray();
+        this.latest.remove(key);
+        this.latest.put(key, bytes);
+        this.latestSequence.put(key, ++this.sequence);
+        if (this.segmentOutput != null) {
+            this.segmentOutput.write(bytes);
+            this.segmentSize += bytes.length;
+            if (++this.pending >= SYNC_BATCH) {
+                this.sync();
+            }
+        }
+    }
+
+    /**
+     * applies one record to eventManager if it is a record of userID
+     */
+    private void apply(byte[] record, UUID userID, EventManager eventManager) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        int kind = input.readUnsignedByte();
+        byte[] payload = new byte[input.readInt()];
+        input.readFully(payload);
+        if (kind == EVENT_ADDED || kind == EVENT_CHANGED) {
+            for (Event event : this.codec.readEvents(new ByteArrayInputStream(payload))
+                    .getOrDefault(userID, List.of())) {
+                eventManager.addEvent(event);
+            }
+        } else if (kind == EVENT_REMOVED) {
+            DataInputStream ids = new DataInputStream(new ByteArrayInputStream(payload));
+            UUID user = new UUID(ids.readLong(), ids.readLong());
+            UUID eventID = new UUID(ids.readLong(), ids.readLong());
+            if (user.equals(userID) && eventManager.containsID(eventID)) {
+                eventManager.remove(eventID);
+            }
+        } else if (kind == RECURSIONS) {
+            for (RecursiveEvent recursiveEvent : this.codec.readRecursiveEvents(new ByteArrayInputStream(payload))
+                    .getOrDefault(userID, Map.of()).values()) {
+                eventManager.getRepeatedEventManager().addRecursion(recursiveEvent);
+            }
+        }
+    }
+
+    /**
+     * reads the snapshot, if any, into the latest records
+     *
+     * @return the number of the first segment that is not in the snapshot
+     */
+    private long readSnapshot() {
+        File snapshot = new File(this.directory, SNAPSHOT);
+        if (!snapshot.exists()) {
+            return 0;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a journal snapshot.");
+            }
+            long first = input.readLong();
+            this.readRecords(input, true);
+            return first;
+        } catch (IOException eIO) {
+            logger.log(Level.SEVERE, "Cannot read the journal snapshot, reading the segments only.", eIO);
+            this.latest.clear();
+            this.latestSequence.clear();
+            return 0;
+        }
+    }
+
+    private void readRecords(File segment, boolean mustBeWhole) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            this.readRecords(input, mustBeWhole);
+        } catch (IOException eIO) {
+            logger.log(Level.WARNING, "Journal segment " + segment + " ends with a torn record, ignoring it.", eIO);
+        }
+    }
+
+    /**
+     * reads records until the end of input into the latest records
+     *
+     * @throws IOException if a record is torn or damaged, the records before it are kept
+     */
+    private void readRecords(DataInputStream input, boolean mustBeWhole) throws IOException {
+        int kind;
+        while ((kind = input.read()) != -1) {
+            int length = input.readInt();
+            if (length < 0) {
+                throw new IOException("Damaged journal record.");
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(kind);
+            crc.update(payload);
+            if (input.readInt() != (int) crc.getValue()) {
+                throw new IOException("Damaged journal record.");
+            }
+            List<UUID> key = this.keyOf(kind, payload);
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(record);
+            output.writeByte(kind);
+            output.writeInt(length);
+            output.write(payload);
+            output.writeInt((int) crc.getValue());
+            this.latest.remove(key);
+            this.latest.put(key, record.toByteArray());
+            this.latestSequence.put(key, 0L);
+        }
+    }
+
+    private List<UUID> keyOf(int kind, byte[] payload) throws IOException {
+        if (kind == EVENT_ADDED || kind == EVENT_CHANGED) {
+            Map.Entry<UUID, List<Event>> entry = this.codec.readEvents(new ByteArrayInputStream(payload)).entrySet()
+                    .iterator().next();
+            return List.of(entry.getKey(), entry.getValue().get(0).getID());
+        } else if (kind == EVENT_REMOVED) {
+            DataInputStream ids = new DataInputStream(new ByteArrayInputStream(payload));
+            return List.of(new UUID(ids.readLong(), ids.readLong()), new UUID(ids.readLong(), ids.readLong()));
+        } else if (kind == RECURSIONS) {
+            return List.of(this.codec.readRecursiveEvents(new ByteArrayInputStream(payload)).keySet().iterator()
+                    .next());
+        }
+        throw new IOException("Unknown journal record " + kind + ".");
+    }
+
+    private void startSegment(long number) {
+        this.segment = number;
+        this.segmentSize = 0;
+        this.pending = 0;
+        try {
+            this.segmentFile = new FileOutputStream(this.segmentPath(number), true);
+            this.segmentOutput = new DataOutputStream(new BufferedOutputStream(this.segmentFile));
+        } catch (IOException eIO) {
+            logger.log(Level.SEVERE, "Cannot open the journal, changes will only be saved on exit.", eIO);
+            this.segmentFile = null;
+            this.segmentOutput = null;
+        }
+    }
+
+    private void closeSegment() {
+        if (this.segmentOutput != null) {
+            try {
+                this.segmentOutput.flush();
+                this.segmentFile.getFD().sync();
+                this.segmentOutput.close();
+            } catch (IOException eIO) {
+                logger.log(Level.SEVERE, "Cannot close the journal segment.", eIO);
+            }
+        }
+    }
+
+    private File segmentPath(long number) {
+        return new File(this.directory, SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return the numbers of the segments in the directory, in order
+     */
+    private List<Long> segmentNumbers() {
+        List<Long> numbers = new ArrayList<>();
+        String[] names = this.directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // not a segment of this journal
+                    }
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private void writeUUID(DataOutputStream output, UUID id) throws IOException {
+        output.writeLong(id.getMostSignificantBits());
+        output.writeLong(id.getLeastSignificantBits());
+    }
+
+    private void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.log(Level.WARNING, "Cannot delete " + file + ".");
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+import interfaces.StorageCodec;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * An embedded store of the saved data in a directory of this computer, read in small pieces instead of whole files:
+ * the events of one user in a window of time are read without reading the others, however large the saved data is.
+ * <p>
+ * The directory holds one table per kind of data, all written with BinaryCodec:
+ * <ul>
+ *     <li>users.dat: every user, read whole as there is one small record per account,</li>
+ *     <li>events/&lt;user ID&gt;.evt: the events of a user with their work sessions, starting with an index of every
+ *     event by the time it spans with its work sessions, sorted by start and then end, so that the events of a window
+ *     are found by binary search,</li>
+ *     <li>recursions/&lt;user ID&gt;.rec: the recursions of a user, which are rules rather than lists of events.</li>
+ * </ul>
+ * Writing the events of a user only needs the events that changed: the others are copied over without being read.
+ * Every table is written next to the old one and moved over it, so it is never seen half written.
+ * <p>
+ * The program does not save to this store: IOSerializable and PersistenceService save to the synced files, and an
+ * EventManager holds every event of its user, as the observers of its changes (the journal, the saves and the
+ * indexes) have to see every event. The store is for tools that read a window of a large saved calendar, such as
+ * exports and reports, without loading it whole.
+ *
+ * @see IOSerializable
+ */
+public class EventStore {
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x43414C45; // "CALE"
+    private static final int HEADER_LENGTH = 4 + 1 + 4 + 8;
+    private static final int ENTRY_LENGTH = 8 + 8 + 8 + 8 + 8 + 4;
+    private static final String USERS_TABLE = "users.dat";
+    private static final String EVENTS_TABLE = "events";
+    private static final String RECURSIONS_TABLE = "recursions";
+
+    private final File directory;
+    private final StorageCodec codec = new BinaryCodec();
+
+    /**
+     * @param directory where the tables are, created when the first table is written
+     */
+    public EventStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return every saved user, none if there are none
+     * @throws IOException if the table cannot be read
+     */
+    public List<User> readUsers() throws IOException {
+        File table = new File(this.directory, USERS_TABLE);
+        if (!table.isFile()) {
+            return new ArrayList<>();
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(table))) {
+            return this.codec.readUsers(input);
+        }
+    }
+
+    /**
+     * @param users every user, replacing those saved
+     * @throws IOException if the table cannot be written
+     */
+    public void writeUsers(List<User> users) throws IOException {
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        this.codec.writeUsers(users, table);
+        this.replace(new File(this.directory, USERS_TABLE), table.toByteArray());
+    }
+
+    /**
+     * @param userID the ID of a user
+     * @return the saved recursions of the user by their ID, none if there are none
+     * @throws IOException if the table cannot be read
+     */
+    public Map<UUID, RecursiveEvent> readRecursiveEvents(UUID userID) throws IOException {
+        File table = this.recursionsTable(userID);
+        if (!table.isFile()) {
+            return new HashMap<>();
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(table))) {
+            return this.codec.readRecursiveEvents(input).getOrDefault(userID, new HashMap<>());
+        }
+    }
+
+    /**
+     * @param userID          the ID of a user
+     * @param recursiveEvents every recursion of the user by its ID, replacing those saved
+     * @throws IOException if the table cannot be written
+     */
+    public void writeRecursiveEvents(UUID userID, Map<UUID, RecursiveEvent> recursiveEvents) throws IOException {
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        this.codec.writeRecursiveEvents(Map.of(userID, recursiveEvents), table);
+        this.replace(this.recursionsTable(userID), table.toByteArray());
+    }
+
+    /**
+     * reads the saved events of a user that occupy some time in [from, to), counting the time of their work sessions,
+     * looking up only the part of the index around the window. Events ending exactly at <code>from</code> may be
+     * returned as well
+     *
+     * @param userID the ID of a user
+     * @param from   the start of the window (inclusive)
+     * @param to     the end of the window (exclusive)
+     * @return the saved events in the window, in order of start time
+     * @throws IOException if the table cannot be read
+     */
+    public List<Event> readEventsBetween(UUID userID, LocalDateTime from, LocalDateTime to) throws IOException {
+        File table = this.eventsTable(userID);
+        List<Event> events = new ArrayList<>();
+        if (!table.isFile() || !from.isBefore(to)) {
+            return events;
+        }
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC) + (to.getNano() > 0 ? 1 : 0);
+        try (RandomAccessFile input = new RandomAccessFile(table, "r")) {
+            int count = readHeader(input);
+            long longestSpan = input.readLong();
+            long recordsStart = HEADER_LENGTH + (long) count * ENTRY_LENGTH;
+            // the first entry that can reach the window starts at most longestSpan before it
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                input.seek(HEADER_LENGTH + (long) middle * ENTRY_LENGTH);
+                if (input.readLong() < fromSecond - longestSpan) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            List<long[]> records = new ArrayList<>();
+            input.seek(HEADER_LENGTH + (long) low * ENTRY_LENGTH);
+            for (int i = low; i < count; i++) {
+                Entry entry = readEntry(input);
+                if (entry.spanStart >= toSecond) {
+                    break;
+                }
+                if (entry.spanEnd >= fromSecond) {
+                    records.add(new long[]{entry.offset, entry.length});
+                }
+            }
+            for (long[] record : records) {
+                byte[] data = new byte[(int) record[1]];
+                input.seek(recordsStart + record[0]);
+                input.readFully(data);
+                events.addAll(this.codec.readEvents(new ByteArrayInputStream(data)).get(userID));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @param userID the ID of a user
+     * @return every saved event of the user, in order of start time
+     * @throws IOException if the table cannot be read
+     */
+    public List<Event> readEvents(UUID userID) throws IOException {
+        return this.readEventsBetween(userID, LocalDateTime.MIN.plusYears(1), LocalDateTime.MAX.minusYears(1));
+    }
+
+    /**
+     * saves the changes made to the events of a user, copying the other saved events over as they are
+     *
+     * @param userID  the ID of a user
+     * @param changed the events of the user that were added or changed
+     * @param removed the IDs of the events of the user that were removed
+     * @throws IOException if the table cannot be read or written
+     */
+    public void writeEvents(UUID userID, Collection<Event> changed, Collection<UUID> removed) throws IOException {
+        File table = this.eventsTable(userID);
+        Set<UUID> replaced = new HashSet<>(removed);
+        for (Event event : changed) {
+            replaced.add(event.getID());
+        }
+        List<Entry> entries = new ArrayList<>();
+        if (table.isFile()) {
+            try (RandomAccessFile input = new RandomAccessFile(table, "r")) {
+                int count = readHeader(input);
+                input.readLong();
+                for (int i = 0; i < count; i++) {
+                    Entry entry = readEntry(input);
+                    if (!replaced.contains(entry.id)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        Map<UUID, byte[]> encoded = new HashMap<>();
+        for (Event event : changed) {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            this.codec.writeEvents(Map.of(userID, List.of(event)), record);
+            encoded.put(event.getID(), record.toByteArray());
+            long[] span = span(event);
+            entries.add(new Entry(span[0], span[1], event.getID(), -1, record.size()));
+        }
+        entries.sort(Comparator.<Entry>comparingLong(entry -> entry.spanStart)
+                .thenComparingLong(entry -> entry.spanEnd));
+
+        Files.createDirectories(table.getParentFile().toPath());
+        File temporary = File.createTempFile(table.getName(), ".part", table.getParentFile());
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+             RandomAccessFile old = table.isFile() ? new RandomAccessFile(table, "r") : null) {
+            long oldRecordsStart = old == null ? 0 : HEADER_LENGTH + (long) readHeader(old) * ENTRY_LENGTH;
+            long longestSpan = 0;
+            for (Entry entry : entries) {
+                longestSpan = Math.max(longestSpan, entry.spanEnd - entry.spanStart);
+            }
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(entries.size());
+            output.writeLong(longestSpan);
+            long offset = 0;
+            for (Entry entry : entries) {
+                output.writeLong(entry.spanStart);
+                output.writeLong(entry.spanEnd);
+                output.writeLong(entry.id.getMostSignificantBits());
+                output.writeLong(entry.id.getLeastSignificantBits());
+                output.writeLong(offset);
+                output.writeInt(entry.length);
+                offset += entry.length;
+            }
+            for (Entry entry : entries) {
+                byte[] record = encoded.get(entry.id);
+                if (record == null) {
+                    record = new byte[entry.length];
+                    old.seek(oldRecordsStart + entry.offset);
+                    old.readFully(record);
+                }
+                output.write(record);
+            }
+        }
+        Files.move(temporary.toPath(), table.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File eventsTable(UUID userID) {
+        return new File(new File(this.directory, EVENTS_TABLE), userID + ".evt");
+    }
+
+    private File recursionsTable(UUID userID) {
+        return new File(new File(this.directory, RECURSIONS_TABLE), userID + ".rec");
+    }
+
+    private void replace(File table, byte[] data) throws IOException {
+        Files.createDirectories(table.getAbsoluteFile().getParentFile().toPath());
+        File temporary = File.createTempFile(table.getName(), ".part", table.getAbsoluteFile().getParentFile());
+        Files.write(temporary.toPath(), data);
+        Files.move(temporary.toPath(), table.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the first and last second of the time taken by the event and its work sessions
+     */
+    private static long[] span(Event event) {
+        LocalDateTime start = event.hasStart() ? event.getStartTime() : event.getEndTime();
+        LocalDateTime end = event.getEndTime();
+        for (Event session : event.getWorkSessions()) {
+            if (session.getStartTime().isBefore(start)) {
+                start = session.getStartTime();
+            }
+            if (session.getEndTime().isAfter(end)) {
+                end = session.getEndTime();
+            }
+        }
+        return new long[]{start.toEpochSecond(ZoneOffset.UTC),
+                end.toEpochSecond(ZoneOffset.UTC) + (end.getNano() > 0 ? 1 : 0)};
+    }
+
+    private static int readHeader(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not an events table.");
+        }
+        int version = input.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Cannot read events table version " + version + ", the latest known is " +
+                    FORMAT_VERSION + ".");
+        }
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Damaged events table.");
+        }
+        return count;
+    }
+
+    private static Entry readEntry(DataInput input) throws IOException {
+        long spanStart = input.readLong();
+        long spanEnd = input.readLong();
+        UUID id = new UUID(input.readLong(), input.readLong());
+        return new Entry(spanStart, spanEnd, id, input.readLong(), input.readInt());
+    }
+
+    /**
+     * The index entry of a saved event: the seconds it spans, and where its record is after the index.
+     */
+    private static class Entry {
+        private final long spanStart;
+        private final long spanEnd;
+        private final UUID id;
+        private final long offset;
+        private final int length;
+
+        Entry(long spanStart, long spanEnd, UUID id, long offset, int length) {
+            this.spanStart = spanStart;
+            this.spanEnd = spanEnd;
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
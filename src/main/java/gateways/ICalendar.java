@@ -1,6 +1,5 @@
 package gateways;
 
-import usecases.EventCalendarCollaborator;
 import usecases.calendar.*;
 import usecases.events.EventManager;
 
@@ -33,9 +32,7 @@ public class ICalendar {
      */
     public ICalendar(EventManager eventManager) {
         this.eventManager = eventManager;
-        this.calendarManager = new CalendarManager();
-        EventCalendarCollaborator collaborator = new EventCalendarCollaborator(this.eventManager, this.calendarManager);
-        collaborator.addAllEvents();
+        this.calendarManager = eventManager.getCalendarManager();
     }
 
     /**
@@ -1,16 +1,12 @@
 package gateways;
 
 import java.io.*;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-
-import com.dropbox.core.DbxException;
-import com.dropbox.core.DbxRequestConfig;
-import com.dropbox.core.v2.DbxClientV2;
-import com.dropbox.core.v2.files.FileMetadata;
-import com.dropbox.core.v2.files.WriteMode;
-import com.dropbox.core.v2.users.FullAccount;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
 import java.util.logging.*;
 import java.util.*;
 
@@ -18,12 +14,23 @@ import entities.Event;
 import entities.User;
 import entities.recursions.NumberOfRepetitionInput;
 import entities.recursions.RecursiveEvent;
+import interfaces.RemoteStore;
+import interfaces.StorageCodec;
 
 /**
  * This class will allow (de)serialization of files.
  * It reads from dropbox and saves the data in real time.
  * Debugging must be done by Sebin since all data is serialized in his personal repository that no one can access.
  * The entities being imported are not for violating clean architecture; rather they only exist for type casting.
+ * The files keep their .ser names but are written with BinaryCodec; files saved before with Java serialization are
+ * still read and are converted the next time they are saved. Events, recursive events and users are saved as one
+ * shard per user (see UserShards), so that logging in only reads the data of the user who logs in and saving only
+ * rewrites the shards of the users who changed. The events of a user are partitioned by month (see MonthPartitions):
+ * a save of some months copies the partitions of the other months over as they are, and the partitions of months
+ * older than the archive horizon are kept compressed.
+ * The files are synced with Dropbox, or another RemoteStore, by ChunkedSync, which only transfers what changed.
+ * The program can also open from the files as they were last synced and merge the changes made elsewhere once they
+ * are downloaded, see reconcileWithRemote.
  *
  * @author Sebin Im
  */
@@ -41,62 +48,69 @@ public class IOSerializable {
     // A security token needed to access the Dropbox application
     private static final String ACCESS_TOKEN = "EfBUX9G7zxkAAAAAAAAAAaXr-kGtiOL1cwBhwIe7BcI0hvt-uH5LBsEh4FXJ31Ry";
 
-    // A public Dropbox link where the serialized files are stored
-    private static final String eventsURL = "https://www.dropbox.com/s/ay2sdwru6onh8wc/events.ser?dl=1";
-    private static final String usersURL = "https://www.dropbox.com/s/co8t7aykti8smx0/users.ser?dl=1";
+    // Where the files are synced, and how many chunks of them are transferred at once
+    private static final String SYNC_CACHE_DIRECTORY = "sync_cache";
+    private static final int SYNC_THREADS = 4;
+    private static final String DOWNLOADED_SUFFIX = ".download";
 
-    private static final String recursiveEventsURL = "https://www.dropbox.com/s/zcpnpjh4ve6k1mt/recursive_events.ser?dl=1";
+    // How long after a month its events are kept compressed
+    public static final Period DEFAULT_ARCHIVE_AFTER = Period.ofMonths(6);
+
+    // The format the files are saved in, and the one they were saved in before it
+    private final StorageCodec codec = new BinaryCodec();
+    private final StorageCodec legacyCodec = new JavaSerializationCodec();
+    private final ChunkedSync sync;
+    private final File directory;
+    private Period archiveAfter = DEFAULT_ARCHIVE_AFTER;
 
     /**
-     * Initialize an instance of IOSerializable.
+     * Initialize an instance of IOSerializable, synced with the Dropbox repository.
      *
      * @param intro boolean value of the process being in introduction or conclusion
      */
     public IOSerializable(Boolean intro, Boolean hasLocalFile) {
+        this(intro, hasLocalFile, new DropboxRemoteStore(ACCESS_TOKEN), new File("."));
+    }
+
+    /**
+     * Initialize an instance of IOSerializable, synced with remoteStore.
+     *
+     * @param intro       boolean value of the process being in introduction or conclusion
+     * @param remoteStore where the files are synced to
+     * @param directory   the directory holding the files
+     */
+    public IOSerializable(Boolean intro, Boolean hasLocalFile, RemoteStore remoteStore, File directory) {
+        this.directory = directory;
+        this.sync = new ChunkedSync(remoteStore, this.file(SYNC_CACHE_DIRECTORY), SYNC_THREADS);
         if (!hasLocalFile) {
             readFromDropbox(intro);
         }
     }
 
     /**
-     * Download from public Dropbox repository these two files, and save them in the directory temporarily.
+     * Set how long after a month the events of that month are compressed, from the next time they are saved.
+     *
+     * @param archiveAfter the archive horizon
+     */
+    public void setArchiveAfter(Period archiveAfter) {
+        this.archiveAfter = archiveAfter;
+    }
+
+    /**
+     * Download from the Dropbox repository the three files, and save them in the directory temporarily.
+     * Only the parts of the files that changed since they were last synced are downloaded.
      *
      * @param intro boolean value of the process being in introduction or conclusion
      */
     public void readFromDropbox(Boolean intro) {
-        try {
-            URL eventsDownload = new URL(eventsURL);
-            URL usersDownload = new URL(usersURL);
-
-            URL recursiveEventsDownload = new URL(recursiveEventsURL);
-            ReadableByteChannel eventsReadableByteChannel = Channels.newChannel(eventsDownload.openStream());
-            ReadableByteChannel usersReadableByteChannel = Channels.newChannel(usersDownload.openStream());
-
-            ReadableByteChannel recursiveEventsReadableByteChannel = Channels.newChannel(recursiveEventsDownload.openStream());
-
-            ArrayList<FileOutputStream> arrayList = introOrEnd(intro);
-            FileOutputStream eventsFileOutputStream = arrayList.get(0);
-            FileOutputStream usersFileOutputStream = arrayList.get(1);
-
-            FileOutputStream recursiveEventsFileOutputStream = arrayList.get(2);
-
-            eventsFileOutputStream.getChannel().transferFrom(eventsReadableByteChannel, 0, 1 << 24);
-            usersFileOutputStream.getChannel().transferFrom(usersReadableByteChannel, 0, 1 << 24);
-
-            recursiveEventsFileOutputStream.getChannel().transferFrom(recursiveEventsReadableByteChannel, 0, 1 << 24);
-
-            eventsFileOutputStream.close();
-            usersFileOutputStream.close();
-
-            recursiveEventsFileOutputStream.close();
-
-            eventsReadableByteChannel.close();
-            usersReadableByteChannel.close();
-
-            recursiveEventsReadableByteChannel.close();
-
-        } catch (IOException eIO) {
-            eIO.printStackTrace();
+        List<String> paths = localPaths(intro);
+        List<String> names = List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH);
+        for (int i = 0; i < names.size(); i++) {
+            try {
+                sync.pull(names.get(i), this.file(paths.get(i)));
+            } catch (IOException eIO) {
+                logger.log(Level.SEVERE, "Cannot download " + names.get(i) + ".", eIO);
+            }
         }
     }
 
@@ -104,71 +118,90 @@ public class IOSerializable {
      * A helper method that checks if this file retrieval process is for the beginning or for the end of the program.
      *
      * @param intro boolean value of the process being in introduction or conclusion
-     * @return A stream of FileOutput that corresponds to which filename it should have
+     * @return the paths of the events, users and recursive events files that correspond to which filename it should
+     * have
      */
-    public ArrayList<FileOutputStream> introOrEnd(Boolean intro) {
-        try {
-            if (intro) {
-                return new ArrayList<>(Arrays.asList(new FileOutputStream(EVENTS_FILEPATH),
-                        new FileOutputStream(USERS_FILEPATH), new FileOutputStream(RECURSIVE_EVENTS_FILEPATH)));
-            } else {
-                return new ArrayList<>(Arrays.asList(new FileOutputStream("events1.ser"),
-                        new FileOutputStream("users1.ser"), new FileOutputStream("recursive_events1.ser")));
-            }
-        } catch (IOException eIO) {
-            eIO.printStackTrace();
+    private List<String> localPaths(Boolean intro) {
+        if (intro) {
+            return List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH);
+        } else {
+            return List.of("events1.ser", "users1.ser", "recursive_events1.ser");
         }
-        return null;
     }
 
     /**
      * A method that saves to the dropbox repository.
-     * It first creates a client of Sebin Im, which uses the access token to verify itself.
-     * Then creates an instance of builder that uploads the files to the repository.
+     * Only the parts of the files that the repository does not have yet are uploaded. The files are not written
+     * or merged while they are uploaded.
+     *
+     * @return true if every file was uploaded
      */
-    public void saveToDropbox() {
-        // Create Dropbox Client
-        DbxRequestConfig config = DbxRequestConfig.newBuilder("dropbox/Sebin").build();
-        DbxClientV2 client = new DbxClientV2(config, ACCESS_TOKEN);
-
-        // Check current account info is "Sebin Im"
-        FullAccount account;
+    public synchronized boolean saveToDropbox() {
         try {
-            account = client.users().getCurrentAccount();
-            assert account.getName().getDisplayName().equalsIgnoreCase("Sebin Im");
-        } catch (DbxException eDBX) {
-            logger.log(Level.SEVERE, "Dropbox raised an exception.", eDBX);
-        }
-
-        // Delete files in the directory to avoid file duplication error and upload serializable files to Dropbox
-        try {
-//          Commenting out delete for now, since these lines are valuable.
-//            DeleteResult delEvents1 = client.files().deleteV2("/" + EVENTS_FILEPATH);
-//            DeleteResult delUsers1 = client.files().deleteV2("/" + USERS_FILEPATH);
-            InputStream eventsInputStream = new FileInputStream(EVENTS_FILEPATH);
-            InputStream usersInputStream = new FileInputStream(USERS_FILEPATH);
-
-            InputStream recursiveEventsInputStream = new FileInputStream(RECURSIVE_EVENTS_FILEPATH);
-
-            FileMetadata eventsMetadata = client.files().uploadBuilder("/" + EVENTS_FILEPATH).
-                    withMode(WriteMode.OVERWRITE).uploadAndFinish(eventsInputStream);
-            FileMetadata usersMetadata = client.files().uploadBuilder("/" + USERS_FILEPATH).
-                    withMode(WriteMode.OVERWRITE).uploadAndFinish(usersInputStream);
-
-            FileMetadata recursiveEventsMetadata = client.files().uploadBuilder("/" + RECURSIVE_EVENTS_FILEPATH).
-                    withMode(WriteMode.OVERWRITE).uploadAndFinish(recursiveEventsInputStream);
-
-            eventsInputStream.close();
-            usersInputStream.close();
-
-            recursiveEventsInputStream.close();
-
+            for (String path : List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH)) {
+                sync.push(this.file(path), path);
+            }
+            return true;
         } catch (FileNotFoundException eFNF) {
             logger.log(Level.SEVERE, "Cannot find file.", eFNF);
         } catch (IOException eIO) {
-            logger.log(Level.SEVERE, "Cannot perform serialization.", eIO);
-        } catch (DbxException eDBX) {
-            logger.log(Level.SEVERE, "Dropbox raised an exception.", eDBX);
+            logger.log(Level.SEVERE, "Cannot upload to Dropbox.", eIO);
+        }
+        return false;
+    }
+
+    /**
+     * Copy the files as they were last synced with Dropbox in place of those that were deleted on exit, so that the
+     * program opens from them without waiting for the download. The changes made after the last sync are replayed
+     * from the journal.
+     */
+    public void restoreLastSynced() {
+        for (String path : List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH)) {
+            File copy = sync.lastSynced(path);
+            if (!this.file(path).exists() && copy.isFile()) {
+                try {
+                    Files.copy(copy.toPath(), this.file(path).toPath());
+                } catch (IOException eIO) {
+                    logger.log(Level.WARNING, "Cannot restore " + path + ".", eIO);
+                }
+            }
+        }
+    }
+
+    /**
+     * Download the changes made to the files elsewhere since they were last synced, and merge them into the files.
+     * The data of a user is taken from Dropbox unless it was changed here since the last sync, in which case it is
+     * kept as it is here and uploaded with the next save. Meant to be run in the background after startup.
+     *
+     * @throws IOException if the files cannot be downloaded or merged
+     */
+    public synchronized void reconcileWithRemote() throws IOException {
+        for (String path : List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH)) {
+            File lastSynced = sync.lastSynced(path);
+            byte[] base = lastSynced.isFile() ? Files.readAllBytes(lastSynced.toPath()) : null;
+            File downloaded = this.file(path + DOWNLOADED_SUFFIX);
+            if (!sync.pull(path, downloaded)) {
+                continue;
+            }
+            try {
+                byte[] remote = Files.readAllBytes(downloaded.toPath());
+                byte[] mine = this.file(path).isFile() ? Files.readAllBytes(this.file(path).toPath()) : null;
+                byte[] merged;
+                if (mine == null || Arrays.equals(mine, base)) {
+                    merged = remote;
+                } else {
+                    merged = mergeShards(mine, base, remote);
+                    if (merged == null) {
+                        merged = path.equals(USERS_FILEPATH) ? this.mergeUsers(mine, base, remote) : mine;
+                    }
+                }
+                File temporary = File.createTempFile(path, ".part", this.file(path).getAbsoluteFile().getParentFile());
+                Files.write(temporary.toPath(), merged);
+                Files.move(temporary.toPath(), this.file(path).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(downloaded.toPath());
+            }
         }
     }
 
@@ -181,100 +214,161 @@ public class IOSerializable {
     public boolean hasSavedData() {
         List<String> paths = List.of(EVENTS_FILEPATH, USERS_FILEPATH, RECURSIVE_EVENTS_FILEPATH);
         for (String path : paths) {
-            if (!new File(path).exists()) return false;
+            if (!this.file(path).exists()) return false;
         }
         return true;
     }
 
     /**
-     * Read the file contents from the serialized files obtained from the dropbox repository.
-     * Then type cast them into an ArrayList of Events.
+     * Read the events of one user from the serialized files obtained from the dropbox repository, without reading
+     * those of the other users. The shard of the user is mapped into memory and decoded in place.
      *
-     * @return an ArrayList of all Events stored in the file
+     * @param userID the ID of the user
+     * @return an ArrayList of the Events of the user stored in the file
      */
-    public Map<UUID, List<Event>> eventsReadFromSerializable() {
+    public List<Event> eventsReadFromSerializable(UUID userID) {
         try {
-            InputStream file = new FileInputStream(EVENTS_FILEPATH);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            //Please refer to specifications for explanation
-            HashMap<UUID, List<Event>> recoveredEvents = (HashMap<UUID, List<Event>>) input.readObject();
-            input.close();
-            return recoveredEvents;
+            if (this.isSharded(EVENTS_FILEPATH)) {
+                InputStream shard = UserShards.openShard(this.file(EVENTS_FILEPATH), userID);
+                return shard == null ? new ArrayList<>() : this.readEventsShard(userID, shard);
+            }
+            try (InputStream input = new BufferedInputStream(new FileInputStream(this.file(EVENTS_FILEPATH)))) {
+                return codecFor(input).readEvents(input).getOrDefault(userID, new ArrayList<>());
+            }
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform deserialization. Returning new blank Arraylist.", eIO);
-            return new HashMap<>();
-        } catch (ClassNotFoundException eCNF) {
-            logger.log(Level.SEVERE, "Cannot find class. Returning new blank Arraylist.", eCNF);
-            return new HashMap<>();
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Write the serialized file to the filepath as specified.
-     * The written object should be an ArrayList of Events.
+     * Write the events of one user to the filepath as specified.
+     * The events of the other users are written back as they were read, without deserializing them.
      *
-     * @param events an ArrayList of events to be serialized
+     * @param userID the ID of the user
+     * @param events an ArrayList of the events of the user to be serialized
      */
-    public void eventsWriteToSerializable(Map<UUID, List<Event>> events) {
+    public void eventsWriteToSerializable(UUID userID, List<Event> events) {
         try {
-            OutputStream file = new FileOutputStream(EVENTS_FILEPATH);
-            OutputStream buffer = new BufferedOutputStream(file);
-            ObjectOutput output = new ObjectOutputStream(buffer);
-            output.writeObject(events);
-            output.close();
+            this.writeEvents(userID, events);
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform serialization", eIO);
         }
     }
 
+    /**
+     * Write the events of one user as eventsWriteToSerializable does, letting the caller handle failures.
+     *
+     * @param userID the ID of the user
+     * @param events the events of the user to be serialized
+     * @throws IOException if the file cannot be read or written
+     */
+    synchronized void writeEvents(UUID userID, List<Event> events) throws IOException {
+        this.writeEventMonths(userID, MonthPartitions.byMonth(events), true);
+    }
 
     /**
-     * Read the file contents from the serialized files obtained from the dropbox repository.
-     * Then type cast them into a Map with keys user uuid and values maps with recursive events uuid as keys and
-     * recursive events as values.
+     * Write the events of some months of one user, copying the saved partitions of the other months over as they
+     * are. A month given without events is removed.
+     *
+     * @param userID   the ID of the user
+     * @param months   the events of the user in each month to write, by month
+     * @param complete whether months holds every month of the user, so that the months not in it are removed
+     * @throws IOException if the file cannot be read or written
+     */
+    synchronized void writeEventMonths(UUID userID, Map<YearMonth, List<Event>> months, boolean complete)
+            throws IOException {
+        Map<UUID, Long> stamps = new HashMap<>();
+        Map<UUID, byte[]> shards = this.readShards(EVENTS_FILEPATH, stamps);
+        if (shards == null) {
+            shards = new LinkedHashMap<>();
+            try (InputStream input = new BufferedInputStream(new FileInputStream(this.file(EVENTS_FILEPATH)))) {
+                for (Map.Entry<UUID, List<Event>> entry : codecFor(input).readEvents(input).entrySet()) {
+                    shards.put(entry.getKey(), this.eventsShard(entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        SortedMap<YearMonth, byte[]> partitions = new TreeMap<>();
+        Set<YearMonth> archived = new HashSet<>();
+        if (!complete && shards.get(userID) != null) {
+            this.readPartitions(userID, shards.get(userID), partitions, archived);
+        }
+        for (Map.Entry<YearMonth, List<Event>> month : months.entrySet()) {
+            partitions.remove(month.getKey());
+            archived.remove(month.getKey());
+            if (!month.getValue().isEmpty()) {
+                partitions.put(month.getKey(), this.encodedEvents(userID, month.getValue()));
+            }
+        }
+        putShard(shards, stamps, userID, this.eventsShard(partitions, archived));
+        this.writeShards(EVENTS_FILEPATH, shards, stamps);
+    }
+
+
+    /**
+     * Read the recursive events of one user from the serialized files obtained from the dropbox repository, without
+     * reading those of the other users.
      *
-     * @return a map with keys user uuid and values maps with recursive events uuid as keys and
-     * recursive events as values.
+     * @param userID the ID of the user
+     * @return a map with recursive events uuid as keys and recursive events as values.
      */
-    public Map<UUID, Map<UUID, RecursiveEvent>> recursiveEventsReadFromSerializable() {
+    public Map<UUID, RecursiveEvent> recursiveEventsReadFromSerializable(UUID userID) {
         try {
-            InputStream file = new FileInputStream(RECURSIVE_EVENTS_FILEPATH);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            //Please refer to specifications for explanation
-            Map<UUID, Map<UUID, RecursiveEvent>> recoveredEvents = (Map<UUID, Map<UUID, RecursiveEvent>>) input.readObject();
-            input.close();
-            return recoveredEvents;
+            if (this.isSharded(RECURSIVE_EVENTS_FILEPATH)) {
+                InputStream shard = UserShards.openShard(this.file(RECURSIVE_EVENTS_FILEPATH), userID);
+                return shard == null ? new HashMap<>() : codec.readRecursiveEvents(shard)
+                        .getOrDefault(userID, new HashMap<>());
+            }
+            try (InputStream input = new BufferedInputStream(
+                    new FileInputStream(this.file(RECURSIVE_EVENTS_FILEPATH)))) {
+                return codecFor(input).readRecursiveEvents(input).getOrDefault(userID, new HashMap<>());
+            }
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform deserialization. Returning new blank Arraylist.", eIO);
             return new HashMap<>();
-        } catch (ClassNotFoundException eCNF) {
-            logger.log(Level.SEVERE, "Cannot find class. Returning new blank Arraylist.", eCNF);
-            return new HashMap<>();
         }
     }
 
     /**
-     * Write the serialized file to the filepath as specified.
-     * The written object should be a map with keys user uuid and values maps with recursive events uuid as keys and
-     * recursive events as values.
+     * Write the recursive events of one user to the filepath as specified.
+     * The recursive events of the other users are written back as they were read, without deserializing them.
      *
-     * @param userIdToEvents a map with keys user uuid and values maps with recursive events uuid as keys and
-     * recursive events as values.
+     * @param userID          the ID of the user
+     * @param recursiveEvents a map with recursive events uuid as keys and recursive events as values.
      */
-    public void recursiveEventsWriteToSerializable(Map<UUID, Map<UUID, RecursiveEvent>> userIdToEvents) {
+    public void recursiveEventsWriteToSerializable(UUID userID, Map<UUID, RecursiveEvent> recursiveEvents) {
         try {
-            OutputStream file = new FileOutputStream(RECURSIVE_EVENTS_FILEPATH);
-            OutputStream buffer = new BufferedOutputStream(file);
-            ObjectOutput output = new ObjectOutputStream(buffer);
-            output.writeObject(userIdToEvents);
-            output.close();
+            this.writeRecursiveEvents(userID, recursiveEvents);
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform serialization", eIO);
         }
     }
 
+    /**
+     * Write the recursive events of one user as recursiveEventsWriteToSerializable does, letting the caller handle
+     * failures.
+     *
+     * @param userID          the ID of the user
+     * @param recursiveEvents the recursive events of the user by their uuid
+     * @throws IOException if the file cannot be read or written
+     */
+    synchronized void writeRecursiveEvents(UUID userID, Map<UUID, RecursiveEvent> recursiveEvents) throws IOException {
+        Map<UUID, Long> stamps = new HashMap<>();
+        Map<UUID, byte[]> shards = this.readShards(RECURSIVE_EVENTS_FILEPATH, stamps);
+        if (shards == null) {
+            shards = new LinkedHashMap<>();
+            try (InputStream input = new BufferedInputStream(
+                    new FileInputStream(this.file(RECURSIVE_EVENTS_FILEPATH)))) {
+                for (Map.Entry<UUID, Map<UUID, RecursiveEvent>> entry :
+                        codecFor(input).readRecursiveEvents(input).entrySet()) {
+                    shards.put(entry.getKey(), this.recursiveEventsShard(entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        putShard(shards, stamps, userID, this.recursiveEventsShard(userID, recursiveEvents));
+        this.writeShards(RECURSIVE_EVENTS_FILEPATH, shards, stamps);
+    }
+
     /**
      * Read the file contents from the serialized files obtained from the dropbox repository.
      * Then type cast them into an ArrayList of Users.
@@ -282,20 +376,18 @@ public class IOSerializable {
      * @return an ArrayList of all Users stored in the file
      */
     public List<User> usersReadFromSerializable() {
-        try {
-            InputStream file = new FileInputStream(USERS_FILEPATH);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            //Please refer to specifications for explanation
-            List<User> recoveredUsers = (List<User>) input.readObject();
-            input.close();
-            return recoveredUsers;
+        try (InputStream input = new BufferedInputStream(new FileInputStream(this.file(USERS_FILEPATH)))) {
+            if (!UserShards.isSharded(input)) {
+                return codecFor(input).readUsers(input);
+            }
+            List<User> users = new ArrayList<>();
+            for (byte[] shard : UserShards.readShards(input).values()) {
+                users.addAll(codec.readUsers(new ByteArrayInputStream(shard)));
+            }
+            return users;
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform deserialization. Returning new blank Arraylist.", eIO);
             return new ArrayList<>();
-        } catch (ClassNotFoundException eCNF) {
-            logger.log(Level.SEVERE, "Cannot find class. Returning new blank Arraylist.", eCNF);
-            return new ArrayList<>();
         }
     }
 
@@ -307,24 +399,301 @@ public class IOSerializable {
      */
     public void usersWriteToSerializable(List<User> users) {
         try {
-            OutputStream file = new FileOutputStream(USERS_FILEPATH);
-            OutputStream buffer = new BufferedOutputStream(file);
-            ObjectOutput output = new ObjectOutputStream(buffer);
-            output.writeObject(users);
-            output.close();
+            this.writeUsers(users);
         } catch (IOException eIO) {
             logger.log(Level.SEVERE, "Cannot perform serialization", eIO);
         }
     }
 
+    /**
+     * Write the users as usersWriteToSerializable does, letting the caller handle failures.
+     *
+     * @param users the users to be serialized
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void writeUsers(List<User> users) throws IOException {
+        Map<UUID, Long> stamps = new HashMap<>();
+        Map<UUID, byte[]> saved = this.readShards(USERS_FILEPATH, stamps);
+        Map<UUID, byte[]> shards = new LinkedHashMap<>();
+        for (User user : users) {
+            byte[] shard = this.encoded(user);
+            if (saved == null || !Arrays.equals(shard, saved.get(user.getId()))) {
+                stamps.put(user.getId(), UserShards.newStamp());
+            }
+            shards.put(user.getId(), shard);
+        }
+        this.writeShards(USERS_FILEPATH, shards, stamps);
+    }
+
+    /**
+     * Write the given users over their saved copies, leaving the shards of the other users as they were read
+     * without deserializing them.
+     *
+     * @param users the users that changed
+     * @throws IOException if the file cannot be read or written
+     */
+    synchronized void writeChangedUsers(Collection<User> users) throws IOException {
+        Map<UUID, Long> stamps = new HashMap<>();
+        Map<UUID, byte[]> shards = this.readShards(USERS_FILEPATH, stamps);
+        if (shards == null) {
+            shards = new LinkedHashMap<>();
+            for (User user : this.usersReadFromSerializable()) {
+                shards.put(user.getId(), this.encoded(user));
+            }
+        }
+        for (User user : users) {
+            putShard(shards, stamps, user.getId(), this.encoded(user));
+        }
+        this.writeShards(USERS_FILEPATH, shards, stamps);
+    }
+
+    /**
+     * A helper method that picks the codec a saved file was written with, so that files saved with Java
+     * serialization are still read and are saved again in the binary format.
+     *
+     * @param input the saved file, supporting mark and reset
+     * @return the binary codec if the file starts with its header, the Java serialization codec otherwise
+     * @throws IOException if the file cannot be read
+     */
+    private StorageCodec codecFor(InputStream input) throws IOException {
+        return BinaryCodec.isBinary(input) ? codec : legacyCodec;
+    }
+
+    /**
+     * A helper method that checks if a saved file holds one shard per user, rather than the data of every user
+     * written at once as before.
+     *
+     * @param path the path of the saved file
+     * @return true if the file exists and is sharded
+     * @throws IOException if the file cannot be read
+     */
+    private boolean isSharded(String path) throws IOException {
+        if (!this.file(path).exists()) {
+            return false;
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(this.file(path)))) {
+            return UserShards.isSharded(input);
+        }
+    }
+
+    /**
+     * A helper method that reads the shards of every user from a saved file without deserializing them.
+     *
+     * @param path   the path of the saved file
+     * @param stamps filled with the stamp of every shard by user ID
+     * @return the shards by user ID, empty if there is no file, or null if the file is not sharded yet
+     * @throws IOException if the file cannot be read
+     */
+    private Map<UUID, byte[]> readShards(String path, Map<UUID, Long> stamps) throws IOException {
+        if (!this.file(path).exists()) {
+            return new LinkedHashMap<>();
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(this.file(path)))) {
+            return UserShards.isSharded(input) ? UserShards.readShards(input, stamps) : null;
+        }
+    }
+
+    /**
+     * A helper method that writes the shards of every user to a temporary file and moves it over the saved file, so
+     * that a save cut short never leaves a truncated file in its place.
+     */
+    private void writeShards(String path, Map<UUID, byte[]> shards, Map<UUID, Long> stamps) throws IOException {
+        File temporary = File.createTempFile(path, ".part", this.file(path).getAbsoluteFile().getParentFile());
+        try {
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temporary))) {
+                UserShards.writeShards(shards, stamps, output);
+            }
+            try {
+                Files.move(temporary.toPath(), this.file(path).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException eFS) {
+                // some platforms do not replace a file while a shard read from it is still mapped, and a mapping
+                // is only released when it is garbage collected
+                System.gc();
+                Files.move(temporary.toPath(), this.file(path).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * A helper method that puts the shard of a user, drawing a new stamp for it if its contents changed.
+     */
+    private static void putShard(Map<UUID, byte[]> shards, Map<UUID, Long> stamps, UUID userID, byte[] shard) {
+        if (!Arrays.equals(shard, shards.get(userID))) {
+            shards.put(userID, shard);
+            stamps.put(userID, UserShards.newStamp());
+        }
+    }
+
+    /**
+     * A helper method that merges the shards of every user saved here with those downloaded: the shard of a user is
+     * taken from the download unless it was changed here since the last sync, which the stamps of the shards tell
+     * without comparing their contents. Shards saved before there were stamps are compared byte by byte.
+     *
+     * @param mine   the saved file
+     * @param base   the file as it was last synced, or null
+     * @param remote the downloaded file
+     * @return the merged file, or null if either file is not sharded yet
+     * @throws IOException if the files cannot be read
+     */
+    private static byte[] mergeShards(byte[] mine, byte[] base, byte[] remote) throws IOException {
+        Map<UUID, Long> localStamps = new HashMap<>();
+        Map<UUID, Long> remoteStamps = new HashMap<>();
+        Map<UUID, byte[]> localShards = shardsOf(mine, localStamps);
+        Map<UUID, byte[]> remoteShards = shardsOf(remote, remoteStamps);
+        if (localShards == null || remoteShards == null) {
+            return null;
+        }
+        Map<UUID, Long> baseStamps = new HashMap<>();
+        Map<UUID, byte[]> baseShards = base == null ? null : shardsOf(base, baseStamps);
+        for (Map.Entry<UUID, byte[]> entry : remoteShards.entrySet()) {
+            UUID userID = entry.getKey();
+            byte[] local = localShards.get(userID);
+            if (local == null || (baseShards != null && baseShards.containsKey(userID) &&
+                    unchanged(localStamps.get(userID), baseStamps.get(userID), local, baseShards.get(userID)))) {
+                localShards.put(userID, entry.getValue());
+                localStamps.put(userID, remoteStamps.get(userID));
+            }
+        }
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        UserShards.writeShards(localShards, localStamps, merged);
+        return merged.toByteArray();
+    }
+
+    private static boolean unchanged(long stamp, long baseStamp, byte[] shard, byte[] baseShard) {
+        if (stamp == UserShards.NO_STAMP || baseStamp == UserShards.NO_STAMP) {
+            return Arrays.equals(shard, baseShard);
+        }
+        return stamp == baseStamp;
+    }
+
+    private static Map<UUID, byte[]> shardsOf(byte[] file, Map<UUID, Long> stamps) throws IOException {
+        InputStream input = new ByteArrayInputStream(file);
+        return UserShards.isSharded(input) ? UserShards.readShards(input, stamps) : null;
+    }
+
+    /**
+     * A helper method that merges the users saved here with those downloaded the same way as mergeShards, for users
+     * files saved before they were sharded.
+     */
+    private byte[] mergeUsers(byte[] mine, byte[] base, byte[] remote) throws IOException {
+        Map<UUID, User> localUsers = this.usersOf(mine);
+        Map<UUID, User> baseUsers = base == null ? new HashMap<>() : this.usersOf(base);
+        for (User user : this.usersOf(remote).values()) {
+            User local = localUsers.get(user.getId());
+            User before = baseUsers.get(user.getId());
+            if (local == null || (before != null && Arrays.equals(this.encoded(local), this.encoded(before)))) {
+                localUsers.put(user.getId(), user);
+            }
+        }
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        codec.writeUsers(new ArrayList<>(localUsers.values()), merged);
+        return merged.toByteArray();
+    }
+
+    private Map<UUID, User> usersOf(byte[] file) throws IOException {
+        InputStream input = new ByteArrayInputStream(file);
+        Map<UUID, User> users = new LinkedHashMap<>();
+        for (User user : codecFor(input).readUsers(input)) {
+            users.put(user.getId(), user);
+        }
+        return users;
+    }
+
+    private byte[] encoded(User user) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        codec.writeUsers(List.of(user), encoded);
+        return encoded.toByteArray();
+    }
+
+
+    private File file(String path) {
+        return new File(this.directory, path);
+    }
+
+    private byte[] encodedEvents(UUID userID, List<Event> events) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        codec.writeEvents(Map.of(userID, events), encoded);
+        return encoded.toByteArray();
+    }
+
+    private byte[] eventsShard(UUID userID, List<Event> events) throws IOException {
+        SortedMap<YearMonth, byte[]> partitions = new TreeMap<>();
+        for (Map.Entry<YearMonth, List<Event>> month : MonthPartitions.byMonth(events).entrySet()) {
+            partitions.put(month.getKey(), this.encodedEvents(userID, month.getValue()));
+        }
+        return this.eventsShard(partitions, new HashSet<>());
+    }
+
+    /**
+     * A helper method that writes the partitions of the events of a user as a shard, compressing the partitions of
+     * the months older than the archive horizon that are not compressed yet.
+     */
+    private byte[] eventsShard(SortedMap<YearMonth, byte[]> partitions, Set<YearMonth> archived)
+            throws IOException {
+        YearMonth horizon = YearMonth.from(LocalDate.now().minus(this.archiveAfter));
+        for (Map.Entry<YearMonth, byte[]> partition : partitions.headMap(horizon).entrySet()) {
+            if (archived.add(partition.getKey())) {
+                partition.setValue(MonthPartitions.archive(partition.getValue()));
+            }
+        }
+        ByteArrayOutputStream shard = new ByteArrayOutputStream();
+        MonthPartitions.writeMonths(partitions, archived, shard);
+        return shard.toByteArray();
+    }
+
+    /**
+     * A helper method that reads the partitions of a saved shard of events as they are stored, partitioning the
+     * events of a shard saved before there were partitions.
+     */
+    private void readPartitions(UUID userID, byte[] shard, SortedMap<YearMonth, byte[]> partitions,
+                                Set<YearMonth> archived) throws IOException {
+        InputStream input = new ByteArrayInputStream(shard);
+        if (MonthPartitions.isPartitioned(input)) {
+            partitions.putAll(MonthPartitions.readMonths(input, archived));
+            return;
+        }
+        List<Event> events = codec.readEvents(input).getOrDefault(userID, new ArrayList<>());
+        for (Map.Entry<YearMonth, List<Event>> month : MonthPartitions.byMonth(events).entrySet()) {
+            partitions.put(month.getKey(), this.encodedEvents(userID, month.getValue()));
+        }
+    }
+
+    /**
+     * A helper method that reads the events of a user from their shard, unpacking the archived months.
+     */
+    private List<Event> readEventsShard(UUID userID, InputStream shard) throws IOException {
+        if (!MonthPartitions.isPartitioned(shard)) {
+            return codec.readEvents(shard).getOrDefault(userID, new ArrayList<>());
+        }
+        Set<YearMonth> archived = new HashSet<>();
+        List<Event> events = new ArrayList<>();
+        for (Map.Entry<YearMonth, byte[]> partition : MonthPartitions.readMonths(shard, archived).entrySet()) {
+            try (InputStream input = MonthPartitions.open(partition.getValue(),
+                    archived.contains(partition.getKey()))) {
+                events.addAll(codec.readEvents(input).getOrDefault(userID, new ArrayList<>()));
+            }
+        }
+        return events;
+    }
+
+    private byte[] recursiveEventsShard(UUID userID, Map<UUID, RecursiveEvent> recursiveEvents) throws IOException {
+        ByteArrayOutputStream shard = new ByteArrayOutputStream();
+        codec.writeRecursiveEvents(Map.of(userID, recursiveEvents), shard);
+        return shard.toByteArray();
+    }
+
     /**
      * Delete files that are newly created to avoid data breach.
      */
     public void deleteNewFiles() {
-        File events1Ser = new File("events1.ser");
-        File users1Ser = new File("users1.ser");
+        File events1Ser = this.file("events1.ser");
+        File users1Ser = this.file("users1.ser");
 
-        File recursiveEvents1Ser = new File("recursive_events1.ser");
+        File recursiveEvents1Ser = this.file("recursive_events1.ser");
 
         Boolean a = events1Ser.delete();
         Boolean b = users1Ser.delete();
@@ -336,10 +705,10 @@ public class IOSerializable {
      * Delete files that have been in the directory since the beginning to avoid data breach.
      */
     public void deleteOldFiles() {
-        File eventsSer = new File("events.ser");
-        File usersSer = new File("users.ser");
+        File eventsSer = this.file("events.ser");
+        File usersSer = this.file("users.ser");
 
-        File recursiveEventsSer = new File("recursive_events.ser");
+        File recursiveEventsSer = this.file("recursive_events.ser");
 
         Boolean a = eventsSer.delete();
         Boolean b = usersSer.delete();
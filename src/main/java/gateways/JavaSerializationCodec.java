@@ -0,0 +1,66 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+import interfaces.StorageCodec;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The format the .ser files were first saved in: the maps and lists written as they are with an ObjectOutputStream.
+ * It is only kept to read the files saved before BinaryCodec.
+ *
+ * @see BinaryCodec
+ * @see IOSerializable
+ */
+public class JavaSerializationCodec implements StorageCodec {
+    @Override
+    public void writeEvents(Map<UUID, List<Event>> events, OutputStream out) throws IOException {
+        this.write(events, out);
+    }
+
+    @Override
+    public Map<UUID, List<Event>> readEvents(InputStream in) throws IOException {
+        //Please refer to specifications for explanation
+        return (Map<UUID, List<Event>>) this.read(in);
+    }
+
+    @Override
+    public void writeRecursiveEvents(Map<UUID, Map<UUID, RecursiveEvent>> recursiveEvents, OutputStream out)
+            throws IOException {
+        this.write(recursiveEvents, out);
+    }
+
+    @Override
+    public Map<UUID, Map<UUID, RecursiveEvent>> readRecursiveEvents(InputStream in) throws IOException {
+        return (Map<UUID, Map<UUID, RecursiveEvent>>) this.read(in);
+    }
+
+    @Override
+    public void writeUsers(List<User> users, OutputStream out) throws IOException {
+        this.write(users, out);
+    }
+
+    @Override
+    public List<User> readUsers(InputStream in) throws IOException {
+        return (List<User>) this.read(in);
+    }
+
+    private void write(Object object, OutputStream out) throws IOException {
+        ObjectOutputStream output = new ObjectOutputStream(out);
+        output.writeObject(object);
+        output.flush();
+    }
+
+    private Object read(InputStream in) throws IOException {
+        try {
+            return new ObjectInputStream(in).readObject();
+        } catch (ClassNotFoundException eCNF) {
+            throw new IOException("Cannot find class.", eCNF);
+        }
+    }
+}
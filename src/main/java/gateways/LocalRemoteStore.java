@@ -0,0 +1,44 @@
+package gateways;
+
+import interfaces.RemoteStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A RemoteStore in a directory of this computer, standing in for Dropbox when testing or working offline.
+ */
+public class LocalRemoteStore implements RemoteStore {
+    private final File directory;
+
+    /**
+     * @param directory where the data is stored, created when the first data is uploaded
+     */
+    public LocalRemoteStore(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public byte[] download(String name) throws IOException {
+        File file = new File(this.directory, name);
+        return file.isFile() ? Files.readAllBytes(file.toPath()) : null;
+    }
+
+    @Override
+    public void upload(String name, byte[] data) throws IOException {
+        File file = new File(this.directory, name);
+        Files.createDirectories(file.getParentFile().toPath());
+        // written next to the file and moved over it, so that it is never seen half written
+        File temporary = File.createTempFile(file.getName(), ".part", file.getParentFile());
+        Files.write(temporary.toPath(), data);
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return new File(this.directory, name).isFile();
+    }
+}
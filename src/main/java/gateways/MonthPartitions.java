@@ -0,0 +1,160 @@
+package gateways;
+
+import entities.Event;
+
+import java.io.*;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The events of one user saved as one partition per month, so that a save only encodes again the months whose events
+ * were added, changed or removed and copies the other partitions over as they are. An event is in the month it starts
+ * in, or ends in if it has no start; its work sessions are saved with it.
+ * <p>
+ * The partitions start with the bytes "CALM", the format version and a table of every month with its flags and the
+ * length of its partition, followed by the partitions in the same order. Each partition is written by the caller
+ * (with BinaryCodec); an archived partition is compressed with gzip and is unpacked when it is read.
+ *
+ * @see IOSerializable
+ * @see UserShards
+ */
+public class MonthPartitions {
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x43414C4D; // "CALM"
+    private static final int MAGIC_LENGTH = 4;
+    private static final int ARCHIVED = 1;
+
+    private MonthPartitions() {
+    }
+
+    /**
+     * @param event an event
+     * @return the month event is saved in: the month it starts in, or ends in if it has no start
+     */
+    public static YearMonth monthOf(Event event) {
+        return YearMonth.from(event.hasStart() ? event.getStartTime() : event.getEndTime());
+    }
+
+    /**
+     * @param events events
+     * @return the events by the month they are saved in, earliest month first
+     */
+    public static SortedMap<YearMonth, List<Event>> byMonth(Collection<Event> events) {
+        SortedMap<YearMonth, List<Event>> months = new TreeMap<>();
+        for (Event event : events) {
+            months.computeIfAbsent(monthOf(event), k -> new ArrayList<>()).add(event);
+        }
+        return months;
+    }
+
+    /**
+     * @param in a stream supporting mark and reset
+     * @return true if the stream starts with the header of partitions by month. The stream is reset to where it was
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean isPartitioned(InputStream in) throws IOException {
+        in.mark(MAGIC_LENGTH);
+        byte[] start = in.readNBytes(MAGIC_LENGTH);
+        in.reset();
+        return start.length == MAGIC_LENGTH && new DataInputStream(new ByteArrayInputStream(start)).readInt() == MAGIC;
+    }
+
+    /**
+     * reads the partitions of every month as they are stored, without unpacking them
+     *
+     * @param in       partitions by month
+     * @param archived filled with the months whose partitions are archived
+     * @return map of months to their partition, earliest month first
+     * @throws IOException if the stream cannot be read or is not partitioned by month
+     */
+    public static SortedMap<YearMonth, byte[]> readMonths(InputStream in, Set<YearMonth> archived)
+            throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not partitioned by month.");
+        }
+        int version = input.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Cannot read month partitions version " + version + ", the latest known is " +
+                    FORMAT_VERSION + ".");
+        }
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Damaged month table.");
+        }
+        List<YearMonth> months = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            YearMonth month = YearMonth.of(input.readInt(), input.readUnsignedByte());
+            int flags = input.readUnsignedByte();
+            int length = input.readInt();
+            if (length < 0) {
+                throw new IOException("Damaged month table.");
+            }
+            if ((flags & ARCHIVED) != 0) {
+                archived.add(month);
+            }
+            months.add(month);
+            lengths.add(length);
+        }
+        SortedMap<YearMonth, byte[]> partitions = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] partition = new byte[lengths.get(i)];
+            input.readFully(partition);
+            partitions.put(months.get(i), partition);
+        }
+        return partitions;
+    }
+
+    /**
+     * writes the month table and the partitions
+     *
+     * @param partitions map of months to their partition as it is stored
+     * @param archived   the months whose partitions are archived
+     * @param out        the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeMonths(SortedMap<YearMonth, byte[]> partitions, Set<YearMonth> archived,
+                                   OutputStream out) throws IOException {
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        output.writeInt(partitions.size());
+        for (Map.Entry<YearMonth, byte[]> entry : partitions.entrySet()) {
+            output.writeInt(entry.getKey().getYear());
+            output.writeByte(entry.getKey().getMonthValue());
+            output.writeByte(archived.contains(entry.getKey()) ? ARCHIVED : 0);
+            output.writeInt(entry.getValue().length);
+        }
+        for (byte[] partition : partitions.values()) {
+            output.write(partition);
+        }
+        output.flush();
+    }
+
+    /**
+     * @param partition a partition as the caller wrote it
+     * @return the partition compressed to be archived
+     * @throws IOException if the partition cannot be compressed
+     */
+    public static byte[] archive(byte[] partition) throws IOException {
+        ByteArrayOutputStream archived = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(archived)) {
+            output.write(partition);
+        }
+        return archived.toByteArray();
+    }
+
+    /**
+     * @param partition a partition as it is stored
+     * @param archived  whether the partition is archived
+     * @return a stream over the partition as the caller wrote it
+     * @throws IOException if an archived partition cannot be unpacked
+     */
+    public static InputStream open(byte[] partition, boolean archived) throws IOException {
+        InputStream input = new ByteArrayInputStream(partition);
+        return archived ? new GZIPInputStream(input) : input;
+    }
+}
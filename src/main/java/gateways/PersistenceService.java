@@ -0,0 +1,412 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+import interfaces.EventListObserver;
+import interfaces.PersistenceListener;
+import interfaces.StorageCodec;
+import usecases.UserManager;
+import usecases.events.EventManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the data of the current user in the background, so that the front-ends never wait for the files or for
+ * Dropbox. A save is started once the given number of changes were made, or on the first action after the given
+ * interval if there was any change, and when asked for with saveNow.
+ * <p>
+ * Starting a save only takes a snapshot of the data, on the thread of the front-end: the service follows the
+ * EventManager of the current user as an <code>EventListObserver</code> and keeps every event encoded as it was
+ * last changed, so the snapshot is a copy of the map of encoded events (the encoded events are never changed, only
+ * replaced) along with the recursions and users encoded at that time. The snapshot is then decoded, written to the
+ * files and uploaded on a single background thread, reporting each step to the PersistenceListener. Once a save
+ * succeeds the journal drops the changes it covers. If a save is still running when another one is due, the next
+ * one waits for a later change or action.
+ * <p>
+ * Only what changed since the last save is in a snapshot: the events of the months in which an event was added,
+ * changed or removed (see MonthPartitions), the recursions if the RepeatedEventManager was modified, and the users
+ * the UserManager recorded as changed. A file with nothing to save is not written, the partitions of the other months
+ * are copied over as they are, and only the shards of the changed users are rewritten in the users file. What a
+ * failed save held is saved again with the next one. Changes recovered from the journal are saved with every month.
+ *
+ * @see EventJournal
+ * @see IOSerializable
+ */
+public class PersistenceService implements EventListObserver {
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(5);
+    public static final int DEFAULT_CHANGES_BEFORE_SAVE = 50;
+
+    private static final String[] STEPS = {"events", "recursive events", "users", "upload"};
+
+    private final IOSerializable ioSerializable;
+    private final EventJournal journal;
+    private final UserManager userManager;
+    private final Duration interval;
+    private final int changesBeforeSave;
+    private final boolean upload;
+    private final PersistenceListener listener;
+    private final StorageCodec codec = new BinaryCodec();
+    private final ExecutorService saver = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "persistence-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<UUID, byte[]> encodedEvents = new HashMap<>();
+    private final Map<UUID, YearMonth> eventMonths = new HashMap<>();
+    private final Map<YearMonth, Set<UUID>> monthEvents = new HashMap<>();
+    private final Set<YearMonth> changedMonths = new HashSet<>();
+    private UUID userID;
+    private EventManager eventManager;
+    private int recursionModificationCount;
+    private boolean allMonthsChanged;
+    private boolean recursionsChanged;
+    private int changes;
+    private long lastSaveTime = System.nanoTime();
+    private Future<?> runningSave;
+    private volatile boolean lastSaveSucceeded = true;
+    // what failed saves held, set on the saving thread
+    private final Set<YearMonth> monthsUnsaved = ConcurrentHashMap.newKeySet();
+    private volatile boolean allMonthsUnsaved;
+    private volatile boolean recursionsUnsaved;
+    private final Set<UUID> usersUnsaved = ConcurrentHashMap.newKeySet();
+
+    /**
+     * constructs a service saving with ioSerializable every DEFAULT_CHANGES_BEFORE_SAVE changes or DEFAULT_INTERVAL
+     * and uploading every save to Dropbox
+     *
+     * @param ioSerializable where the data is saved
+     * @param journal        the journal of the changes, dropping the changes that were saved
+     * @param userManager    the users to save
+     * @param listener       told about the progress and failures of saves
+     */
+    public PersistenceService(IOSerializable ioSerializable, EventJournal journal, UserManager userManager,
+                              PersistenceListener listener) {
+        this(ioSerializable, journal, userManager, DEFAULT_INTERVAL, DEFAULT_CHANGES_BEFORE_SAVE, true, listener);
+    }
+
+    /**
+     * constructs a service saving with ioSerializable
+     *
+     * @param ioSerializable    where the data is saved
+     * @param journal           the journal of the changes, dropping the changes that were saved
+     * @param userManager       the users to save
+     * @param interval          the time after which a change is saved at the next action
+     * @param changesBeforeSave the number of changes after which they are saved
+     * @param upload            whether every save is uploaded to Dropbox
+     * @param listener          told about the progress and failures of saves
+     */
+    public PersistenceService(IOSerializable ioSerializable, EventJournal journal, UserManager userManager,
+                              Duration interval, int changesBeforeSave, boolean upload,
+                              PersistenceListener listener) {
+        this.ioSerializable = ioSerializable;
+        this.journal = journal;
+        this.userManager = userManager;
+        this.interval = interval;
+        this.changesBeforeSave = Math.max(1, changesBeforeSave);
+        this.upload = upload;
+        this.listener = listener;
+    }
+
+    /**
+     * saves the data of userID from now on, taken from eventManager. The previous EventManager is not followed
+     * anymore. The events and recursions are saved with the next save if the journal holds changes of the user
+     *
+     * @param userID       the ID of the user whose events are in eventManager
+     * @param eventManager the EventManager of the current user
+     */
+    public void follow(UUID userID, EventManager eventManager) {
+        if (this.eventManager != null) {
+            this.eventManager.removeObserver(this);
+        }
+        this.userID = userID;
+        this.eventManager = eventManager;
+        this.recursionModificationCount = eventManager.getRepeatedEventManager().getModificationCount();
+        // changes recovered from the journal were applied to eventManager before it was followed
+        boolean recovered = this.journal.hasChanges(userID);
+        this.allMonthsChanged = recovered;
+        this.recursionsChanged = recovered;
+        this.changes = 0;
+        this.encodedEvents.clear();
+        this.eventMonths.clear();
+        this.monthEvents.clear();
+        this.changedMonths.clear();
+        // the events of recursions are saved as their recursion, so they are not computed here
+        for (Event event : eventManager.getEventMap().values()) {
+            this.encode(event);
+        }
+        this.changedMonths.clear();
+        eventManager.addObserver(this);
+    }
+
+    /**
+     * keeps the encoded event up to date with the added, changed or removed event, marks the months it was and is in
+     * as changed, and starts a save if enough changes were made
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null || eventManager != this.eventManager ||
+                !eventManager.getEventMap().containsKey(changed.getID())) {
+            return;
+        }
+        if (addRemoveChange.equalsIgnoreCase("remove")) {
+            this.encodedEvents.remove(changed.getID());
+            this.unplace(changed.getID());
+        } else if (addRemoveChange.equalsIgnoreCase("add") || addRemoveChange.equalsIgnoreCase("change")) {
+            this.encode(changed);
+        } else {
+            return;
+        }
+        this.changes++;
+        this.saveIfDue();
+    }
+
+    /**
+     * starts a save if enough changes were made or the interval passed since the last save. To be called after every
+     * action of the user, which also notices changes to recursions
+     */
+    public void tick() {
+        if (this.noticeRecursionChanges()) {
+            this.changes++;
+        }
+        this.saveIfDue();
+    }
+
+    /**
+     * takes a snapshot of the data and saves it in the background
+     *
+     * @return the save, done once the data is saved or the save failed
+     */
+    public Future<?> saveNow() {
+        Snapshot snapshot;
+        try {
+            snapshot = this.snapshot();
+        } catch (IOException eIO) {
+            this.listener.saveFailed("snapshot", eIO);
+            return this.saver.submit(() -> { });
+        }
+        this.changes = 0;
+        this.lastSaveTime = System.nanoTime();
+        this.runningSave = this.saver.submit(() -> this.save(snapshot));
+        return this.runningSave;
+    }
+
+    /**
+     * waits for the saves started so far to be done, and stops the service
+     *
+     * @param timeout the longest time to wait
+     * @return true if every save was done in time
+     */
+    public boolean shutdown(Duration timeout) {
+        this.saver.shutdown();
+        try {
+            return this.saver.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException eInterrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return false if the last save that was done failed
+     */
+    public boolean lastSaveSucceeded() {
+        return this.lastSaveSucceeded;
+    }
+
+    private void saveIfDue() {
+        if (this.eventManager == null || this.changes == 0 ||
+                (this.runningSave != null && !this.runningSave.isDone())) {
+            return;
+        }
+        if (this.changes >= this.changesBeforeSave ||
+                System.nanoTime() - this.lastSaveTime >= this.interval.toNanos()) {
+            this.saveNow();
+        }
+    }
+
+    /**
+     * @return true if the recursions were modified since this was last called
+     */
+    private boolean noticeRecursionChanges() {
+        if (this.eventManager == null ||
+                this.recursionModificationCount == this.eventManager.getRepeatedEventManager().getModificationCount()) {
+            return false;
+        }
+        this.recursionModificationCount = this.eventManager.getRepeatedEventManager().getModificationCount();
+        this.recursionsChanged = true;
+        return true;
+    }
+
+    private void encode(Event event) {
+        try {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            this.codec.writeEvents(Map.of(this.userID, List.of(event)), encoded);
+            this.encodedEvents.put(event.getID(), encoded.toByteArray());
+        } catch (IOException eIO) {
+            this.listener.saveFailed("snapshot", eIO);
+        }
+        this.unplace(event.getID());
+        YearMonth month = MonthPartitions.monthOf(event);
+        this.eventMonths.put(event.getID(), month);
+        this.monthEvents.computeIfAbsent(month, k -> new HashSet<>()).add(event.getID());
+        this.changedMonths.add(month);
+    }
+
+    /**
+     * forgets the month of the event, marking it as changed
+     */
+    private void unplace(UUID eventID) {
+        YearMonth month = this.eventMonths.remove(eventID);
+        if (month != null) {
+            this.monthEvents.get(month).remove(eventID);
+            if (this.monthEvents.get(month).isEmpty()) {
+                this.monthEvents.remove(month);
+            }
+            this.changedMonths.add(month);
+        }
+    }
+
+    /**
+     * @return the data changed since the last save as it is now, none of which is changed afterwards
+     */
+    private Snapshot snapshot() throws IOException {
+        this.noticeRecursionChanges();
+        Map<YearMonth, List<byte[]>> events = null;
+        byte[] recursions = null;
+        boolean allMonths = this.allMonthsChanged || this.allMonthsUnsaved;
+        Set<YearMonth> months = new HashSet<>(allMonths ? this.monthEvents.keySet() : this.changedMonths);
+        months.addAll(this.monthsUnsaved);
+        if (this.eventManager != null && (allMonths || !months.isEmpty())) {
+            events = new HashMap<>();
+            for (YearMonth month : months) {
+                List<byte[]> encoded = new ArrayList<>();
+                for (UUID eventID : this.monthEvents.getOrDefault(month, Set.of())) {
+                    encoded.add(this.encodedEvents.get(eventID));
+                }
+                events.put(month, encoded);
+            }
+        }
+        if (this.eventManager != null && (this.recursionsChanged || this.recursionsUnsaved)) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            this.codec.writeRecursiveEvents(Map.of(this.userID,
+                    this.eventManager.getRepeatedEventManager().getRecursiveEventMap()), encoded);
+            recursions = encoded.toByteArray();
+        }
+        Set<UUID> changedUsers = this.userManager.takeChangedUsers();
+        changedUsers.addAll(this.usersUnsaved);
+        this.usersUnsaved.removeAll(changedUsers);
+        List<User> users = new ArrayList<>();
+        for (UUID changed : changedUsers) {
+            User user = this.userManager.getUserInfo().get(changed);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        ByteArrayOutputStream encodedUsers = new ByteArrayOutputStream();
+        this.codec.writeUsers(users, encodedUsers);
+
+        this.allMonthsChanged = false;
+        this.changedMonths.clear();
+        this.recursionsChanged = false;
+        this.allMonthsUnsaved = false;
+        this.monthsUnsaved.removeAll(months);
+        this.recursionsUnsaved = false;
+        return new Snapshot(this.userID, events, allMonths, recursions, changedUsers, encodedUsers.toByteArray(),
+                this.journal.getSequence());
+    }
+
+    /**
+     * writes the snapshot to the files and uploads them, on the saving thread
+     */
+    private void save(Snapshot snapshot) {
+        int step = 0;
+        try {
+            if (snapshot.events != null) {
+                Map<YearMonth, List<Event>> months = new HashMap<>();
+                for (Map.Entry<YearMonth, List<byte[]>> month : snapshot.events.entrySet()) {
+                    List<Event> events = new ArrayList<>();
+                    for (byte[] encoded : month.getValue()) {
+                        events.addAll(this.codec.readEvents(new ByteArrayInputStream(encoded)).get(snapshot.userID));
+                    }
+                    months.put(month.getKey(), events);
+                }
+                this.ioSerializable.writeEventMonths(snapshot.userID, months, snapshot.allMonths);
+            }
+            this.listener.saveProgressed(STEPS[step], ++step, STEPS.length);
+
+            if (snapshot.recursions != null) {
+                Map<UUID, RecursiveEvent> recursions = this.codec.readRecursiveEvents(
+                        new ByteArrayInputStream(snapshot.recursions)).get(snapshot.userID);
+                this.ioSerializable.writeRecursiveEvents(snapshot.userID, recursions);
+            }
+            this.listener.saveProgressed(STEPS[step], ++step, STEPS.length);
+
+            if (!snapshot.userIDs.isEmpty()) {
+                this.ioSerializable.writeChangedUsers(this.codec.readUsers(new ByteArrayInputStream(snapshot.users)));
+            }
+            this.listener.saveProgressed(STEPS[step], ++step, STEPS.length);
+
+            if (this.upload) {
+                if (!this.ioSerializable.saveToDropbox()) {
+                    throw new IOException("Cannot upload to Dropbox.");
+                }
+                this.listener.saveProgressed(STEPS[step], ++step, STEPS.length);
+                if (snapshot.userID != null) {
+                    this.journal.clear(snapshot.userID, snapshot.journalSequence);
+                }
+            }
+            this.lastSaveSucceeded = true;
+            this.listener.saveFinished();
+        } catch (IOException | RuntimeException e) {
+            this.lastSaveSucceeded = false;
+            if (snapshot.events != null) {
+                this.allMonthsUnsaved |= snapshot.allMonths;
+                this.monthsUnsaved.addAll(snapshot.events.keySet());
+            }
+            this.recursionsUnsaved |= snapshot.recursions != null;
+            this.usersUnsaved.addAll(snapshot.userIDs);
+            this.listener.saveFailed(STEPS[step], e);
+        }
+    }
+
+    /**
+     * The data of one save: the events of the changed months and the recursions of a user, each null if unchanged,
+     * and the changed users, encoded when the save was started.
+     */
+    private static class Snapshot {
+        private final UUID userID;
+        private final Map<YearMonth, List<byte[]>> events;
+        private final boolean allMonths;
+        private final byte[] recursions;
+        private final Set<UUID> userIDs;
+        private final byte[] users;
+        private final long journalSequence;
+
+        Snapshot(UUID userID, Map<YearMonth, List<byte[]>> events, boolean allMonths, byte[] recursions,
+                 Set<UUID> userIDs, byte[] users, long journalSequence) {
+            this.userID = userID;
+            this.events = events;
+            this.allMonths = allMonths;
+            this.recursions = recursions;
+            this.userIDs = userIDs;
+            this.users = users;
+            this.journalSequence = journalSequence;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package gateways;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A file holding the saved data of every user as a separate shard, so that the data of one user is read without
+ * reading that of the others, and the shards of the other users are written back as they are when one user's data
+ * is saved.
+ * <p>
+ * The file starts with the bytes "CALS", the format version and a manifest of the ID of every user with the stamp and
+ * the length of their shard, followed by the shards in the same order. What is in a shard is up to the caller.
+ * <p>
+ * The stamp of a shard is a random number drawn whenever the shard is written with different contents and kept as
+ * it is otherwise, so two copies of a file tell which shards changed from their manifests alone. Files of version 1
+ * have no stamps; their shards read as stamped NO_STAMP.
+ *
+ * @see IOSerializable
+ */
+public class UserShards {
+    public static final int FORMAT_VERSION = 2;
+    public static final long NO_STAMP = 0;
+    private static final int MAGIC = 0x43414C53; // "CALS"
+    private static final int MAGIC_LENGTH = 4;
+
+    private UserShards() {
+    }
+
+    /**
+     * @param in a stream supporting mark and reset
+     * @return true if the stream starts with the header of a sharded file. The stream is reset to where it was
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean isSharded(InputStream in) throws IOException {
+        in.mark(MAGIC_LENGTH);
+        byte[] start = in.readNBytes(MAGIC_LENGTH);
+        in.reset();
+        return start.length == MAGIC_LENGTH && new DataInputStream(new ByteArrayInputStream(start)).readInt() == MAGIC;
+    }
+
+    /**
+     * reads the shard of one user, skipping over the shards before it
+     *
+     * @param file   a sharded file
+     * @param userID the ID of the user
+     * @return the shard of the user, or null if the file has none for this user
+     * @throws IOException if the file cannot be read or is not sharded
+     */
+    public static byte[] readShard(File file, UUID userID) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            Map<UUID, long[]> manifest = readManifest(input);
+            long offset = input.getFilePointer();
+            for (Map.Entry<UUID, long[]> entry : manifest.entrySet()) {
+                int length = (int) entry.getValue()[1];
+                if (entry.getKey().equals(userID)) {
+                    byte[] shard = new byte[length];
+                    input.seek(offset);
+                    input.readFully(shard);
+                    return shard;
+                }
+                offset += length;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * maps the shard of one user into memory read-only and returns a stream that reads it in place, without copying the
+     * shard onto the heap first. The mapping lasts until the stream is garbage collected, closing the stream does not
+     * release it
+     *
+     * @param file   a sharded file
+     * @param userID the ID of the user
+     * @return a stream over the mapped shard of the user, or null if the file has none for this user
+     * @throws IOException if the file cannot be read or mapped or is not sharded
+     */
+    public static InputStream openShard(File file, UUID userID) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            Map<UUID, long[]> manifest = readManifest(input);
+            long offset = input.getFilePointer();
+            for (Map.Entry<UUID, long[]> entry : manifest.entrySet()) {
+                long length = entry.getValue()[1];
+                if (entry.getKey().equals(userID)) {
+                    return new MappedShardStream(input.getChannel().map(FileChannel.MapMode.READ_ONLY, offset,
+                            length));
+                }
+                offset += length;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * reads the shards of every user without looking into them
+     *
+     * @param in a sharded file
+     * @return map of user IDs to their shard, in the order of the file
+     * @throws IOException if the file cannot be read or is not sharded
+     */
+    public static Map<UUID, byte[]> readShards(InputStream in) throws IOException {
+        return readShards(in, new HashMap<>());
+    }
+
+    /**
+     * reads the shards of every user without looking into them, along with their stamps
+     *
+     * @param in     a sharded file
+     * @param stamps filled with the stamp of every shard by user ID
+     * @return map of user IDs to their shard, in the order of the file
+     * @throws IOException if the file cannot be read or is not sharded
+     */
+    public static Map<UUID, byte[]> readShards(InputStream in, Map<UUID, Long> stamps) throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        Map<UUID, long[]> manifest = readManifest(input);
+        Map<UUID, byte[]> shards = new LinkedHashMap<>();
+        for (Map.Entry<UUID, long[]> entry : manifest.entrySet()) {
+            byte[] shard = new byte[(int) entry.getValue()[1]];
+            input.readFully(shard);
+            shards.put(entry.getKey(), shard);
+            stamps.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return shards;
+    }
+
+    /**
+     * reads the stamps of the shards from the manifest, without reading the shards
+     *
+     * @param in a sharded file
+     * @return map of user IDs to the stamp of their shard, in the order of the file
+     * @throws IOException if the file cannot be read or is not sharded
+     */
+    public static Map<UUID, Long> readStamps(InputStream in) throws IOException {
+        Map<UUID, Long> stamps = new LinkedHashMap<>();
+        for (Map.Entry<UUID, long[]> entry : readManifest(new DataInputStream(in)).entrySet()) {
+            stamps.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return stamps;
+    }
+
+    /**
+     * @return a new stamp for a shard whose contents changed, never NO_STAMP
+     */
+    public static long newStamp() {
+        long stamp;
+        do {
+            stamp = ThreadLocalRandom.current().nextLong();
+        } while (stamp == NO_STAMP);
+        return stamp;
+    }
+
+    /**
+     * writes the manifest and the shards, every shard with a new stamp
+     *
+     * @param shards map of user IDs to their shard
+     * @param out    the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeShards(Map<UUID, byte[]> shards, OutputStream out) throws IOException {
+        writeShards(shards, new HashMap<>(), out);
+    }
+
+    /**
+     * writes the manifest and the shards
+     *
+     * @param shards map of user IDs to their shard
+     * @param stamps map of user IDs to the stamp of their shard; a shard without one gets a new stamp
+     * @param out    the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeShards(Map<UUID, byte[]> shards, Map<UUID, Long> stamps, OutputStream out)
+            throws IOException {
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        output.writeInt(shards.size());
+        for (Map.Entry<UUID, byte[]> entry : shards.entrySet()) {
+            output.writeLong(entry.getKey().getMostSignificantBits());
+            output.writeLong(entry.getKey().getLeastSignificantBits());
+            Long stamp = stamps.get(entry.getKey());
+            output.writeLong(stamp == null ? newStamp() : stamp);
+            output.writeInt(entry.getValue().length);
+        }
+        for (byte[] shard : shards.values()) {
+            output.write(shard);
+        }
+        output.flush();
+    }
+
+    /**
+     * @return map of user IDs to the stamp and the length of their shard
+     */
+    private static Map<UUID, long[]> readManifest(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a sharded file.");
+        }
+        int version = input.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Cannot read sharded file version " + version + ", the latest known is " +
+                    FORMAT_VERSION + ".");
+        }
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Damaged manifest.");
+        }
+        Map<UUID, long[]> manifest = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            UUID userID = new UUID(input.readLong(), input.readLong());
+            long stamp = version >= 2 ? input.readLong() : NO_STAMP;
+            int length = input.readInt();
+            if (length < 0) {
+                throw new IOException("Damaged manifest.");
+            }
+            manifest.put(userID, new long[]{stamp, length});
+        }
+        return manifest;
+    }
+
+    /**
+     * a stream over a mapped shard, reading from the mapping in place
+     */
+    private static class MappedShardStream extends InputStream {
+        private final ByteBuffer shard;
+
+        private MappedShardStream(ByteBuffer shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public int read() {
+            return this.shard.hasRemaining() ? this.shard.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.shard.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, this.shard.remaining());
+            this.shard.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.shard.remaining()));
+            this.shard.position(this.shard.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.shard.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            this.shard.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            this.shard.reset();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package helpers;
+
+import entities.Event;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Finds the groups of conflicting events in a list of events with one sweep over the events sorted by start time,
+ * instead of comparing every pair of events.
+ * Two events conflict in the same way as in IsOverlapped: one of them starts or ends strictly within the other, or
+ * they have the same start and end time. An event without a start time is taken to start at its end time.
+ * A conflict group is a set of events connected by conflicts: every event of the group conflicts with at least one
+ * other event of the group, and with no event outside of it.
+ *
+ * @see IsOverlapped
+ */
+public class ConflictSweep {
+    private final EventHelper eventHelper = new EventHelper();
+
+    /**
+     * computes the conflict groups of the events in O(n log n)
+     *
+     * @param events the events to look for conflicts in, each event at most once
+     * @return list of conflict groups, each with at least two events in time order, ordered by their first event
+     */
+    public List<List<Event>> getConflictGroups(List<Event> events) {
+        List<Event> intervals = new ArrayList<>();
+        List<Event> instants = new ArrayList<>();
+        for (Event event : events) {
+            if (eventHelper.startTimeGetter(event).isBefore(event.getEndTime())) {
+                intervals.add(event);
+            } else {
+                instants.add(event);
+            }
+        }
+        intervals = eventHelper.timeOrder(intervals);
+        instants = eventHelper.timeOrder(instants);
+
+        // an interval belongs to the current group if it starts strictly before the latest end of the group, which
+        // means it overlaps the event with that end. The start times of the groups are increasing and the groups
+        // do not overlap
+        List<List<Event>> groups = new ArrayList<>();
+        List<LocalDateTime> groupStarts = new ArrayList<>();
+        List<LocalDateTime> groupEnds = new ArrayList<>();
+        for (Event interval : intervals) {
+            LocalDateTime start = eventHelper.startTimeGetter(interval);
+            int last = groups.size() - 1;
+            if (last >= 0 && start.isBefore(groupEnds.get(last))) {
+                groups.get(last).add(interval);
+                if (interval.getEndTime().isAfter(groupEnds.get(last))) {
+                    groupEnds.set(last, interval.getEndTime());
+                }
+            } else {
+                groups.add(new ArrayList<>(List.of(interval)));
+                groupStarts.add(start);
+                groupEnds.add(interval.getEndTime());
+            }
+        }
+
+        // an instant conflicts with the intervals of a group if it is strictly within the group, since the group
+        // is covered by its intervals, and with the other instants at the same time
+        List<List<Event>> instantGroups = new ArrayList<>();
+        int i = 0;
+        while (i < instants.size()) {
+            LocalDateTime time = instants.get(i).getEndTime();
+            int j = i;
+            while (j < instants.size() && instants.get(j).getEndTime().isEqual(time)) {
+                j++;
+            }
+            int group = this.groupContaining(groupStarts, groupEnds, time);
+            if (group >= 0) {
+                groups.get(group).addAll(instants.subList(i, j));
+            } else if (j - i >= 2) {
+                instantGroups.add(new ArrayList<>(instants.subList(i, j)));
+            }
+            i = j;
+        }
+
+        List<List<Event>> conflictGroups = new ArrayList<>();
+        for (List<Event> group : groups) {
+            if (group.size() >= 2) {
+                conflictGroups.add(eventHelper.timeOrder(group));
+            }
+        }
+        conflictGroups.addAll(instantGroups);
+        conflictGroups.sort(Comparator.comparing(group -> eventHelper.startTimeGetter(group.get(0))));
+        return conflictGroups;
+    }
+
+    /**
+     * binary search for the group strictly containing time
+     *
+     * @return the index of the group, or -1 if there is none
+     */
+    private int groupContaining(List<LocalDateTime> groupStarts, List<LocalDateTime> groupEnds, LocalDateTime time) {
+        int low = 0;
+        int high = groupStarts.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (!groupStarts.get(middle).isBefore(time)) {
+                high = middle - 1;
+            } else if (!groupEnds.get(middle).isAfter(time)) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -5,6 +5,7 @@ import entities.Event;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class EventHelper implements Serializable {
@@ -15,14 +16,34 @@ public class EventHelper implements Serializable {
      * @return the input list, time ordered
      */
     public List<Event> timeOrder(List<Event> events) {
-        List<Event> sorted = new ArrayList<>();
-        events = new ArrayList<>(events);
-        while (!(events.isEmpty())) {
-            sorted.add(earliest(events));
-            events.remove(earliest(events));
+        List<Event> sorted = new ArrayList<>(events);
+        // List.sort is a stable merge sort, so events with the same time keep their order in the input list
+        sorted.sort(Comparator.comparing(this::startTimeGetter));
+        return sorted;
+    }
+
+    /**
+     * merges two lists of events that are each already ordered chronologically into one chronologically ordered list.
+     * Events of the first list come before events of the second with the same time
+     *
+     * @param first  a time ordered list of events
+     * @param second a time ordered list of events
+     * @return a new list with all events of both lists, time ordered
+     */
+    public List<Event> mergeTimeOrdered(List<Event> first, List<Event> second) {
+        List<Event> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            if (startTimeGetter(second.get(j)).isBefore(startTimeGetter(first.get(i)))) {
+                merged.add(second.get(j++));
+            } else {
+                merged.add(first.get(i++));
+            }
         }
-        events = sorted;
-        return events;
+        merged.addAll(first.subList(i, first.size()));
+        merged.addAll(second.subList(j, second.size()));
+        return merged;
     }
 
     /**
@@ -1,32 +1,27 @@
 package helpers;
 
-import entities.Event;
+import usecases.events.EventHandleRegistry;
 import usecases.events.EventManager;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 /**
  * Converts UUID into integer ID for better viewing experience
+ * The integer IDs are the handles of the EventHandleRegistry of the EventManager, so they are the same for every
+ * converter of an EventManager and do not change when events are edited
  * @author Seo Won Yi
+ * @see EventHandleRegistry
  */
 
 public class EventIDConverter {
-    private final Map<Integer, UUID> eventID;
+    private final EventHandleRegistry handleRegistry;
 
     /**
-     * Create a map that links integers to the UUID of events
+     * Create a converter using the handles of the events of the EventManager
      * @param eventManager EventManager object to get event information from
      */
     public EventIDConverter(EventManager eventManager) {
-        Map<Integer, UUID> tempMap = new HashMap<>();
-        List<Event> eventList = eventManager.getAllEventsFlatSplit();
-        for (int i = 1; i <= eventList.size(); i++) {
-            tempMap.put(i, eventManager.getDefaultEventInfoGetter().getID(eventList.get(i - 1)));
-        }
-        this.eventID = tempMap;
+        this.handleRegistry = eventManager.getHandleRegistry();
     }
 
     /**
@@ -35,24 +30,24 @@ public class EventIDConverter {
      * @return null if option is not a key, otherwise return a corresponding value (UUID)
      */
     public UUID getUUIDFromInt(int option) {
-        return this.eventID.getOrDefault(option, null);
+        return this.handleRegistry.getID(option);
     }
 
     /**
      * Using the mapping, get integer that corresponds to the given UUID option
      * @param option UUID choice
-     * @return 0 if option is not a key, otherwise return a corresponding value (Integer)
+     * @return the integer of the event, given to it now if it did not have one
      */
     public int getIntFromUUID(UUID option) {
-        for (int key : this.eventID.keySet()) {
-            if (this.eventID.get(key).equals(option)) {
-                return key;
-            }
-        }
-        return 0;
+        return this.handleRegistry.getHandle(option);
     }
 
-    public Map<Integer, UUID> getEventIDMap() {
-        return this.eventID;
+    /**
+     * Check whether an integer corresponds to an event
+     * @param option integer choice
+     * @return true if there is an event for this integer
+     */
+    public boolean containsInt(int option) {
+        return getUUIDFromInt(option) != null;
     }
 }
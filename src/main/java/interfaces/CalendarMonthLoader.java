@@ -0,0 +1,24 @@
+package interfaces;
+
+import entities.OurCalendar;
+
+import java.time.YearMonth;
+
+public interface CalendarMonthLoader {
+    /**
+     * fills the calendar of a month the first time it is asked for (and again after it was evicted)
+     *
+     * @param month    the month of the calendar
+     * @param calendar the empty calendar of that month, to be filled with the IDs of its events
+     * @see usecases.calendar.CalendarManager
+     */
+    void loadMonth(YearMonth month, OurCalendar calendar);
+
+    /**
+     * drops what was kept about the calendar of a month when it is evicted, as it is loaded again if it is asked for
+     *
+     * @param month the month whose calendar was evicted
+     */
+    default void monthEvicted(YearMonth month) {
+    }
+}
@@ -2,7 +2,9 @@ package interfaces;
 
 import entities.Event;
 
+import java.time.LocalDateTime;
 import java.time.Period;
+import java.util.Iterator;
 import java.util.List;
 
 public interface DateGetter {
@@ -15,6 +17,71 @@ public interface DateGetter {
      */
     List<Event> listOfEventsInTheCycles(List<Event> events);
 
+    /**
+     * Given a recursion pattern, this method returns the events in the recursion one at a time, in the same order as
+     * listOfEventsInTheCycles, creating each event only when it is asked for. Implementations should override this
+     * so that the whole recursion does not have to be computed to look at its first few events; the default simply
+     * iterates over listOfEventsInTheCycles.
+     *
+     * @param events the list of events in the first cycle of the recursion.
+     * @return an iterator over the events in the whole recursion, which may never end if the recursion has no end date
+     */
+    default Iterator<Event> occurrenceIterator(List<Event> events){
+        return listOfEventsInTheCycles(events).iterator();
+    }
+
+    /**
+     * Same as occurrenceIterator, but starting at the event at index fromIndex of the recursion. Implementations
+     * should override this to skip to fromIndex without computing the events before it.
+     *
+     * @param events the list of events in the first cycle of the recursion.
+     * @param fromIndex the index of the first event to return.
+     * @return an iterator over the events in the recursion from fromIndex on
+     */
+    default Iterator<Event> occurrenceIterator(List<Event> events, long fromIndex){
+        Iterator<Event> occurrences = occurrenceIterator(events);
+        for (long i = 0; i < fromIndex && occurrences.hasNext(); i++){
+            occurrences.next();
+        }
+        return occurrences;
+    }
+
+    /**
+     * @param events the list of events in the first cycle of the recursion.
+     * @param index the index of an event in the recursion.
+     * @return the event at this index in the recursion, or null if the recursion has less events
+     */
+    default Event occurrence(List<Event> events, long index){
+        Iterator<Event> occurrences = occurrenceIterator(events, index);
+        return occurrences.hasNext() ? occurrences.next() : null;
+    }
+
+    /**
+     * @param events the list of events in the first cycle of the recursion.
+     * @param time any time.
+     * @return the index of the first event of the recursion that ends at or after time, or the number of events in
+     * the recursion if there is none. The default goes through the events before it; implementations should override
+     * this to compute it directly.
+     */
+    default long indexOfFirstOccurrenceAtOrAfter(List<Event> events, LocalDateTime time){
+        Iterator<Event> occurrences = occurrenceIterator(events);
+        long index = 0;
+        while (occurrences.hasNext() && occurrences.next().getEndTime().isBefore(time)){
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @param events the list of events in the first cycle of the recursion.
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @return the number of events in the recursion that end in [from, to)
+     */
+    default long numberOfOccurrencesBetween(List<Event> events, LocalDateTime from, LocalDateTime to){
+        return Math.max(0, indexOfFirstOccurrenceAtOrAfter(events, to) - indexOfFirstOccurrenceAtOrAfter(events, from));
+    }
+
     /**
      *
      * @param period the period which the scalar multiplies
@@ -22,13 +89,7 @@ public interface DateGetter {
      * @return Returns the period corresponding to adding "period" a number "scalar" of times to itself.
      */
     default Period periodMultiplicationByScalar(Period period, int scalar){
-        int i = 0;
-        Period period1 = period;
-        while(i < scalar){
-            period1 = period1.plus(period);
-            i++;
-        }
-        return period1;
+        return period.multipliedBy(scalar + 1);
     }
 
 
@@ -0,0 +1,29 @@
+package interfaces;
+
+public interface PersistenceListener {
+    /**
+     * called from the saving thread when a step of a save is done
+     *
+     * @param step       what was just done
+     * @param stepsDone  the number of steps of this save done so far
+     * @param totalSteps the number of steps of this save
+     * @see gateways.PersistenceService
+     */
+    default void saveProgressed(String step, int stepsDone, int totalSteps) {
+    }
+
+    /**
+     * called from the saving thread once every step of a save is done
+     */
+    default void saveFinished() {
+    }
+
+    /**
+     * called from the saving thread when a save fails. The steps after it are not done and the journal keeps the
+     * changes until a later save succeeds
+     *
+     * @param step      the step that failed
+     * @param exception why it failed
+     */
+    void saveFailed(String step, Exception exception);
+}
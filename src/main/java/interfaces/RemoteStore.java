@@ -0,0 +1,34 @@
+package interfaces;
+
+import java.io.IOException;
+
+/**
+ * A place outside of this computer where the saved files are kept, by name. The names may contain '/' to put the
+ * data in folders.
+ *
+ * @see gateways.ChunkedSync
+ */
+public interface RemoteStore {
+    /**
+     * @param name the name the data was uploaded under
+     * @return the data, or null if nothing was uploaded under this name
+     * @throws IOException if the data cannot be downloaded
+     */
+    byte[] download(String name) throws IOException;
+
+    /**
+     * stores data under name, replacing what was there
+     *
+     * @param name the name of the data
+     * @param data the data to store
+     * @throws IOException if the data cannot be uploaded
+     */
+    void upload(String name, byte[] data) throws IOException;
+
+    /**
+     * @param name the name of the data
+     * @return true if something was uploaded under this name
+     * @throws IOException if the store cannot be reached
+     */
+    boolean exists(String name) throws IOException;
+}
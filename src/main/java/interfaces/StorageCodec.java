@@ -0,0 +1,63 @@
+package interfaces;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface StorageCodec {
+    /**
+     * writes the events of every user to out
+     *
+     * @param events map of user IDs to the events of that user
+     * @param out    the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    void writeEvents(Map<UUID, List<Event>> events, OutputStream out) throws IOException;
+
+    /**
+     * @param in the stream to read from, left open
+     * @return map of user IDs to the events of that user, as written by writeEvents
+     * @throws IOException if the stream cannot be read or is not in this format
+     */
+    Map<UUID, List<Event>> readEvents(InputStream in) throws IOException;
+
+    /**
+     * writes the recursions of every user to out
+     *
+     * @param recursiveEvents map of user IDs to the recursions of that user by their ID
+     * @param out             the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    void writeRecursiveEvents(Map<UUID, Map<UUID, RecursiveEvent>> recursiveEvents, OutputStream out)
+            throws IOException;
+
+    /**
+     * @param in the stream to read from, left open
+     * @return map of user IDs to the recursions of that user by their ID, as written by writeRecursiveEvents
+     * @throws IOException if the stream cannot be read or is not in this format
+     */
+    Map<UUID, Map<UUID, RecursiveEvent>> readRecursiveEvents(InputStream in) throws IOException;
+
+    /**
+     * writes the users to out
+     *
+     * @param users the users to write
+     * @param out   the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    void writeUsers(List<User> users, OutputStream out) throws IOException;
+
+    /**
+     * @param in the stream to read from, left open
+     * @return the users, as written by writeUsers
+     * @throws IOException if the stream cannot be read or is not in this format
+     */
+    List<User> readUsers(InputStream in) throws IOException;
+}
@@ -3,7 +3,6 @@ package presenters.ConflictPresenters;
 import usecases.calendar.CalendarManager;
 import usecases.events.EventManager;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,15 +39,7 @@ public class MonthlyConflictDisplay extends ConflictDisplay {
      */
     @Override
     public String displayConflict() {
-        List<UUID> conflictEvent = new ArrayList<>();
-        for (int i = 1; i <= numOfDays; i++) {
-            List<UUID> tempConflictEventList = this.conflictChecker.notifyConflict(year, month, i);
-            for (UUID eventID : tempConflictEventList) {
-                if (!conflictEvent.contains(eventID)) {
-                    conflictEvent.add(eventID);
-                }
-            }
-        }
+        List<UUID> conflictEvent = this.conflictChecker.notifyConflict(year, month, 1, numOfDays);
         if (conflictEvent.size() == 0) {
             return "There is no conflict for the given month";
         }
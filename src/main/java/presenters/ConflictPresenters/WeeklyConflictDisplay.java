@@ -3,7 +3,7 @@ package presenters.ConflictPresenters;
 import usecases.calendar.CalendarManager;
 import usecases.events.EventManager;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,20 +35,13 @@ public class WeeklyConflictDisplay extends ConflictDisplay {
     }
 
     /**
-     * Display the conflicted events names within a week
+     * Display the conflicted events names within a week, which may go over to the next month
      * @return the conflicted events names
      */
     @Override
     public String displayConflict() {
-        List<UUID> conflictEvent = new ArrayList<>();
-        for (int i = date; i <= date + 6; i++) {
-            List<UUID> tempConflictEventList = this.conflictChecker.notifyConflict(year, month, i);
-            for (UUID eventID : tempConflictEventList) {
-                if (!conflictEvent.contains(eventID)) {
-                    conflictEvent.add(eventID);
-                }
-            }
-        }
+        LocalDate firstDay = LocalDate.of(year, month, date);
+        List<UUID> conflictEvent = this.conflictChecker.notifyConflict(firstDay, firstDay.plusDays(6));
         if (conflictEvent.size() == 0) {
             return "There is no conflict for the given week";
         }
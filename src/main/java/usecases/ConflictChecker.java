@@ -1,14 +1,15 @@
 package usecases;
 
+import entities.Event;
 import entities.OurCalendar;
-import helpers.IsOverlapped;
+import helpers.ConflictSweep;
 import usecases.calendar.CalendarManager;
+import usecases.events.ConflictIndex;
 import usecases.events.EventManager;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
 
 /**
  * Check conflict for given timeline using the information from CalendarManager and EventManager
@@ -20,6 +21,7 @@ import java.util.UUID;
 public class ConflictChecker {
     private final EventManager eventManager;
     private final CalendarManager calendarManager;
+    private final ConflictSweep conflictSweep = new ConflictSweep();
 
     /**
      * initialize the conflict checker class
@@ -40,88 +42,152 @@ public class ConflictChecker {
      * @return a list of conflicted event IDs
      */
     public List<UUID> notifyConflict(int year, int month, int date) {
-        List<UUID> conflictEventList = new ArrayList<>();
-        int adjustedMonth = this.calendarManager.adjustMonth(year, month);
-        int currentMonth = this.calendarManager.getCurrentMonth();
-        if (adjustedMonth == currentMonth) {
-            OurCalendar currentCalendar = this.calendarManager.getCurrentCalendar();
-            updatedConflict(date, conflictEventList, currentCalendar);
+        return notifyConflict(year, month, date, date);
+    }
+
+    /**
+     * Look up the events of the given year and month from the first date to the last date that conflict with another
+     * event of that range, in the ConflictIndex of the EventManager. Repeated events are not in the index: if there
+     * are any in the range, the conflicts of the range are also found with a sweep
+     * return the list of conflicted events' IDs, in the order they are in the calendar
+     * @param year given year
+     * @param month given month
+     * @param firstDate first date of the range
+     * @param lastDate last date of the range (inclusive)
+     * @return a list of conflicted event IDs
+     * @see usecases.events.ConflictIndex
+     */
+    public List<UUID> notifyConflict(int year, int month, int firstDate, int lastDate) {
+        return notifyConflict(getEventIDList(year, month, firstDate, lastDate));
+    }
+
+    /**
+     * Look up the events from the first day to the last day that conflict with another event of that range, as
+     * notifyConflict does for the dates of one month. The range may go over into other months
+     * @param firstDay first day of the range
+     * @param lastDay last day of the range (inclusive)
+     * @return a list of conflicted event IDs
+     */
+    public List<UUID> notifyConflict(LocalDate firstDay, LocalDate lastDay) {
+        return notifyConflict(getEventIDList(firstDay, lastDay));
+    }
+
+    /**
+     * Look up the events of eventIDList that conflict with another of them
+     * @param eventIDList IDs of the events of a range, in the order they are in the calendar
+     * @return a list of conflicted event IDs
+     */
+    private List<UUID> notifyConflict(List<UUID> eventIDList) {
+        Set<UUID> inRange = new HashSet<>(eventIDList);
+        ConflictIndex conflictIndex = eventManager.getConflictIndex();
+        Set<UUID> conflicted = new HashSet<>();
+        boolean repeated = false;
+        for (UUID eventID : eventIDList) {
+            repeated |= eventManager.getRepeatedEventManager().getRecursionOf(eventID) != null;
+            if (conflictIndex.hasConflict(eventID) &&
+                    !Collections.disjoint(conflictIndex.getConflictsWith(eventID), inRange)) {
+                conflicted.add(eventID);
+            }
         }
-        else if (adjustedMonth > currentMonth && currentMonth + 4 > adjustedMonth) {
-            OurCalendar futureCalendar = this.calendarManager.getFutureCalendar().get(adjustedMonth - currentMonth - 1);
-            updatedConflict(date, conflictEventList, futureCalendar);
+        if (repeated) {
+            for (List<UUID> group : getConflictGroups(eventIDList)) {
+                conflicted.addAll(group);
+            }
         }
-        else if (adjustedMonth < currentMonth && currentMonth - 4 < adjustedMonth) {
-            OurCalendar pastCalendar = this.calendarManager.getPastCalendar().get(currentMonth - adjustedMonth - 1);
-            updatedConflict(date, conflictEventList, pastCalendar);
+        List<UUID> conflictEventList = new ArrayList<>();
+        for (UUID eventID : eventIDList) {
+            if (conflicted.contains(eventID)) {
+                conflictEventList.add(eventID);
+            }
         }
         return conflictEventList;
     }
 
     /**
-     * update conflictEventList by observing events in calendar for the specific date
-     * @param date given date to look for conflict
-     * @param conflictEventList List of conflicted events to be updated
-     * @param calendar OurCalendar object to be explored
+     * Find the groups of conflicting events of the given year and month from the first date to the last date
+     * @param year given year
+     * @param month given month
+     * @param firstDate first date of the range
+     * @param lastDate last date of the range (inclusive)
+     * @return list of groups of conflicted event IDs, each group in time order
+     * @see ConflictSweep
      */
-    private void updatedConflict(int date, List<UUID> conflictEventList, OurCalendar calendar) {
-        List<UUID> eventIDList = calendar.getCalendarMap().get(date);
-        addConflictEventID(conflictEventList, eventIDList);
-        setConflict(conflictEventList, calendar);
+    public List<List<UUID>> getConflictGroups(int year, int month, int firstDate, int lastDate) {
+        return getConflictGroups(getEventIDList(year, month, firstDate, lastDate));
     }
 
     /**
-     * If there is any conflicted events, update the calendar attributes
-     * @param conflictEventList list of conflicted events to check from
-     * @param calendar calendar to be updated
+     * Look up whether the events and work sessions (not the repeated events) of the given month conflict, without
+     * going through the calendar
+     * @param year given year
+     * @param month given month
+     * @return true if two of these events conflict during the month
+     * @see usecases.events.ConflictIndex
      */
-    private void setConflict(List<UUID> conflictEventList, OurCalendar calendar) {
-        if (conflictEventList.size() != 0) {
-            calendar.setConflict(true);
-            calendar.setConflictEvent(conflictEventList);
-        }
+    public boolean hasConflicts(int year, int month) {
+        return eventManager.getConflictIndex().hasConflicts(YearMonth.of(year, month));
     }
 
     /**
-     * Using the helper class IsOverlapped, check for conflicted events
-     * @param conflictEventList Conflicted events ID List to be updated
-     * @param eventIDList List of event IDs to consider from
+     * Look up the events and work sessions (not the repeated events) that conflict with the given event
+     * @param eventID ID of an event or work session
+     * @return set of the IDs of the events conflicting with it
+     * @see usecases.events.ConflictIndex
      */
-    private void addConflictEventID(List<UUID> conflictEventList, List<UUID> eventIDList) {
-        if (eventIDList != null && eventIDList.size() >= 2) {
-            for (int i = 0; i < eventIDList.size() - 1; i++) {
-                List<LocalDateTime> firstTimeList = getTimeList(eventIDList, i);
-                for (int j = i + 1; j < eventIDList.size(); j++) {
-                    List<LocalDateTime> secondTimeList = getTimeList(eventIDList, j);
-                    IsOverlapped isOverlapped = new IsOverlapped(firstTimeList, secondTimeList);
-                    if (isOverlapped.getResult()) {
-                        if (!conflictEventList.contains(eventIDList.get(i))) {
-                            conflictEventList.add(eventIDList.get(i));
-                        }
-                        if (!conflictEventList.contains(eventIDList.get(j))) {
-                            conflictEventList.add(eventIDList.get(j));
-                        }
-                    }
-                }
+    public Set<UUID> getConflictsWith(UUID eventID) {
+        return eventManager.getConflictIndex().getConflictsWith(eventID);
+    }
+
+    /**
+     * Find the groups of conflicting events among the given events with a single sweep
+     * @param eventIDList list of event IDs to consider from
+     * @return list of groups of conflicted event IDs
+     */
+    private List<List<UUID>> getConflictGroups(List<UUID> eventIDList) {
+        List<Event> events = new ArrayList<>();
+        for (UUID eventID : eventIDList) {
+            events.add(eventManager.get(eventID));
+        }
+        List<List<UUID>> conflictGroups = new ArrayList<>();
+        for (List<Event> group : conflictSweep.getConflictGroups(events)) {
+            List<UUID> groupID = new ArrayList<>();
+            for (Event event : group) {
+                groupID.add(event.getID());
             }
+            conflictGroups.add(groupID);
         }
+        return conflictGroups;
     }
 
     /**
-     * Helper method to evaluate time information
-     * @param eventIDList event ID list to be considered from
-     * @param index index of the event ID list that we would like to extract start and end time from
-     * @return the list of local date time (two elements, start and end time)
+     * Collect the IDs of the events in the calendar from the first date to the last date, each only once
+     * @param year given year
+     * @param month given month
+     * @param firstDate first date of the range
+     * @param lastDate last date of the range (inclusive)
+     * @return list of event IDs in the order they are in the calendar
      */
-    private List<LocalDateTime> getTimeList(List<UUID> eventIDList, int index) {
-        List<LocalDateTime> firstTimeList = new ArrayList<>();
-        LocalDateTime startTime = eventManager.get(eventIDList.get(index)).getStartTime();
-        LocalDateTime endTime = eventManager.get(eventIDList.get(index)).getEndTime();
-        if (startTime == null) {
-            startTime = endTime;
+    private List<UUID> getEventIDList(int year, int month, int firstDate, int lastDate) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return getEventIDList(yearMonth.atDay(firstDate), yearMonth.atDay(Math.min(lastDate,
+                yearMonth.lengthOfMonth())));
+    }
+
+    /**
+     * Collect the IDs of the events in the calendars from the first day to the last day, each only once
+     * @param firstDay first day of the range
+     * @param lastDay last day of the range (inclusive)
+     * @return list of event IDs in the order they are in the calendars
+     */
+    private List<UUID> getEventIDList(LocalDate firstDay, LocalDate lastDay) {
+        Set<UUID> eventIDSet = new LinkedHashSet<>();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            OurCalendar calendar = calendarManager.getCalendar(YearMonth.from(day));
+            List<UUID> eventIDList = calendar.getCalendarMap().get(day.getDayOfMonth());
+            if (eventIDList != null) {
+                eventIDSet.addAll(eventIDList);
+            }
         }
-        firstTimeList.add(startTime);
-        firstTimeList.add(endTime);
-        return firstTimeList;
+        return new ArrayList<>(eventIDSet);
     }
 }
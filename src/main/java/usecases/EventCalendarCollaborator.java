@@ -1,12 +1,9 @@
 package usecases;
 
-import entities.Event;
 import usecases.calendar.CalendarManager;
+import usecases.events.CalendarIndex;
 import usecases.events.EventManager;
 
-import java.time.LocalDate;
-import java.util.UUID;
-
 /**
  * Link EventManager and CalendarManager by adding events to the CalendarManager
  * @author Seo Won Yi
@@ -29,15 +26,12 @@ public class EventCalendarCollaborator {
     }
 
     /**
-     * add all the events to the calendar
+     * add all the events to the calendar. The calendar manager loads each month from the events the first time it
+     * is asked for, so only the events of the months that are looked at are added. The calendar is not updated when
+     * events change afterwards, use EventManager.getCalendarManager for a calendar that is
      */
     public void addAllEvents() {
-        for (Event event : this.eventManager.getAllEventsFlatSplit()) {
-            UUID eventID = this.eventManager.getDefaultEventInfoGetter().getID(event);
-            LocalDate eventDate = event.getEndTime().toLocalDate();
-            this.calendarManager.addToCalendar(eventID, eventDate.getYear(), eventDate.getMonthValue(),
-                    eventDate.getDayOfMonth());
-        }
+        this.calendarManager.setMonthLoader(new CalendarIndex(this.eventManager, this.calendarManager));
     }
 
     public CalendarManager getCalendarManager() {
@@ -7,7 +7,8 @@ import java.time.LocalTime;
 import java.util.*;
 
 /**
- * A class for editing User Entity classes and storing/accessing a list of Users in a map, with key= UUID user id
+ * A class for editing User Entity classes and storing/accessing a list of Users in a map, with key= UUID user id.
+ * Every mutator records the user it changed, so that only the changed users are saved (see takeChangedUsers)
  *
  * @author Sebin Im
  * @author Taite Cullen
@@ -17,6 +18,8 @@ import java.util.*;
 public class UserManager {
 
     private HashMap<UUID, User> userInfo;
+    // ids of the users changed since the changes were last taken
+    private final Set<UUID> changedUsers = new HashSet<>();
 
     /**
      * @param users a list of users to be entered into <code>this.userInfo</code>
@@ -36,6 +39,18 @@ public class UserManager {
      */
     public void toggleProcrastinate(UUID user) {
         this.getPreferences(user).setProcrastinate(!this.getPreferences(user).getProcrastinate());
+        this.changedUsers.add(user);
+    }
+
+    /**
+     * sets the value of procrastinate for user
+     *
+     * @param user          the id of the user to be edited
+     * @param procrastinate the new value of procrastinate
+     */
+    public void setProcrastinate(UUID user, boolean procrastinate) {
+        this.getPreferences(user).setProcrastinate(procrastinate);
+        this.changedUsers.add(user);
     }
 
     /**
@@ -81,6 +96,7 @@ public class UserManager {
         } else {
             this.getPreferences(user).setFreeTime(start, end);
         }
+        this.changedUsers.add(user);
     }
 
     /**
@@ -92,6 +108,7 @@ public class UserManager {
     public void removeFreeTime(UUID user, LocalTime start) {
         if (this.getFreeTime(user).containsKey(start)) {
             this.userInfo.get(user).getUserPreferences().removeFreeTime(start);
+            this.changedUsers.add(user);
         }
     }
 
@@ -106,6 +123,7 @@ public class UserManager {
     public void addNewUser(UUID id, String name, String username, String password) {
         User user = new User(id, name, username, password);
         this.userInfo.put(id, user);
+        this.changedUsers.add(id);
     }
 
     /**
@@ -132,7 +150,8 @@ public class UserManager {
     }
 
     /**
-     * @return the map with key=id, value=user in <code>this.userInfo</code>
+     * @return the map with key=id, value=user in <code>this.userInfo</code>. Users put in it directly are not
+     * recorded as changed
      */
     public HashMap<UUID, User> getUserInfo() {
         return this.userInfo;
@@ -145,6 +164,17 @@ public class UserManager {
      */
     public void setName(UUID currentUser, String name) {
         this.getUserInfo().get(currentUser).setName(name);
+        this.changedUsers.add(currentUser);
+    }
+
+    /**
+     * returns the ids of the users changed through this UserManager since the last call, and forgets them
+     * @return the ids of the changed users
+     */
+    public Set<UUID> takeChangedUsers() {
+        Set<UUID> changed = new HashSet<>(this.changedUsers);
+        this.changedUsers.clear();
+        return changed;
     }
 
     /**
@@ -176,6 +206,17 @@ public class UserManager {
                 current.getUserPreferences().setSpacingSameDay("short");
                 break;
         }
+        this.changedUsers.add(user);
+    }
+
+    /**
+     * sets the String spacing in this user's preferences
+     * @param user UUID of user
+     * @param spacing "none", "short", "medium" or "large"
+     */
+    public void setSpacingSameDay(UUID user, String spacing) {
+        this.getPreferences(user).setSpacingSameDay(spacing);
+        this.changedUsers.add(user);
     }
 
     /**
@@ -184,6 +225,7 @@ public class UserManager {
      */
     public void toggleEvenSpacing(UUID user) {
         this.getPreferences(user).setCram(!this.getPreferences(user).getCram());
+        this.changedUsers.add(user);
     }
 
     /**
@@ -192,5 +234,16 @@ public class UserManager {
      */
     public void toggleMorningPerson(UUID user) {
         this.getPreferences(user).setMorningPerson(!this.getPreferences(user).getMorningPerson());
+        this.changedUsers.add(user);
+    }
+
+    /**
+     * sets the truth value of MorningPerson in UserPreferences of user
+     * @param user UUID of user
+     * @param morningPerson the new truth value
+     */
+    public void setMorningPerson(UUID user, boolean morningPerson) {
+        this.getPreferences(user).setMorningPerson(morningPerson);
+        this.changedUsers.add(user);
     }
 }
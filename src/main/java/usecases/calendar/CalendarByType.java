@@ -19,22 +19,4 @@ public abstract class CalendarByType {
      */
     public abstract Map<Integer, List<UUID>> getCalendar(CalendarManager cm);
 
-    /**
-     * adjust the month according to the year
-     * if the year is higher, add the number of the months to match
-     * otherwise, subtract
-     * @param currentYear current year
-     * @param year given year input
-     * @param month current month
-     * @return adjusted month
-     */
-    protected int adjustMonth(int currentYear, int year, int month){
-        if (year > currentYear){
-            month = month + (12 * (year - currentYear));
-        }
-        else if (year < currentYear){
-            month = month - (12 * (currentYear - year));
-        }
-        return month;
-    }
 }
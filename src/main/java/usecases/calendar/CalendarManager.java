@@ -1,95 +1,109 @@
 package usecases.calendar;
 
 import entities.OurCalendar;
+import interfaces.CalendarMonthLoader;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 
 /**
  * Use case of OurCalendar class that will be used for various calendar related classes
+ * The calendars are kept as one OurCalendar per month (a shard), created the first time a month is asked for and
+ * filled by the CalendarMonthLoader if there is one. Once there are more shards than the budget, the least recently
+ * used ones are evicted; they are created and loaded again if they are asked for later, so IDs added by hand with
+ * addToCalendar to an evicted month are lost.
  * @author Seo Won Yi
  * @author Shahzada Muhammad Shameel Farooq
  * @see OurCalendar
+ * @see CalendarMonthLoader
  */
 public class CalendarManager {
+    public static final int DEFAULT_SHARD_BUDGET = 24; // number of months kept before evicting
+    private static final int NEIGHBOURING_MONTHS = 3; // number of past and future calendars around the current one
+
     private final int currentMonth; // current month
     private final int currentDate; // current date
     private final int currentYear; // current year
-    private final OurCalendar currentCalendar; // calendar object for the current month
-    private final List<OurCalendar> futureCalendar; // List of calendar object for the next three months
-    private final List<OurCalendar> pastCalendar; //  List of calendar object for the past three months
+    private final int shardBudget; // maximum number of months kept
+    private final LinkedHashMap<YearMonth, OurCalendar> shards; // calendars by month, least recently used first
+    private CalendarMonthLoader monthLoader;
 
     /**
      *  Initialize the usecases.calendar.CalendarManager
      */
     public CalendarManager(){
-        Date today = new Date();
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(today);
-        int month = cal.get(Calendar.MONTH);
-        int year = cal.get(Calendar.YEAR);
-        int date = cal.get(Calendar.DAY_OF_MONTH);
-        this.currentMonth = month + 1;
-        this.currentDate = date;
-        this.currentYear = year;
-        // Create a calendar of the current month
-        this.currentCalendar = new OurCalendar(this.currentYear, this.currentMonth);
-        this.futureCalendar = createCalendarLists(cal, 1);
-        cal.setTime(today);
-        this.pastCalendar = createCalendarLists(cal, -1);
-    }
-
-    /**
-     * helper method for constructing list of OurCalendars
-     * interval determines the difference between the current and the next month
-     * ( if interval = 1, the next three month will be put in the list
-     * if interval = -1, the past three month will be put in the list)
-     * @param cal Calendar object with the current date info
-     * @param interval The difference between the current and the next month
-     * @return list of OurCalendar
-     */
-    private List<OurCalendar> createCalendarLists(Calendar cal, int interval) {
-
-        cal.add(Calendar.MONTH, interval);
-        int firstNextMonth = cal.get(Calendar.MONTH) + 1;
-        int firstNextYear = cal.get(Calendar.YEAR);
-
-        cal.add(Calendar.MONTH, interval);
-        int secondNextMonth = cal.get(Calendar.MONTH) + 1;
-        int secondNextYear = cal.get(Calendar.YEAR);
+        this(DEFAULT_SHARD_BUDGET);
+    }
 
-        cal.add(Calendar.MONTH, interval);
-        int thirdNextMonth = cal.get(Calendar.MONTH) + 1;
-        int thirdNextYear = cal.get(Calendar.YEAR);
+    /**
+     * Initialize the usecases.calendar.CalendarManager keeping at most shardBudget months
+     * @param shardBudget maximum number of month calendars kept at once, at least 1
+     */
+    public CalendarManager(int shardBudget){
+        LocalDate today = LocalDate.now();
+        this.currentMonth = today.getMonthValue();
+        this.currentDate = today.getDayOfMonth();
+        this.currentYear = today.getYear();
+        this.shardBudget = Math.max(1, shardBudget);
+        this.shards = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, OurCalendar> eldest) {
+                if (size() <= CalendarManager.this.shardBudget) {
+                    return false;
+                }
+                if (CalendarManager.this.monthLoader != null) {
+                    CalendarManager.this.monthLoader.monthEvicted(eldest.getKey());
+                }
+                return true;
+            }
+        };
+    }
 
-        // Create a calendar of the future 3 months calendar
-        OurCalendar firstNext = new OurCalendar(firstNextYear, firstNextMonth);
-        OurCalendar secondNext = new OurCalendar(secondNextYear, secondNextMonth);
-        OurCalendar thirdNext = new OurCalendar(thirdNextYear, thirdNextMonth);
+    /**
+     * set the loader filling the month calendars from now on. Calendars created before are dropped so that they are
+     * loaded again
+     * @param monthLoader loader of the month calendars, or null
+     */
+    public void setMonthLoader(CalendarMonthLoader monthLoader) {
+        this.monthLoader = monthLoader;
+        this.shards.clear();
+    }
 
-        return new ArrayList<>(){
-            {
-                add(firstNext);
-                add(secondNext);
-                add(thirdNext);
-            }};
+    /**
+     * get the calendar of the given month, creating and loading it if it is not kept
+     * @param yearMonth month of the calendar
+     * @return the OurCalendar of this month
+     */
+    public OurCalendar getCalendar(YearMonth yearMonth) {
+        OurCalendar calendar = this.shards.get(yearMonth);
+        if (calendar == null) {
+            calendar = new OurCalendar(yearMonth.getYear(), yearMonth.getMonthValue());
+            this.shards.put(yearMonth, calendar);
+            if (this.monthLoader != null) {
+                this.monthLoader.loadMonth(yearMonth, calendar);
+            }
         }
+        return calendar;
+    }
 
     /**
-     * adjust the month according to the year
-     * if the year is greater than the current year, add more month to match
-     * otherwise, subtract month to match
-     * @param year year of the given input
-     * @param month month of the given input
-     * @return adjusted month
+     * get the calendar of the given month if it is kept, without creating or loading it
+     * @param yearMonth month of the calendar
+     * @return the OurCalendar of this month, or null if it is not kept
      */
-    public int adjustMonth(int year, int month) {
-        if (year > this.currentYear){
-            month = month + 12 * (year - this.currentYear);
-        }
-        else if (year < this.currentYear){
-            month = month - 12 * (this.currentYear - year);
-        }
-        return month;
+    public OurCalendar getLoadedCalendar(YearMonth yearMonth) {
+        return this.shards.containsKey(yearMonth) ? this.shards.get(yearMonth) : null;
+    }
+
+    /**
+     * get the calendar of the given year and month, creating and loading it if it is not kept
+     * @param year year of the calendar
+     * @param month month of the calendar
+     * @return the OurCalendar of this month
+     */
+    public OurCalendar getCalendar(int year, int month) {
+        return getCalendar(YearMonth.of(year, month));
     }
 
     /**
@@ -100,22 +114,7 @@ public class CalendarManager {
      * @param date date of the event
      */
     public void addToCalendar(UUID eventID, int year, int month, int date){
-        // Gets the month as an int from event start time (month)
-        int adjustedMonth = adjustMonth(year, month);
-        if (adjustedMonth == this.currentMonth){
-            this.currentCalendar.addEventID(eventID, date);
-        }
-        for (int i = 0; i < 3; i++){
-            if (adjustedMonth == this.currentMonth + i + 1){
-                this.futureCalendar.get(i).addEventID(eventID, date);
-            }
-        }
-
-        for (int j = 0; j < 3; j++){
-            if (adjustedMonth == this.currentMonth - j - 1){
-                this.pastCalendar.get(j).addEventID(eventID, date);
-            }
-        }
+        getCalendar(year, month).addEventID(eventID, date);
     }
 
     /**
@@ -126,22 +125,8 @@ public class CalendarManager {
      * @return the list of ID's in the specific date
      */
     public List<UUID> getEventID(int year, int month, int date) {
-        int adjustedMonth = adjustMonth(year, month);
-        List<UUID> listID = new ArrayList<>();
-        if (adjustedMonth == this.currentMonth) {
-            listID.addAll(this.currentCalendar.getCalendarMap().get(date));
-        }
-        for (int i = 0; i < 3; i++){
-            if (adjustedMonth == this.currentMonth + i + 1){
-                listID.addAll(this.futureCalendar.get(i).getCalendarMap().get(date));
-            }
-        }
-        for (int j = 0; j < 3; j++){
-            if (adjustedMonth == this.currentMonth - j - 1){
-                listID.addAll(this.pastCalendar.get(j).getCalendarMap().get(date));
-            }
-        }
-        return listID;
+        List<UUID> listID = getCalendar(year, month).getCalendarMap().get(date);
+        return listID == null ? new ArrayList<>() : new ArrayList<>(listID);
     }
 
     /**
@@ -168,19 +153,53 @@ public class CalendarManager {
         return this.currentYear;
     }
 
+    /**
+     * getter for the maximum number of month calendars kept at once
+     * @return shardBudget
+     */
+    public int getShardBudget(){
+        return this.shardBudget;
+    }
+
+    /**
+     * getter for the months whose calendars are kept, least recently used first
+     * @return list of the kept months
+     */
+    public List<YearMonth> getLoadedMonths(){
+        return new ArrayList<>(this.shards.keySet());
+    }
+
     public OurCalendar getCurrentCalendar() {
-        return this.currentCalendar;
+        return getCalendar(this.currentYear, this.currentMonth);
     }
 
+    /**
+     * @return the calendars of the next three months
+     */
     public List<OurCalendar> getFutureCalendar(){
-        return this.futureCalendar;
+        return getCalendars(1);
     }
 
+    /**
+     * @return the calendars of the past three months, the latest first
+     */
     public List<OurCalendar> getPastCalendar(){
-        return this.pastCalendar;
+        return getCalendars(-1);
     }
 
+    /**
+     * helper method for constructing list of OurCalendars around the current month
+     * ( if interval = 1, the next three month will be put in the list
+     * if interval = -1, the past three month will be put in the list)
+     * @param interval The difference between the current and the next month
+     * @return list of OurCalendar
+     */
+    private List<OurCalendar> getCalendars(int interval) {
+        YearMonth current = YearMonth.of(this.currentYear, this.currentMonth);
+        List<OurCalendar> calendars = new ArrayList<>();
+        for (int i = 1; i <= NEIGHBOURING_MONTHS; i++) {
+            calendars.add(getCalendar(current.plusMonths((long) i * interval)));
+        }
+        return calendars;
+    }
 }
-
-
-
@@ -0,0 +1,216 @@
+package usecases.events;
+
+import entities.Event;
+import entities.OurCalendar;
+import interfaces.CalendarMonthLoader;
+import interfaces.EventListObserver;
+import usecases.calendar.CalendarManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Fills the month calendars of a CalendarManager with the events of an EventManager, one day bucket per day an event
+ * spans. A month is filled from the time index of the EventManager the first time it is asked for, with only the
+ * events within that month.
+ * <p>
+ * When registered as an <code>EventListObserver</code> of its EventManager, the index also applies every added,
+ * removed or changed event (and its work sessions) to the months that are loaded, so the calendars stay current
+ * without being built again. What is kept about the days events were placed on is dropped with the calendar of a month
+ * when the CalendarManager evicts it.
+ *
+ * @see EventManager#getCalendarManager
+ * @see CalendarManager
+ */
+public class CalendarIndex implements CalendarMonthLoader, EventListObserver {
+    private final EventManager eventManager;
+    private final CalendarManager calendarManager;
+    private final Map<UUID, Set<LocalDate>> placedDays = new HashMap<>();
+    private final Map<UUID, Set<UUID>> placedSessions = new HashMap<>();
+    private final Map<UUID, UUID> placedSessionOwners = new HashMap<>();
+    private final Map<YearMonth, Set<UUID>> placedMonths = new HashMap<>();
+
+    /**
+     * constructs an index filling the calendars of calendarManager. It still has to be set as the month loader of
+     * calendarManager (and registered as an observer of eventManager to follow changes)
+     *
+     * @param eventManager    the events to put in the calendars
+     * @param calendarManager the calendars to fill
+     */
+    public CalendarIndex(EventManager eventManager, CalendarManager calendarManager) {
+        this.eventManager = eventManager;
+        this.calendarManager = calendarManager;
+    }
+
+    /**
+     * drops every calendar so that they are loaded again from the events, for changes that were not applied one
+     * event at a time (such as changes to recursions)
+     */
+    public void reload() {
+        this.placedDays.clear();
+        this.placedSessions.clear();
+        this.placedSessionOwners.clear();
+        this.placedMonths.clear();
+        this.calendarManager.setMonthLoader(this);
+    }
+
+    /**
+     * @return the months events were placed in, all of which have a calendar kept by the CalendarManager
+     */
+    Set<YearMonth> getPlacedMonths() {
+        return Collections.unmodifiableSet(this.placedMonths.keySet());
+    }
+
+    /**
+     * add the events of the month to its calendar, looking up only the events within the month
+     *
+     * @param month    the month of the calendar
+     * @param calendar the empty calendar of that month
+     */
+    @Override
+    public void loadMonth(YearMonth month, OurCalendar calendar) {
+        LocalDate firstDay = month.atDay(1);
+        LocalDate dayAfterLastDay = month.plusMonths(1).atDay(1);
+        // events ending at exactly midnight of the first day still belong to the first day
+        for (Event event : this.eventManager.getEventsBetween(firstDay.atStartOfDay().minusNanos(1),
+                dayAfterLastDay.atStartOfDay())) {
+            UUID owner = this.eventManager.getOwnerID(event.getID());
+            if (owner != null) {
+                this.placeSession(owner, event.getID());
+            }
+            for (Event piece : this.eventManager.splitByDay(event)) {
+                LocalDate eventDate = piece.getEndTime().toLocalDate();
+                if (!eventDate.isBefore(firstDay) && eventDate.isBefore(dayAfterLastDay)) {
+                    this.place(event.getID(), eventDate, calendar);
+                }
+            }
+        }
+    }
+
+    /**
+     * applies the change of one event and its work sessions to the loaded calendars. Updates other than 'add',
+     * 'remove' or 'change' are ignored
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null) {
+            return;
+        }
+        if (addRemoveChange.equalsIgnoreCase("remove")) {
+            this.unplaceWithSessions(changed);
+        } else if (addRemoveChange.equalsIgnoreCase("add") || addRemoveChange.equalsIgnoreCase("change")) {
+            this.unplaceWithSessions(changed);
+            if (this.eventManager.containsID(changed.getID())) {
+                this.placeEverywhere(changed);
+                for (Event session : changed.getWorkSessions()) {
+                    this.placeEverywhere(session);
+                    this.placeSession(changed.getID(), session.getID());
+                }
+            }
+        }
+    }
+
+    /**
+     * forgets the days of the events placed in the month, as its calendar was evicted
+     *
+     * @param month the month whose calendar was evicted
+     */
+    @Override
+    public void monthEvicted(YearMonth month) {
+        Set<UUID> eventIDs = this.placedMonths.remove(month);
+        if (eventIDs == null) {
+            return;
+        }
+        for (UUID eventID : eventIDs) {
+            Set<LocalDate> days = this.placedDays.get(eventID);
+            days.removeIf(day -> YearMonth.from(day).equals(month));
+            if (days.isEmpty()) {
+                this.placedDays.remove(eventID);
+                this.unplaceSession(eventID);
+            }
+        }
+    }
+
+    /**
+     * adds the event to the bucket of every day it spans, in the months that are loaded
+     */
+    private void placeEverywhere(Event event) {
+        for (Event piece : this.eventManager.splitByDay(event)) {
+            LocalDate eventDate = piece.getEndTime().toLocalDate();
+            OurCalendar calendar = this.calendarManager.getLoadedCalendar(YearMonth.from(eventDate));
+            if (calendar != null) {
+                this.place(event.getID(), eventDate, calendar);
+            }
+        }
+    }
+
+    private void place(UUID eventID, LocalDate eventDate, OurCalendar calendar) {
+        List<UUID> bucket = calendar.getCalendarMap().get(eventDate.getDayOfMonth());
+        if (!bucket.contains(eventID)) {
+            calendar.addEventID(eventID, eventDate.getDayOfMonth());
+        }
+        this.placedDays.computeIfAbsent(eventID, k -> new HashSet<>()).add(eventDate);
+        this.placedMonths.computeIfAbsent(YearMonth.from(eventDate), k -> new HashSet<>()).add(eventID);
+    }
+
+    private void placeSession(UUID owner, UUID sessionID) {
+        this.placedSessions.computeIfAbsent(owner, k -> new HashSet<>()).add(sessionID);
+        this.placedSessionOwners.put(sessionID, owner);
+    }
+
+    /**
+     * forgets that the work session was placed for its owner
+     */
+    private void unplaceSession(UUID sessionID) {
+        UUID owner = this.placedSessionOwners.remove(sessionID);
+        Set<UUID> sessions = owner == null ? null : this.placedSessions.get(owner);
+        if (sessions != null) {
+            sessions.remove(sessionID);
+            if (sessions.isEmpty()) {
+                this.placedSessions.remove(owner);
+            }
+        }
+    }
+
+    /**
+     * removes the event, its current work sessions and the work sessions it had when it was placed from the
+     * loaded calendars
+     */
+    private void unplaceWithSessions(Event event) {
+        this.unplace(event.getID());
+        for (Event session : event.getWorkSessions()) {
+            this.unplace(session.getID());
+        }
+        Set<UUID> sessions = this.placedSessions.remove(event.getID());
+        if (sessions != null) {
+            for (UUID session : sessions) {
+                this.unplace(session);
+                this.placedSessionOwners.remove(session);
+            }
+        }
+    }
+
+    private void unplace(UUID eventID) {
+        Set<LocalDate> days = this.placedDays.remove(eventID);
+        if (days != null) {
+            for (LocalDate day : days) {
+                OurCalendar calendar = this.calendarManager.getLoadedCalendar(YearMonth.from(day));
+                if (calendar != null) {
+                    calendar.removeEventID(eventID, day.getDayOfMonth());
+                }
+                Set<UUID> placed = this.placedMonths.get(YearMonth.from(day));
+                if (placed != null) {
+                    placed.remove(eventID);
+                    if (placed.isEmpty()) {
+                        this.placedMonths.remove(YearMonth.from(day));
+                    }
+                }
+            }
+        }
+    }
+}
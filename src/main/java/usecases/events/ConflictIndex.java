@@ -0,0 +1,246 @@
+package usecases.events;
+
+import entities.Event;
+import helpers.EventHelper;
+import helpers.IsOverlapped;
+import interfaces.EventListObserver;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Keeps the conflicts between the events of an EventManager and their work sessions up to date as events are added,
+ * removed and changed, so that the conflicts of an event and whether a month has conflicts are looked up instead of
+ * recomputed. Two events conflict in the same way as in IsOverlapped and ConflictSweep.
+ * <p>
+ * The index is an <code>EventListObserver</code> of its EventManager: on every update only the edges of the changed
+ * event (and of its work sessions) are dropped and found again with the time index of the EventManager. Repeated
+ * events are not in the time index and are not covered, ConflictChecker still finds them from the calendar.
+ *
+ * @see EventManager#getConflictIndex
+ * @see helpers.ConflictSweep
+ */
+public class ConflictIndex implements EventListObserver {
+    private final EventTimeIndex timeIndex;
+    private final EventHelper eventHelper = new EventHelper();
+    private final Map<UUID, Set<UUID>> conflicts = new HashMap<>();
+    private final Map<UUID, LocalDateTime[]> indexedTimes = new HashMap<>();
+    private final Map<UUID, Set<UUID>> indexedSessions = new HashMap<>();
+    private final Map<YearMonth, Integer> conflictsPerMonth = new HashMap<>();
+
+    /**
+     * builds the index from every event currently in the time index
+     *
+     * @param timeIndex the time index of the EventManager to follow
+     */
+    ConflictIndex(EventTimeIndex timeIndex) {
+        this.timeIndex = timeIndex;
+        List<Event> events = timeIndex.getAllEvents();
+        for (Event event : events) {
+            this.recordTimes(event);
+            this.recordSessions(event);
+        }
+        for (Event event : events) {
+            this.findConflicts(event);
+        }
+    }
+
+    /**
+     * updates the conflicts of changed and of its work sessions. Updates other than 'add', 'remove' or 'change' are
+     * ignored
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null) {
+            return;
+        }
+        if (addRemoveChange.equalsIgnoreCase("remove")) {
+            this.unindexWithSessions(changed.getID());
+        } else if (addRemoveChange.equalsIgnoreCase("add") || addRemoveChange.equalsIgnoreCase("change")) {
+            this.unindexWithSessions(changed.getID());
+            if (this.timeIndex.contains(changed.getID())) {
+                this.index(changed);
+                this.recordSessions(changed);
+                for (Event session : changed.getWorkSessions()) {
+                    if (this.timeIndex.contains(session.getID())) {
+                        this.index(session);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param eventID UUID of an event or work session
+     * @return the IDs of the events conflicting with it, empty if there are none or the event is not indexed
+     */
+    public Set<UUID> getConflictsWith(UUID eventID) {
+        return new HashSet<>(this.conflicts.getOrDefault(eventID, Collections.emptySet()));
+    }
+
+    /**
+     * @param eventID UUID of an event or work session
+     * @return true if the event conflicts with at least one other event
+     */
+    public boolean hasConflict(UUID eventID) {
+        return this.conflicts.containsKey(eventID);
+    }
+
+    /**
+     * @param month any month
+     * @return true if two events conflict during this month
+     */
+    public boolean hasConflicts(YearMonth month) {
+        return this.conflictsPerMonth.containsKey(month);
+    }
+
+    /**
+     * @param eventID UUID of an event or work session
+     * @return the IDs of the events connected to it by conflicts, itself included, or an empty set if it has no
+     * conflicts
+     */
+    public Set<UUID> getConflictGroup(UUID eventID) {
+        Set<UUID> group = new HashSet<>();
+        if (!this.conflicts.containsKey(eventID)) {
+            return group;
+        }
+        Deque<UUID> toVisit = new ArrayDeque<>(List.of(eventID));
+        group.add(eventID);
+        while (!toVisit.isEmpty()) {
+            for (UUID other : this.conflicts.get(toVisit.pop())) {
+                if (group.add(other)) {
+                    toVisit.push(other);
+                }
+            }
+        }
+        return group;
+    }
+
+    /**
+     * records the current times of event and its conflicts with the other events of the time index
+     */
+    private void index(Event event) {
+        this.recordTimes(event);
+        this.findConflicts(event);
+    }
+
+    /**
+     * records which work sessions of event are in the time index, so that they are dropped with it
+     */
+    private void recordSessions(Event event) {
+        Set<UUID> sessions = new HashSet<>();
+        for (Event session : event.getWorkSessions()) {
+            if (this.timeIndex.contains(session.getID())) {
+                sessions.add(session.getID());
+            }
+        }
+        if (!sessions.isEmpty()) {
+            this.indexedSessions.put(event.getID(), sessions);
+        }
+    }
+
+    private void recordTimes(Event event) {
+        LocalDateTime start = eventHelper.startTimeGetter(event);
+        LocalDateTime end = event.getEndTime();
+        if (end.isBefore(start)) {
+            LocalDateTime temp = start;
+            start = end;
+            end = temp;
+        }
+        this.indexedTimes.put(event.getID(), new LocalDateTime[]{start, end});
+    }
+
+    /**
+     * adds the conflicts of an event whose times are recorded with the events found in the time index around it.
+     * Events found there that were not indexed (their times changed without an update) are recorded with their
+     * current times
+     */
+    private void findConflicts(Event event) {
+        LocalDateTime[] times = this.indexedTimes.get(event.getID());
+        LocalDateTime to = times[1].isAfter(times[0]) ? times[1] : times[0].plusNanos(1);
+        for (Event other : this.timeIndex.getEventsBetween(times[0], to)) {
+            if (!other.getID().equals(event.getID()) &&
+                    !this.conflicts.getOrDefault(event.getID(), Collections.emptySet()).contains(other.getID())) {
+                if (!this.indexedTimes.containsKey(other.getID())) {
+                    this.recordTimes(other);
+                }
+                if (new IsOverlapped(List.of(times), List.of(this.indexedTimes.get(other.getID()))).getResult()) {
+                    this.addConflict(event.getID(), other.getID());
+                }
+            }
+        }
+    }
+
+    /**
+     * removes the event with this ID and the work sessions indexed with it from the index
+     */
+    private void unindexWithSessions(UUID eventID) {
+        this.unindex(eventID);
+        Set<UUID> sessions = this.indexedSessions.remove(eventID);
+        if (sessions != null) {
+            for (UUID session : sessions) {
+                this.unindex(session);
+            }
+        }
+    }
+
+    /**
+     * removes the event with this ID and its conflicts from the index
+     */
+    private void unindex(UUID eventID) {
+        Set<UUID> others = this.conflicts.get(eventID);
+        if (others != null) {
+            for (UUID other : new ArrayList<>(others)) {
+                this.removeConflict(eventID, other);
+            }
+        }
+        this.indexedTimes.remove(eventID);
+    }
+
+    private void addConflict(UUID first, UUID second) {
+        this.conflicts.computeIfAbsent(first, k -> new HashSet<>()).add(second);
+        this.conflicts.computeIfAbsent(second, k -> new HashSet<>()).add(first);
+        for (YearMonth month : this.monthsOfOverlap(first, second)) {
+            this.conflictsPerMonth.merge(month, 1, Integer::sum);
+        }
+    }
+
+    private void removeConflict(UUID first, UUID second) {
+        this.removeEdge(first, second);
+        this.removeEdge(second, first);
+        for (YearMonth month : this.monthsOfOverlap(first, second)) {
+            this.conflictsPerMonth.computeIfPresent(month, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private void removeEdge(UUID from, UUID to) {
+        Set<UUID> others = this.conflicts.get(from);
+        others.remove(to);
+        if (others.isEmpty()) {
+            this.conflicts.remove(from);
+        }
+    }
+
+    /**
+     * @return the months in which the indexed times of the two events overlap
+     */
+    private List<YearMonth> monthsOfOverlap(UUID first, UUID second) {
+        LocalDateTime[] firstTimes = this.indexedTimes.get(first);
+        LocalDateTime[] secondTimes = this.indexedTimes.get(second);
+        LocalDateTime from = firstTimes[0].isAfter(secondTimes[0]) ? firstTimes[0] : secondTimes[0];
+        LocalDateTime to = firstTimes[1].isBefore(secondTimes[1]) ? firstTimes[1] : secondTimes[1];
+        if (to.isAfter(from)) {
+            to = to.minusNanos(1);
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+}
@@ -0,0 +1,129 @@
+package usecases.events;
+
+import entities.Event;
+import helpers.EventHelper;
+import interfaces.EventListObserver;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The events of an EventManager by day, as they are in the day buckets of its CalendarIndex: every event, work session
+ * and repeated event split by day, each piece under the day it ends. The events of a day are looked up in the calendar
+ * the first time the day is asked for and kept, time ordered, until an update touches that day.
+ * <p>
+ * The cache is an <code>EventListObserver</code> of its EventManager: an update drops the days the changed event and
+ * its work sessions were cached on, and the days they are on now. Every update that drops days, and every change to the
+ * recursions, moves the version on, so that views built from the cache can tell whether they are out of date.
+ *
+ * @see EventManager#getDayScheduleCache
+ * @see CalendarIndex
+ */
+public class DayScheduleCache implements EventListObserver {
+    private final EventManager eventManager;
+    private final EventHelper eventHelper = new EventHelper();
+    private final Map<LocalDate, List<Event>> days = new HashMap<>();
+    // ID of an event, or of the deadline of a work session or the recursion of a repeated event -> days it is cached on
+    private final Map<UUID, Set<LocalDate>> cachedDays = new HashMap<>();
+    private int recursionModificationCount;
+    private long version;
+
+    /**
+     * constructs an empty cache of the days of eventManager. It still has to be registered as an observer of
+     * eventManager to follow changes
+     *
+     * @param eventManager the events to cache by day
+     */
+    DayScheduleCache(EventManager eventManager) {
+        this.eventManager = eventManager;
+        this.recursionModificationCount = eventManager.getRepeatedEventManager().getModificationCount();
+    }
+
+    /**
+     * @return a number that changes whenever a day cached before may have changed
+     */
+    public long getVersion() {
+        this.checkRecursions();
+        return this.version;
+    }
+
+    /**
+     * returns the events on day, in time order: the pieces, split by day, of the events, work sessions and repeated
+     * events that end on day. Deadlines are on the day they end
+     *
+     * @param day a day
+     * @return unmodifiable time ordered list of the events on day
+     */
+    public List<Event> getDay(LocalDate day) {
+        this.checkRecursions();
+        List<Event> events = this.days.get(day);
+        if (events == null) {
+            events = new ArrayList<>();
+            for (UUID eventID : this.eventManager.getCalendarManager().getEventID(day.getYear(), day.getMonthValue(),
+                    day.getDayOfMonth())) {
+                Event event = this.eventManager.get(eventID);
+                if (event == null) {
+                    continue;
+                }
+                UUID owner = this.eventManager.getOwnerID(eventID);
+                this.cachedDays.computeIfAbsent(owner == null ? eventID : owner, k -> new HashSet<>()).add(day);
+                for (Event piece : this.eventManager.splitByDay(event)) {
+                    if (piece.getEndTime().toLocalDate().isEqual(day)) {
+                        events.add(piece);
+                    }
+                }
+            }
+            events = Collections.unmodifiableList(this.eventHelper.timeOrder(events));
+            this.days.put(day, events);
+        }
+        return events;
+    }
+
+    /**
+     * drops the days changed and its work sessions were cached on and the days they are on now. If changed is a work
+     * session or repeated event, the days cached under its deadline or recursion are dropped as well. Updates other
+     * than 'add', 'remove' or 'change' are ignored
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null || !(addRemoveChange.equalsIgnoreCase("add") ||
+                addRemoveChange.equalsIgnoreCase("remove") || addRemoveChange.equalsIgnoreCase("change"))) {
+            return;
+        }
+        Set<LocalDate> dropped = new HashSet<>();
+        // the days of work sessions and repeated events are cached under their deadline or recursion
+        for (UUID cachedID : new UUID[]{changed.getID(), this.eventManager.getOwnerID(changed.getID())}) {
+            Set<LocalDate> cached = cachedID == null ? null : this.cachedDays.remove(cachedID);
+            if (cached != null) {
+                dropped.addAll(cached);
+            }
+        }
+        List<Event> touched = new ArrayList<>(changed.getWorkSessions());
+        touched.add(changed);
+        for (Event event : touched) {
+            for (Event piece : this.eventManager.splitByDay(event)) {
+                dropped.add(piece.getEndTime().toLocalDate());
+            }
+        }
+        if (this.days.keySet().removeAll(dropped)) {
+            this.version++;
+        }
+    }
+
+    /**
+     * drops every day if the recursions changed since the days were cached, as the calendar is then loaded again
+     */
+    private void checkRecursions() {
+        int modificationCount = this.eventManager.getRepeatedEventManager().getModificationCount();
+        if (modificationCount != this.recursionModificationCount) {
+            this.recursionModificationCount = modificationCount;
+            this.days.clear();
+            this.cachedDays.clear();
+            this.version++;
+        }
+    }
+}
@@ -46,11 +46,12 @@ public class DefaultEventInfoGetter implements EventInfoGetter {
      */
     @Override
     public List<Event> getAllEvents() {
-        List<Event> allEvents = new ArrayList<>(eventManager.getEventMap().values());
+        List<Event> repeatedEvents = new ArrayList<>();
         for (RecursiveEvent recursiveEvent : eventManager.getRepeatedEventManager().getRecursiveEventMap().values()) {
-            allEvents.addAll(eventManager.recursiveEventList(recursiveEvent));
+            repeatedEvents.addAll(eventManager.recursiveEventList(recursiveEvent));
         }
-        return eventManager.eventHelper.timeOrder(allEvents);
+        return eventManager.eventHelper.mergeTimeOrdered(eventManager.getTimeOrderedEvents(),
+                eventManager.eventHelper.timeOrder(repeatedEvents));
     }
 
     /**
@@ -72,6 +73,7 @@ public class DefaultEventInfoGetter implements EventInfoGetter {
      */
     public void setName(UUID event, String name) {
         eventManager.get(event).setName(name);
+        eventManager.update("change", eventManager.get(event));
     }
 
     /**
@@ -92,6 +94,7 @@ public class DefaultEventInfoGetter implements EventInfoGetter {
      */
     public void setDescription(UUID event, String describe) {
         eventManager.get(event).setDescription(describe);
+        eventManager.update("change", eventManager.get(event));
     }
 
     /**
@@ -125,6 +128,7 @@ public class DefaultEventInfoGetter implements EventInfoGetter {
         } else {
             eventManager.get(id).setStartTime(start);
         }
+        eventManager.reindex(eventManager.get(id));
         eventManager.update("change", eventManager.get(id));
     }
 
@@ -136,6 +140,7 @@ public class DefaultEventInfoGetter implements EventInfoGetter {
      */
     public void setEnd(UUID id, LocalDateTime end) {
         eventManager.get(id).setEndTime(end);
+        eventManager.reindex(eventManager.get(id));
         eventManager.update("change", eventManager.get(id));
     }
 
@@ -0,0 +1,162 @@
+package usecases.events;
+
+import entities.Event;
+import interfaces.EventListObserver;
+
+import java.util.*;
+
+/**
+ * Gives the events of an EventManager short integer handles to be typed in the console instead of their UUID. A
+ * handle is given to an event when it is added (or the first time it is asked for, for events that were not added
+ * through the EventManager such as work sessions and repeated events) and stays the same while the event exists, even
+ * if it is changed. Handles of removed events are not given again. Both directions are looked up in constant time.
+ * <p>
+ * The handles of work sessions and repeated events are taken back when they go away without being removed one by
+ * one: when the work sessions of an event are replaced, and when the recursions change and their events are computed
+ * again.
+ *
+ * @see EventManager#getHandleRegistry
+ * @see helpers.EventIDConverter
+ */
+public class EventHandleRegistry implements EventListObserver {
+    private final EventManager eventManager;
+    private final Map<Integer, UUID> handleToID = new HashMap<>();
+    private final Map<UUID, Integer> idToHandle = new HashMap<>();
+    // ID of the deadline of a work session or the recursion of a repeated event -> its events that have handles
+    private final Map<UUID, Set<UUID>> ownedHandles = new HashMap<>();
+    private int recursionModificationCount;
+    private int nextHandle = 1;
+
+    /**
+     * constructs a registry giving handles to the events of eventManager, in time order for the events already there
+     *
+     * @param eventManager the EventManager whose events get handles
+     */
+    EventHandleRegistry(EventManager eventManager) {
+        this.eventManager = eventManager;
+        this.recursionModificationCount = eventManager.getRepeatedEventManager().getModificationCount();
+        for (Event event : eventManager.getTimeOrderedEvents()) {
+            this.getHandle(event.getID());
+        }
+    }
+
+    /**
+     * gives a handle to added events and takes it back from removed events and the work sessions they had. A change
+     * takes back the handles of the work sessions the event does not have anymore. Other updates are ignored
+     *
+     * @param addRemoveChange 'add', 'remove' or 'change'
+     * @param changed         the event that was added, is about to be removed or was changed
+     * @param eventManager    the eventManager that was updated
+     */
+    @Override
+    public void update(String addRemoveChange, Event changed, EventManager eventManager) {
+        if (changed == null) {
+            return;
+        }
+        if (addRemoveChange.equalsIgnoreCase("add")) {
+            this.getHandle(changed.getID());
+        } else if (addRemoveChange.equalsIgnoreCase("remove")) {
+            this.release(changed.getID());
+            this.releaseOwned(changed.getID(), Set.of());
+        } else if (addRemoveChange.equalsIgnoreCase("change")) {
+            Set<UUID> sessions = new HashSet<>();
+            for (Event session : changed.getWorkSessions()) {
+                sessions.add(session.getID());
+            }
+            this.releaseOwned(changed.getID(), sessions);
+        }
+    }
+
+    /**
+     * @param eventID UUID of an event
+     * @return the handle of the event, given to it now if it did not have one
+     */
+    public int getHandle(UUID eventID) {
+        this.checkRecursions();
+        Integer handle = this.idToHandle.get(eventID);
+        if (handle == null) {
+            handle = this.nextHandle++;
+            this.idToHandle.put(eventID, handle);
+            this.handleToID.put(handle, eventID);
+            UUID owner = this.eventManager.getOwnerID(eventID);
+            if (owner != null) {
+                this.ownedHandles.computeIfAbsent(owner, k -> new HashSet<>()).add(eventID);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * @return the number of events that have a handle
+     */
+    int size() {
+        this.checkRecursions();
+        return this.idToHandle.size();
+    }
+
+    /**
+     * @param handle a handle
+     * @return the UUID of the event with this handle, or null if there is none or the event is not in the EventManager
+     * anymore
+     */
+    public UUID getID(int handle) {
+        this.checkRecursions();
+        UUID eventID = this.handleToID.get(handle);
+        if (eventID == null || !this.eventManager.containsID(eventID)) {
+            return null;
+        }
+        return eventID;
+    }
+
+    private void release(UUID eventID) {
+        Integer handle = this.idToHandle.remove(eventID);
+        if (handle != null) {
+            this.handleToID.remove(handle);
+        }
+    }
+
+    /**
+     * takes back the handles of the events owned by owner, other than those in kept
+     */
+    private void releaseOwned(UUID owner, Set<UUID> kept) {
+        Set<UUID> owned = this.ownedHandles.get(owner);
+        if (owned == null) {
+            return;
+        }
+        for (Iterator<UUID> iterator = owned.iterator(); iterator.hasNext(); ) {
+            UUID eventID = iterator.next();
+            if (!kept.contains(eventID)) {
+                this.release(eventID);
+                iterator.remove();
+            }
+        }
+        if (owned.isEmpty()) {
+            this.ownedHandles.remove(owner);
+        }
+    }
+
+    /**
+     * takes back the handles of the work sessions and repeated events that are not in the EventManager anymore if the
+     * recursions changed, as their events were then computed again
+     */
+    private void checkRecursions() {
+        int modificationCount = this.eventManager.getRepeatedEventManager().getModificationCount();
+        if (modificationCount == this.recursionModificationCount) {
+            return;
+        }
+        this.recursionModificationCount = modificationCount;
+        for (Iterator<Set<UUID>> owners = this.ownedHandles.values().iterator(); owners.hasNext(); ) {
+            Set<UUID> owned = owners.next();
+            for (Iterator<UUID> iterator = owned.iterator(); iterator.hasNext(); ) {
+                UUID eventID = iterator.next();
+                if (!this.eventManager.containsID(eventID)) {
+                    this.release(eventID);
+                    iterator.remove();
+                }
+            }
+            if (owned.isEmpty()) {
+                owners.remove();
+            }
+        }
+    }
+}
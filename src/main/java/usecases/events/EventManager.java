@@ -10,6 +10,7 @@ import entities.recursions.RecursiveEvent;
 
 import helpers.EventHelper;
 import interfaces.EventListObserver;
+import usecases.calendar.CalendarManager;
 
 /**
  * stores and Manages events
@@ -27,11 +28,17 @@ public class EventManager {
     private final Map<UUID, Event> eventMap;
     private final RepeatedEventManager repeatedEventManager;
     private EventListObserver[] toUpdate;
+    private final EventTimeIndex timeIndex = new EventTimeIndex();
+    private final Map<UUID, Event> workSessionMap = new HashMap<>();
+    private final Map<UUID, UUID> workSessionOwners = new HashMap<>();
+    private ConflictIndex conflictIndex;
+    private CalendarManager calendarManager;
+    private CalendarIndex calendarIndex;
+    private DayScheduleCache dayScheduleCache;
+    private int recursionModificationCount;
+    private EventHandleRegistry handleRegistry;
     public EventHelper eventHelper = new EventHelper();
 
-    private Map<UUID, List<Event>> uuidEventsMap;
-    private Map<UUID, Map<UUID, RecursiveEvent>> uuidRecursiveEventsMap;
-
     /**
      * constructs event manager. stores list of events by key: ID, value: event in <code>this.eventMap</code>
      * sets <code>this.toUpdate</code> to empty list of <code>EventListObservers</code>
@@ -45,6 +52,7 @@ public class EventManager {
             this.eventMap = new HashMap<>();
             for (Event event : events) {
                 this.eventMap.put(event.getID(), event);
+                this.reindex(event);
             }
         }
         this.toUpdate = new EventListObserver[]{};
@@ -64,48 +72,13 @@ public class EventManager {
             this.eventMap = new HashMap<>();
             for (Event event : events) {
                 this.eventMap.put(event.getID(), event);
+                this.reindex(event);
             }
         }
         this.toUpdate = new EventListObserver[]{};
         this.repeatedEventManager = new RepeatedEventManager(recursiveEventMap);
     }
 
-    /**
-     * Get this Events map
-     *
-     * @return A map of UUID of users as keys and list of events of that user as values
-     */
-    public Map<UUID, List<Event>> getUuidEventsMap() {
-        return this.uuidEventsMap;
-    }
-
-    /**
-     * Get this RecursiveEvents map
-     *
-     * @return A map of UUID of users as keys and list of events of that user as values
-     */
-    public Map<UUID, Map<UUID, RecursiveEvent>> getUuidRecursiveEventsMap() {
-        return uuidRecursiveEventsMap;
-    }
-
-    /**
-     * Set this Events map to the parameter
-     *
-     * @param map A map of UUID of users as keys and list of events of that user as values
-     */
-    public void setUuidEventsMap(Map<UUID, List<Event>> map) {
-        this.uuidEventsMap = map;
-    }
-
-    /**
-     * Set this RecursiveEvents map to the parameter
-     *
-     * @param uuidRecursiveEventsMap A map of UUID of maps of UUID as keys and list of events of that user as values
-     */
-    public void setUuidRecursiveEventsMap(Map<UUID, Map<UUID, RecursiveEvent>> uuidRecursiveEventsMap) {
-        this.uuidRecursiveEventsMap = uuidRecursiveEventsMap;
-    }
-
     /**
      * returns an event in <code>this.eventMap</code> with the input ID if it is there, otherwise returns null
      *
@@ -115,20 +88,26 @@ public class EventManager {
     public Event get(UUID eventID) {
         if (this.eventMap.containsKey(eventID)) {
             return eventMap.get(eventID);
-        } else {
-            for (Event event : getDefaultEventInfoGetter().getAllEvents()) {
-                if (!event.getWorkSessions().isEmpty()) {
-                    for (Event session : event.getWorkSessions()) {
-                        if (session.getID().equals(eventID)) {
-                            return session;
-                        }
-                    }
-                }
-            }
+        } else if (this.workSessionMap.containsKey(eventID)) {
+            return this.workSessionMap.get(eventID);
         }
         return this.repeatedEventManager.getThisEventFromRecursion(eventID);
     }
 
+    /**
+     * returns the ID of the event that owns the event with the input ID: the deadline of a work session or the
+     * recursion of a repeated event. Returns null for events in <code>this.eventMap</code> and unknown IDs
+     *
+     * @param eventID the ID of a work session or repeated event
+     * @return the ID of the owning event or recursion, or null
+     */
+    public UUID getOwnerID(UUID eventID) {
+        if (this.workSessionOwners.containsKey(eventID)) {
+            return this.workSessionOwners.get(eventID);
+        }
+        return this.repeatedEventManager.getRecursionOf(eventID);
+    }
+
     public List<Event> getEvents(List<UUID> eventIDList) {
         List<Event> result = new ArrayList<>();
         for (UUID uuid : eventIDList) {
@@ -145,16 +124,28 @@ public class EventManager {
      */
     public Event remove(UUID ID) {
         this.update("remove", this.get(ID));
-        return eventMap.remove(ID);
+        Event removed = eventMap.remove(ID);
+        this.unindex(removed);
+        return removed;
     }
 
     /**
-     * removes the event of this ID from <code>this.eventMap</code> if it is there
+     * removes the event of this ID from <code>this.eventMap</code> if it is there, without updating the
+     * RepeatedEventManager: the event was moved into a recursion, not deleted from it. The other observers are still
+     * told of the removal, so that the indexes and saved events do not keep it
      *
      * @param id the name to be removed
      */
     public void removeWithoutUpdate(UUID id) {
-        eventMap.remove(id);
+        Event removed = this.eventMap.get(id);
+        if (removed != null) {
+            for (EventListObserver obs : this.toUpdate) {
+                if (obs != this.repeatedEventManager) {
+                    obs.update("remove", removed, this);
+                }
+            }
+        }
+        this.unindex(eventMap.remove(id));
     }
 
     /**
@@ -186,7 +177,8 @@ public class EventManager {
      * @param event event to be added
      */
     public UUID addEvent(Event event) {
-        this.eventMap.put(event.getID(), event);
+        this.unindex(this.eventMap.put(event.getID(), event));
+        this.reindex(event);
         this.update("add", event);
         return this.getDefaultEventInfoGetter().getID(event);
     }
@@ -253,7 +245,7 @@ public class EventManager {
      */
     public List<Event> recursiveEventList(RecursiveEvent recursiveEvent) {
         List<Event> result = new ArrayList<>();
-        for (List<Event> events : repeatedEventManager.getRecursiveIdToDateToEventsMap().get(recursiveEvent.getId()).values()) {
+        for (List<Event> events : repeatedEventManager.getDateToEventsMap(recursiveEvent.getId()).values()) {
             result.addAll(events);
         }
         return result;
@@ -279,9 +271,163 @@ public class EventManager {
         return events;
     }
 
+    /**
+     * returns every event in <code>this.eventMap</code>, every work session and every repeated event that occupies
+     * some time in [from, to), ordered by start time (end time for deadlines). Events are not split by day
+     *
+     * @param from the start of the window (inclusive)
+     * @param to   the end of the window (exclusive)
+     * @return list of events in the window
+     * @see EventTimeIndex#getEventsBetween
+     */
+    public List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        return eventHelper.mergeTimeOrdered(this.timeIndex.getEventsBetween(from, to),
+                eventHelper.timeOrder(this.repeatedEventManager.getEventsBetween(from, to)));
+    }
+
+    /**
+     * returns every event in <code>this.eventMap</code>, every work session and every repeated event that conflicts
+     * with the input event
+     *
+     * @param event any event with a start time
+     * @return list of events overlapping event, not including event itself
+     * @see Event#conflicts
+     */
+    public List<Event> getEventsOverlapping(Event event) {
+        List<Event> result = this.timeIndex.getEventsOverlapping(event);
+        if (event.hasStart()) {
+            for (Event repeated : this.repeatedEventManager.getEventsBetween(event.getStartTime(), event.getEndTime())) {
+                if (repeated.hasStart() && !repeated.getID().equals(event.getID()) && repeated.conflicts(event)) {
+                    result.add(repeated);
+                }
+            }
+        }
+        return eventHelper.timeOrder(result);
+    }
+
+    /**
+     * returns the conflict index of this EventManager, building it and registering it as an observer the first time
+     *
+     * @return the ConflictIndex kept up to date with the events and work sessions of this EventManager
+     */
+    public ConflictIndex getConflictIndex() {
+        if (this.conflictIndex == null) {
+            this.conflictIndex = new ConflictIndex(this.timeIndex);
+            this.addObserver(this.conflictIndex);
+        }
+        return this.conflictIndex;
+    }
+
+    /**
+     * returns the handle registry of this EventManager, building it and registering it as an observer the first time
+     *
+     * @return the EventHandleRegistry giving integer handles to the events of this EventManager
+     */
+    public EventHandleRegistry getHandleRegistry() {
+        if (this.handleRegistry == null) {
+            this.handleRegistry = new EventHandleRegistry(this);
+            this.addObserver(this.handleRegistry);
+        }
+        return this.handleRegistry;
+    }
+
+    /**
+     * returns the calendar of the events of this EventManager, building it and registering its CalendarIndex as an
+     * observer the first time. The same CalendarManager is returned every time: its months are loaded when they are
+     * first looked at and kept up to date as events change. Months are loaded again if recursions changed since the
+     * last call
+     *
+     * @return the CalendarManager filled with the events of this EventManager
+     */
+    public CalendarManager getCalendarManager() {
+        if (this.calendarManager == null) {
+            this.calendarManager = new CalendarManager();
+            this.calendarIndex = new CalendarIndex(this, this.calendarManager);
+            this.calendarManager.setMonthLoader(this.calendarIndex);
+            this.addObserver(this.calendarIndex);
+            this.recursionModificationCount = this.repeatedEventManager.getModificationCount();
+        } else if (this.recursionModificationCount != this.repeatedEventManager.getModificationCount()) {
+            this.calendarIndex.reload();
+            this.recursionModificationCount = this.repeatedEventManager.getModificationCount();
+        }
+        return this.calendarManager;
+    }
+
+    /**
+     * returns the cache of the events of this EventManager by day, building it and registering it as an observer the
+     * first time. Its days are looked up in the calendar of this EventManager
+     *
+     * @return the DayScheduleCache kept up to date with the events and work sessions of this EventManager
+     * @see #getCalendarManager
+     */
+    public DayScheduleCache getDayScheduleCache() {
+        if (this.dayScheduleCache == null) {
+            this.dayScheduleCache = new DayScheduleCache(this);
+            this.addObserver(this.dayScheduleCache);
+        }
+        return this.dayScheduleCache;
+    }
+
+    /**
+     * updates the time index with the current start and end time of event and of its work sessions, and the ID index
+     * with its work sessions. Must be called whenever the times or work sessions of an event stored in this
+     * EventManager change. Repeated events are not put in the time index, they are looked up in the
+     * RepeatedEventManager, but their work sessions are put in the ID index
+     *
+     * @param event an event in this EventManager (or a work session of one)
+     */
+    public void reindex(Event event) {
+        boolean timed = this.eventMap.containsKey(event.getID()) || this.timeIndex.contains(event.getID());
+        if (timed) {
+            this.timeIndex.add(event);
+        }
+        for (Event session : event.getWorkSessions()) {
+            this.workSessionMap.put(session.getID(), session);
+            this.workSessionOwners.put(session.getID(), event.getID());
+            if (timed) {
+                this.timeIndex.add(session);
+            }
+        }
+    }
+
+    /**
+     * removes event and its work sessions from the time and ID indexes
+     *
+     * @param event an event that was in this EventManager, or null
+     */
+    public void unindex(Event event) {
+        if (event != null) {
+            this.timeIndex.remove(event.getID());
+            this.workSessionMap.remove(event.getID());
+            this.workSessionOwners.remove(event.getID());
+            for (Event session : event.getWorkSessions()) {
+                this.timeIndex.remove(session.getID());
+                this.workSessionMap.remove(session.getID());
+                this.workSessionOwners.remove(session.getID());
+            }
+        }
+    }
+
+    /**
+     * returns the events in <code>this.eventMap</code> (without work sessions or repeated events) in time order. The
+     * time index keeps them in that order as they are added, removed and changed, so no sorting is done here
+     *
+     * @return list of events ordered by start time (end time for deadlines)
+     * @see EventTimeIndex#getAllEvents
+     */
+    public List<Event> getTimeOrderedEvents() {
+        List<Event> ordered = new ArrayList<>(this.eventMap.size());
+        for (Event event : this.timeIndex.getAllEvents()) {
+            if (this.eventMap.containsKey(event.getID())) {
+                ordered.add(event);
+            }
+        }
+        return ordered;
+    }
+
     /**
      * updates all eventList observers in <code>this.toUpdate</code> with given parameter. Runs when events are added,
-     * removed, or times change in <code>this.eventMap</code>
+     * removed, or times or work sessions change in <code>this.eventMap</code>
      *
      * @param addRemoveChange string "add" or "remove" or "change" to specify the nature of the update
      * @param changed         list of the events that are modified
@@ -0,0 +1,279 @@
+package usecases.events;
+
+import entities.Event;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Augmented interval tree over the start and end times of events. Nodes are kept in a height balanced (AVL) binary
+ * search tree ordered by start time (end time for events without a start) then by ID, and every node stores the
+ * latest end time found in its subtree so that range and overlap queries only visit the events they return (plus
+ * O(log n) nodes along the way).
+ * <p>
+ * The times of an event are copied into the index when it is added. An event whose times change must be re-added
+ * with <code>add</code> (or removed and added again) for the index to see the new times.
+ *
+ * @see EventManager#getEventsBetween
+ * @see EventManager#getEventsOverlapping
+ */
+public class EventTimeIndex {
+    private Node root;
+    private final Map<UUID, LocalDateTime> startKeys;
+
+    /**
+     * constructs an empty index
+     */
+    public EventTimeIndex() {
+        this.startKeys = new HashMap<>();
+    }
+
+    /**
+     * adds an event to the index, replacing any event of the same ID that was already indexed
+     *
+     * @param event the event to be indexed by its current start and end time
+     */
+    public void add(Event event) {
+        this.remove(event.getID());
+        LocalDateTime start = startOf(event);
+        LocalDateTime end = event.getEndTime();
+        if (end.isBefore(start)) {
+            LocalDateTime temp = start;
+            start = end;
+            end = temp;
+        }
+        this.root = insert(this.root, new Node(event, start, end));
+        this.startKeys.put(event.getID(), start);
+    }
+
+    /**
+     * removes the event with this ID from the index if it is there
+     *
+     * @param eventID UUID of the event to be removed
+     * @return true if an event was removed
+     */
+    public boolean remove(UUID eventID) {
+        LocalDateTime start = this.startKeys.remove(eventID);
+        if (start == null) {
+            return false;
+        }
+        this.root = delete(this.root, start, eventID);
+        return true;
+    }
+
+    /**
+     * @param eventID UUID of an event
+     * @return true if an event with this ID is indexed
+     */
+    public boolean contains(UUID eventID) {
+        return this.startKeys.containsKey(eventID);
+    }
+
+    /**
+     * @return the number of events in the index
+     */
+    public int size() {
+        return this.startKeys.size();
+    }
+
+    /**
+     * removes every event from the index
+     */
+    public void clear() {
+        this.root = null;
+        this.startKeys.clear();
+    }
+
+    /**
+     * returns every indexed event that occupies some time in [from, to). An event with a duration is returned if it
+     * starts before <code>to</code> and ends after <code>from</code>; an event without a duration (a deadline) is
+     * returned if its time is in [from, to)
+     *
+     * @param from the start of the window (inclusive)
+     * @param to   the end of the window (exclusive)
+     * @return list of events in the window, ordered by start time (end time for deadlines)
+     */
+    public List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        if (from.isBefore(to)) {
+            collect(this.root, from, to, result);
+        }
+        return result;
+    }
+
+    /**
+     * returns every indexed event other than <code>event</code> that conflicts with it in the sense of
+     * <code>Event.conflicts</code> - events without a start time never conflict
+     *
+     * @param event any event, indexed or not
+     * @return list of conflicting events ordered by start time
+     * @see Event#conflicts
+     */
+    public List<Event> getEventsOverlapping(Event event) {
+        List<Event> result = new ArrayList<>();
+        if (!event.hasStart()) {
+            return result;
+        }
+        LocalDateTime to = event.getEndTime().isAfter(event.getStartTime()) ? event.getEndTime() :
+                event.getStartTime().plusNanos(1);
+        for (Event other : this.getEventsBetween(event.getStartTime(), to)) {
+            if (other.hasStart() && !other.getID().equals(event.getID())) {
+                result.add(other);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every indexed event ordered by start time (end time for deadlines)
+     */
+    public List<Event> getAllEvents() {
+        List<Event> result = new ArrayList<>();
+        inOrder(this.root, result);
+        return result;
+    }
+
+    // tree helpers
+
+    private static LocalDateTime startOf(Event event) {
+        return event.hasStart() ? event.getStartTime() : event.getEndTime();
+    }
+
+    private static int compare(LocalDateTime start, UUID id, Node node) {
+        int result = start.compareTo(node.start);
+        return result != 0 ? result : id.compareTo(node.id);
+    }
+
+    private static void collect(Node node, LocalDateTime from, LocalDateTime to, List<Event> result) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.start.isBefore(to)) {
+            if (node.end.isAfter(from) || !node.start.isBefore(from)) {
+                result.add(node.event);
+            }
+            collect(node.right, from, to, result);
+        }
+    }
+
+    private static void inOrder(Node node, List<Event> result) {
+        if (node != null) {
+            inOrder(node.left, result);
+            result.add(node.event);
+            inOrder(node.right, result);
+        }
+    }
+
+    private static Node insert(Node node, Node toAdd) {
+        if (node == null) {
+            return toAdd;
+        }
+        if (compare(toAdd.start, toAdd.id, node) < 0) {
+            node.left = insert(node.left, toAdd);
+        } else {
+            node.right = insert(node.right, toAdd);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, UUID id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = delete(node.right, successor.start, successor.id);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void refresh(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        refresh(node);
+        refresh(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        refresh(node);
+        refresh(right);
+        return right;
+    }
+
+    private static Node balance(Node node) {
+        refresh(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * a node of the tree - the start and end are the times of the event when it was added
+     */
+    private static class Node {
+        private final Event event;
+        private final UUID id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private int height;
+        private Node left;
+        private Node right;
+
+        private Node(Event event, LocalDateTime start, LocalDateTime end) {
+            this.event = event;
+            this.id = event.getID();
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.height = 1;
+        }
+    }
+}
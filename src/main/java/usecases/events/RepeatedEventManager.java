@@ -23,7 +23,13 @@ public class RepeatedEventManager implements EventListObserver {
 
     private Map<UUID, RecursiveEvent> recursiveEventMap;
     private Map<UUID, Map<LocalDateTime, List<Event>>> recursiveIdToDateToEventsMap;
+    private final Map<UUID, Event> occurrenceMap = new HashMap<>();
+    private final Map<UUID, UUID> occurrenceToRecursiveId = new HashMap<>();
+    private final Map<UUID, List<UUID>> recursiveIdToOccurrences = new HashMap<>();
+    private final Map<UUID, NavigableMap<Integer, Event>> recursiveIdToComputedOccurrences = new HashMap<>();
+    private final Map<UUID, Integer> recursiveIdToMappedCount = new HashMap<>();
     private EventHelper eventHelper = new EventHelper();
+    private int modificationCount = 0;
 
 
     /**
@@ -37,58 +43,142 @@ public class RepeatedEventManager implements EventListObserver {
     }
 
     /**
-     * Initialize a RepeatedEventManager.
+     * Initialize a RepeatedEventManager. The events of the recursions are not computed until they are needed.
      *
      * @param recursiveIdToRecursiveEvent a map with values recursive events and key the uuid of each recursive event.
      */
     public RepeatedEventManager(Map<UUID, RecursiveEvent> recursiveIdToRecursiveEvent){
         this.recursiveIdToDateToEventsMap = new HashMap<>();
         this.recursiveEventMap = recursiveIdToRecursiveEvent;
-        for (UUID uuid : recursiveIdToRecursiveEvent.keySet()) {
-            RecursiveEvent recursiveEvent = recursiveIdToRecursiveEvent.get(uuid);
-            int cycleLength = recursiveEvent.getCycleLength();
-            List<Event> allEvents = recursiveEvent.listOfEventsInCycles(recursiveEvent.getEventsInOneCycle());
-            recursiveIdToDateToEventsMap.put(uuid, eventListToMap(allEvents, cycleLength));
-        }
     }
 
     /**
      *
-     * Getter and Setter methods.
+     * Getter and Setter methods. Recursions should be added with addRecursion rather than by modifying the returned
+     * map, so that their events can be found by getThisEventFromRecursion. Getting the map computes the events of
+     * every recursion, use getDateToEventsMap or getEventsBetween to only compute what is needed.
      */
     public Map<UUID, Map<LocalDateTime, List<Event>>> getRecursiveIdToDateToEventsMap() {
+        for (UUID id : this.recursiveEventMap.keySet()){
+            this.getDateToEventsMap(id);
+        }
         return recursiveIdToDateToEventsMap;}
     public Map<UUID, RecursiveEvent> getRecursiveEventMap() {return recursiveEventMap;}
 
     /**
-     * Adds a recursive event to the two maps of the repeated event manager in the appropriate way.
+     * @return the number of times recursions were added or changed, so that views of the events of the recursions
+     * can tell whether they are out of date.
+     */
+    public int getModificationCount() {return modificationCount;}
+
+    /**
+     * Adds a recursive event to the two maps of the repeated event manager in the appropriate way. Its events are
+     * computed when they are first needed.
      *
      * @param recursiveEvent The recursive event to add to the repeated event manager.
      */
     public void addRecursion(RecursiveEvent recursiveEvent){
+        this.modificationCount++;
         this.recursiveEventMap.put(recursiveEvent.getId(), recursiveEvent);
-        List<Event> events = recursiveEvent.listOfEventsInCycles(recursiveEvent.getEventsInOneCycle());
-        this.recursiveIdToDateToEventsMap.put(recursiveEvent.getId(), eventListToMap(events,
-                recursiveEvent.getCycleLength()));
+        this.recursiveIdToDateToEventsMap.remove(recursiveEvent.getId());
+        this.recursiveIdToMappedCount.remove(recursiveEvent.getId());
+        this.recursiveIdToComputedOccurrences.remove(recursiveEvent.getId());
+        this.indexRecursion(recursiveEvent.getId());
     }
 
     /**
-     * This method search all events in the repeated event manager and returns the event who matches the ID uuid (if
-     * there is one).
+     * Returns the events of the recursion with this id by the date of the beginning of their cycle, computing all of
+     * them if this has not been done yet. Events already returned by getEventsBetween are reused so that their IDs do
+     * not change. A recursion without an end date only has its events up to IntervalDateInput.OPEN_ENDED_HORIZON in
+     * the map, the later ones are still computed by getEventsBetween.
+     *
+     * @param id the id of a recursive event.
+     * @return a map whose values are the events in each cycle of the recursion, and keys the date of the first event
+     * of that cycle, or null if there is no such recursion.
+     */
+    public Map<LocalDateTime, List<Event>> getDateToEventsMap(UUID id){
+        Map<LocalDateTime, List<Event>> dateToEvents = this.recursiveIdToDateToEventsMap.get(id);
+        if (dateToEvents == null && this.recursiveEventMap.containsKey(id)){
+            RecursiveEvent recursiveEvent = this.recursiveEventMap.get(id);
+            List<Event> events = recursiveEvent.listOfEventsInCycles(recursiveEvent.getEventsInOneCycle());
+            NavigableMap<Integer, Event> computed = this.recursiveIdToComputedOccurrences.get(id);
+            if (computed != null){
+                Map<Integer, Event> mapped = computed.headMap(events.size());
+                for (Map.Entry<Integer, Event> occurrence : mapped.entrySet()){
+                    events.set(occurrence.getKey(), occurrence.getValue());
+                }
+                mapped.clear();
+            }
+            dateToEvents = eventListToMap(events, recursiveEvent.getCycleLength());
+            this.recursiveIdToDateToEventsMap.put(id, dateToEvents);
+            this.recursiveIdToMappedCount.put(id, events.size());
+            this.indexRecursion(id);
+        }
+        return dateToEvents;
+    }
+
+    /**
+     * This method looks up the event who matches the ID uuid (if there is one) among all events in the repeated event
+     * manager, in constant time.
      * @param uuid the ID of the event of interest
      * @return the events with ID uuid, or null if there is no such event in any recursion.
      */
     public Event getThisEventFromRecursion(UUID uuid){
-        for(UUID uuid1 : this.recursiveIdToDateToEventsMap.keySet()){
-            for(List<Event> events : this.recursiveIdToDateToEventsMap.get(uuid1).values()){
-                for(Event event : events){
-                    if(event.getID() == uuid){
-                        return event;
-                    }
+        return this.occurrenceMap.get(uuid);
+    }
+
+    /**
+     * @param uuid the ID of an event in some recursion.
+     * @return the id of the recursion the event with ID uuid belongs to, or null if there is no such event.
+     */
+    public UUID getRecursionOf(UUID uuid){
+        return this.occurrenceToRecursiveId.get(uuid);
+    }
+
+    /**
+     * Replaces the entries of the recursion with this id in the occurrence index by the events currently stored for
+     * it in recursiveIdToDateToEventsMap, and those computed after them by getEventsBetween. Must be called after every
+     * change to the events of a recursion.
+     *
+     * @param id the id of a recursive event.
+     */
+    private void indexRecursion(UUID id){
+        List<UUID> oldOccurrences = this.recursiveIdToOccurrences.remove(id);
+        if (oldOccurrences != null){
+            for (UUID occurrence : oldOccurrences){
+                this.occurrenceMap.remove(occurrence);
+                this.occurrenceToRecursiveId.remove(occurrence);
+            }
+        }
+        Map<LocalDateTime, List<Event>> dateToEvents = this.recursiveIdToDateToEventsMap.get(id);
+        if (dateToEvents != null){
+            List<UUID> newOccurrences = new ArrayList<>();
+            for (List<Event> events : dateToEvents.values()){
+                for (Event event : events){
+                    this.occurrenceMap.put(event.getID(), event);
+                    this.occurrenceToRecursiveId.put(event.getID(), id);
+                    newOccurrences.add(event.getID());
                 }
             }
+            for (Event event : this.recursiveIdToComputedOccurrences.getOrDefault(id, new TreeMap<>()).values()){
+                this.occurrenceMap.put(event.getID(), event);
+                this.occurrenceToRecursiveId.put(event.getID(), id);
+                newOccurrences.add(event.getID());
+            }
+            this.recursiveIdToOccurrences.put(id, newOccurrences);
         }
-        return null;
+    }
+
+    /**
+     * Adds an event of a recursion whose events have not all been computed to the occurrence index.
+     *
+     * @param id the id of the recursive event.
+     * @param event an event of the recursion.
+     */
+    private void indexOccurrence(UUID id, Event event){
+        this.occurrenceMap.put(event.getID(), event);
+        this.occurrenceToRecursiveId.put(event.getID(), id);
+        this.recursiveIdToOccurrences.computeIfAbsent(id, k -> new ArrayList<>()).add(event.getID());
     }
 
     /**
@@ -143,6 +233,8 @@ public class RepeatedEventManager implements EventListObserver {
         Map<LocalDateTime, List<Event>> datesAndEvents = eventListToMap(allEventsInCycles, cycleLength);
         UUID myID = recursiveEvent.getId();
         this.recursiveIdToDateToEventsMap.put(myID, datesAndEvents);
+        this.recursiveIdToMappedCount.put(myID, allEventsInCycles.size());
+        this.indexRecursion(myID);
     }
 
     /**
@@ -171,6 +263,7 @@ public class RepeatedEventManager implements EventListObserver {
     public UUID recursiveEventConstructor1(List<Event> events){
         UUID uuid = UUID.randomUUID();
         RecursiveEvent recursiveEvent = new RecursiveEvent(uuid, events);
+        this.modificationCount++;
         this.recursiveEventMap.put(uuid, recursiveEvent);
         return uuid;
     }
@@ -185,6 +278,7 @@ public class RepeatedEventManager implements EventListObserver {
      */
     private UUID addEventsFromRecursiveEvent(List<Event> eventsInCycle, LocalDateTime[] periodOfRepetition){
         RecursiveEvent recursiveEvent = recursiveEventConstructor(eventsInCycle, periodOfRepetition);
+        this.modificationCount++;
         this.recursiveEventMap.put(recursiveEvent.getId(), recursiveEvent);
         this.addEventsFromRecursiveEvent(recursiveEvent);
         return recursiveEvent.getId();
@@ -197,8 +291,8 @@ public class RepeatedEventManager implements EventListObserver {
      */
     public List<Event> getAllEventsFromRecursiveEvent(UUID id){
         List<Event> result = new ArrayList<>();
-        if (!this.recursiveIdToDateToEventsMap.isEmpty()) {
-            Map<LocalDateTime, List<Event>> dateEventMap = this.recursiveIdToDateToEventsMap.get(id);
+        if (this.recursiveEventMap.containsKey(id)) {
+            Map<LocalDateTime, List<Event>> dateEventMap = this.getDateToEventsMap(id);
             for (List<Event> events : dateEventMap.values()) {
                 result.addAll(events);
             }
@@ -209,6 +303,93 @@ public class RepeatedEventManager implements EventListObserver {
         }
     }
 
+    /**
+     * Returns every event in every recursion that occupies some time in [from, to). Events the recursion has in
+     * recursiveIdToDateToEventsMap are taken from there, skipping the cycles starting at or after to, as they may have
+     * been changed since they were computed. The events after those (all of them if the recursion has no map, and the
+     * ones past IntervalDateInput.OPEN_ENDED_HORIZON if it has no end date) are computed up to the window, and only
+     * those in the window are kept, so a recursion without an end date can be looked at in any window.
+     *
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (exclusive)
+     * @return the events of the recursions in the window, in no particular order.
+     */
+    public List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to){
+        List<Event> result = new ArrayList<>();
+        for (UUID id : this.recursiveEventMap.keySet()){
+            Map<LocalDateTime, List<Event>> dateToEvents = this.recursiveIdToDateToEventsMap.get(id);
+            if (dateToEvents == null){
+                result.addAll(this.computeEventsBetween(id, from, to, 0));
+                continue;
+            }
+            result.addAll(this.computeEventsBetween(id, from, to, this.recursiveIdToMappedCount.getOrDefault(id, 0)));
+            for (Map.Entry<LocalDateTime, List<Event>> cycle : dateToEvents.entrySet()){
+                if (cycle.getKey().isBefore(to)){
+                    for (Event event : cycle.getValue()){
+                        if (this.isBetween(event, from, to)){
+                            result.add(event);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the events of a recursion in [from, to) with its occurrence iterator, starting at the first event
+     * ending at or after from (but not before firstIndex) and stopping after a whole cycle of events starting at or
+     * after to. Events computed by an earlier call are returned instead of new copies.
+     *
+     * @param id the id of a recursion.
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (exclusive)
+     * @param firstIndex the index in the recursion of the first event that may be computed.
+     * @return the events of the recursion in the window.
+     */
+    private List<Event> computeEventsBetween(UUID id, LocalDateTime from, LocalDateTime to, int firstIndex){
+        List<Event> result = new ArrayList<>();
+        RecursiveEvent recursiveEvent = this.recursiveEventMap.get(id);
+        NavigableMap<Integer, Event> computed = this.recursiveIdToComputedOccurrences.computeIfAbsent(id,
+                k -> new TreeMap<>());
+        int cycleLength = Math.max(1, recursiveEvent.getCycleLength());
+        int index = (int) Math.max(recursiveEvent.indexOfFirstOccurrenceAtOrAfter(from), firstIndex);
+        Iterator<Event> occurrences = recursiveEvent.occurrenceIterator(index);
+        int afterWindow = 0;
+        while (occurrences.hasNext() && afterWindow < cycleLength){
+            Event occurrence = occurrences.next();
+            if (!eventHelper.startTimeGetter(occurrence).isBefore(to)){
+                afterWindow++;
+            }
+            else {
+                afterWindow = 0;
+                if (this.isBetween(occurrence, from, to)){
+                    if (computed.containsKey(index)){
+                        occurrence = computed.get(index);
+                    }
+                    else {
+                        computed.put(index, occurrence);
+                        this.indexOccurrence(id, occurrence);
+                    }
+                    result.add(occurrence);
+                }
+            }
+            index++;
+        }
+        return result;
+    }
+
+    /**
+     * @param event an event.
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (exclusive)
+     * @return whether the event occupies some time in [from, to), or is a deadline in [from, to).
+     */
+    private boolean isBetween(Event event, LocalDateTime from, LocalDateTime to){
+        LocalDateTime start = eventHelper.startTimeGetter(event);
+        return start.isBefore(to) && (event.getEndTime().isAfter(from) || !start.isBefore(from));
+    }
+
     /**
      * Creates a new recursive event from an old one after it has being updated.
      *
@@ -292,7 +473,9 @@ public class RepeatedEventManager implements EventListObserver {
         }
         this.recursiveIdToDateToEventsMap.get(uuid).put(eventHelper.startTimeGetter(newCycles.get(0)),
                 newCycles.subList(0,newCycles.size() - 1));
+        this.indexRecursion(uuid);
         recursionModifier(changed, id, newCycles);
+        this.modificationCount++;
     }
 
     /**
@@ -321,5 +504,6 @@ public class RepeatedEventManager implements EventListObserver {
                 get(id).getLastEvent()))){
             this.addRecursion(this.recursiveEventMap.get(id));
         }
+        this.indexRecursion(id);
     }
 }
\ No newline at end of file
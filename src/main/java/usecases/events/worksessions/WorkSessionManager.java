@@ -37,7 +37,10 @@ public class WorkSessionManager implements WorkSessionInfoGetter {
      * @param sessions list of work sessions to be stored in event
      */
     public void setWorkSessions(UUID ID, List<Event> sessions) {
+        eventManager.unindex(eventManager.get(ID));
         eventManager.get(ID).setWorkSessions(sessions);
+        eventManager.reindex(eventManager.get(ID));
+        eventManager.update("change", eventManager.get(ID));
     }
 
     /**
@@ -62,6 +65,8 @@ public class WorkSessionManager implements WorkSessionInfoGetter {
      */
     public void removeWorkSession(UUID id, Event session) {
         getWorkSessions(id).remove(session);
+        eventManager.unindex(session);
+        eventManager.update("change", eventManager.get(id));
     }
 
     /**
@@ -71,6 +76,8 @@ public class WorkSessionManager implements WorkSessionInfoGetter {
      */
     public void addWorkSession(UUID ID, LocalDateTime start, LocalDateTime end) {
         eventManager.get(ID).addWorkSession(start, end);
+        eventManager.reindex(eventManager.get(ID));
+        eventManager.update("change", eventManager.get(ID));
     }
 
     /**
@@ -125,8 +132,7 @@ public class WorkSessionManager implements WorkSessionInfoGetter {
      */
     public List<UUID> getPastWorkSession(UUID id) {
         if (eventManager.containsID(id)) {
-            List<Event> totalWorkSession = eventManager.get(id).getWorkSessions();
-            eventManager.eventHelper.timeOrder(totalWorkSession);
+            List<Event> totalWorkSession = eventManager.eventHelper.timeOrder(eventManager.get(id).getWorkSessions());
             List<UUID> pastWorkSession = new ArrayList<>();
             for (Event event : totalWorkSession) {
                 if (event.getEndTime().isBefore(LocalDateTime.now())) {
@@ -147,8 +153,7 @@ public class WorkSessionManager implements WorkSessionInfoGetter {
      */
     public List<UUID> getFutureWorkSession(UUID id) {
         if (eventManager.containsID(id)) {
-            List<Event> totalWorkSession = eventManager.get(id).getWorkSessions();
-            eventManager.eventHelper.timeOrder(totalWorkSession);
+            List<Event> totalWorkSession = eventManager.eventHelper.timeOrder(eventManager.get(id).getWorkSessions());
             List<UUID> futureWorkSession = new ArrayList<>();
             for (Event event : totalWorkSession) {
                 if (event.getEndTime().isAfter(LocalDateTime.now())) {
@@ -1,6 +1,7 @@
 package usecases.events.worksessions;
 
 import entities.Event;
+import entities.recursions.IntervalDateInput;
 
 import usecases.events.worksessions.strategies.TimeGetters.DefaultTimeGetter;
 import usecases.events.worksessions.strategies.TimeGetters.TimeGetter;
@@ -14,6 +15,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * manager for automatically scheduling events
@@ -21,9 +24,14 @@ import java.util.*;
  * @author Taite Cullen
  */
 public class WorkSessionScheduler {
+    private final Map<LocalTime, LocalTime> freeTime;
     private final TimeGetter timeGetter;
     private final List<DayOrderer> dayOrderers;
     private final List<TimeOrderer> timeOrderers;
+    // deadline -> {start, end} of the window its work sessions were last planned in
+    private final Map<UUID, LocalDateTime[]> plannedWindows;
+    // the EventManager whose deadlines plannedWindows holds
+    private EventManager tracked;
 
     /**
      * initiates a workSessionScheduler with default time getter and no day orderer
@@ -32,9 +40,23 @@ public class WorkSessionScheduler {
      * @param freeTime map of key: start time to value: end time
      */
     public WorkSessionScheduler(Map<LocalTime, LocalTime> freeTime) {
+        this(freeTime, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * initiates a workSessionScheduler with default time getter and the given day orderers and time orderers
+     *
+     * @param freeTime     map of key: start time to value: end time
+     * @param dayOrderers  the DayOrderers, in order
+     * @param timeOrderers the TimeOrderers, in order
+     */
+    private WorkSessionScheduler(Map<LocalTime, LocalTime> freeTime, List<DayOrderer> dayOrderers,
+                                 List<TimeOrderer> timeOrderers) {
+        this.freeTime = freeTime;
         this.timeGetter = new DefaultTimeGetter(freeTime);
-        this.dayOrderers = new ArrayList<>();
-        this.timeOrderers = new ArrayList<>();
+        this.dayOrderers = dayOrderers;
+        this.timeOrderers = timeOrderers;
+        this.plannedWindows = new HashMap<>();
     }
 
     /**
@@ -59,7 +81,7 @@ public class WorkSessionScheduler {
      */
     public void markInComplete(UUID event, UUID session, EventManager eventManager) {
         WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
-        workSessionManager.getWorkSessions(event).remove(eventManager.get(session));
+        workSessionManager.removeWorkSession(event, eventManager.get(session));
         this.autoSchedule(event, eventManager);
     }
 
@@ -86,7 +108,7 @@ public class WorkSessionScheduler {
         WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
         workSessionManager.setHoursNeeded(event, (long) (workSessionManager.getHoursNeeded(event) -
                 eventManager.getDefaultEventInfoGetter().getLength(eventManager.get(session))));
-        workSessionManager.getWorkSessions(event).remove(eventManager.get(session));
+        workSessionManager.removeWorkSession(event, eventManager.get(session));
 
         this.autoSchedule(event, eventManager);
     }
@@ -143,12 +165,465 @@ public class WorkSessionScheduler {
      * @param eventManager the EventManager deadline belongs to schedule workSessions in
      */
     public void autoSchedule(UUID deadline, EventManager eventManager) {
+        long totalHours = this.clearFutureSessions(deadline, eventManager);
+        this.timeGetter.beginPass(List.of(deadline), eventManager);
+        try {
+            this.placeSessions(deadline, totalHours, eventManager);
+        } finally {
+            this.timeGetter.endPass();
+        }
+    }
+
+    /**
+     * reschedules every event in eventManager in one pass:
+     * 1. deletes the future work sessions of every event
+     * 2. calculates total hours of session to schedule for each event
+     * 3. schedules the work sessions of the events that still need hours, earliest deadline first, as autoSchedule
+     * does, with one scheduling pass of the time getter for all of them so that the free time is read once and every
+     * session placed is seen by the events scheduled after it
+     *
+     * @param eventManager the EventManager to schedule workSessions in
+     */
+    public void autoScheduleAll(EventManager eventManager) {
+        Map<UUID, Long> totalHours = new HashMap<>();
+        List<Event> deadlines = new ArrayList<>();
+        for (Event event : this.candidates(eventManager)) {
+            UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+            long hours = this.clearFutureSessions(deadline, eventManager);
+            if (hours > 0) {
+                totalHours.put(deadline, hours);
+                deadlines.add(event);
+            }
+        }
+        this.plan(deadlines, totalHours, eventManager);
+        this.tracked = eventManager;
+    }
+
+    /**
+     * reschedules the events in eventManager whose plan may depend on busy time that changed, as autoScheduleAll does,
+     * leaving the work sessions of the others as they are. An event with future work sessions or hours still needed is
+     * rescheduled if:
+     * 1. its window (from its startWorking date to its end) changed since this scheduler planned it
+     * 2. its window overlaps a changed interval
+     * 3. one of its future work sessions overlaps a changed interval
+     * 4. its future work sessions do not add up to the hours it still needs
+     * <p>
+     * Only the events this scheduler keeps the windows of, and the events and owners of work sessions found in the
+     * changed intervals, are looked at. The first time the scheduler sees eventManager, it keeps the windows of the
+     * events that have work sessions as they are, without replanning them; an event found without a window later on
+     * (a new one) has its window kept, and is only rescheduled by rules 2 to 4.
+     *
+     * @param eventManager the EventManager to schedule workSessions in
+     * @param changed      the {start, end} intervals whose busy time changed, both before and after the change
+     */
+    public void autoScheduleAffected(EventManager eventManager, List<LocalDateTime[]> changed) {
+        if (this.tracked != eventManager) {
+            this.track(eventManager);
+        }
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        Map<UUID, Long> totalHours = new HashMap<>();
+        List<Event> deadlines = new ArrayList<>();
+        for (Event event : this.affectedCandidates(eventManager, changed)) {
+            UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+            List<Event> future = this.futureSessions(deadline, eventManager);
+            long hours = this.hoursLeft(deadline, eventManager);
+            if (future.isEmpty() && hours <= 0) {
+                continue;
+            }
+            LocalDateTime[] window = this.window(deadline, eventManager);
+            LocalDateTime[] planned = this.plannedWindows.putIfAbsent(deadline, window);
+            boolean affected = (planned != null && !Arrays.equals(planned, window)) || overlapsAny(window, changed) ||
+                    (long) eventManager.totalHours(future) != Math.max(hours, 0);
+            for (Event session : future) {
+                affected |= overlapsAny(new LocalDateTime[]{session.getStartTime(), session.getEndTime()}, changed);
+            }
+            if (affected) {
+                hours = this.clearFutureSessions(deadline, eventManager);
+                if (hours > 0) {
+                    totalHours.put(deadline, hours);
+                    deadlines.add(event);
+                }
+            }
+        }
+        this.plan(deadlines, totalHours, eventManager);
+    }
+
+    //private methods and helpers
+
+    /**
+     * keeps the windows of the events of eventManager that have future work sessions or hours still needed, as they
+     * were planned before this scheduler was built
+     *
+     * @param eventManager the EventManager to schedule workSessions in
+     */
+    private void track(EventManager eventManager) {
+        this.plannedWindows.clear();
+        for (Event event : this.candidates(eventManager)) {
+            UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+            if (!this.futureSessions(deadline, eventManager).isEmpty() || this.hoursLeft(deadline, eventManager) > 0) {
+                this.plannedWindows.put(deadline, this.window(deadline, eventManager));
+            }
+        }
+        this.tracked = eventManager;
+    }
+
+    /**
+     * returns the events autoScheduleAffected looks at: the events whose windows this scheduler keeps, and the events,
+     * work session owners and repeated events found in the changed intervals by the time index of eventManager. The
+     * windows of events that are not in eventManager anymore are forgotten
+     *
+     * @param eventManager the EventManager to schedule workSessions in
+     * @param changed      the {start, end} intervals whose busy time changed, either of which may be null
+     * @return the events to look at, in no particular order
+     */
+    private Collection<Event> affectedCandidates(EventManager eventManager, List<LocalDateTime[]> changed) {
+        Map<UUID, Event> candidates = new HashMap<>();
+        for (Iterator<UUID> iterator = this.plannedWindows.keySet().iterator(); iterator.hasNext(); ) {
+            UUID deadline = iterator.next();
+            Event event = eventManager.get(deadline);
+            if (event == null) {
+                iterator.remove();
+            } else {
+                candidates.put(deadline, event);
+            }
+        }
+        for (LocalDateTime[] interval : changed) {
+            if (interval[0] == null || interval[1] == null) {
+                continue;
+            }
+            // [start, end) of the index, closed at end as overlapsAny is
+            for (Event event : eventManager.getEventsBetween(interval[0], interval[1].plusNanos(1))) {
+                UUID owner = eventManager.getOwnerID(event.getID());
+                Event ownerEvent = owner == null ? null : eventManager.get(owner);
+                if (ownerEvent != null) {
+                    candidates.put(owner, ownerEvent);
+                } else {
+                    candidates.put(event.getID(), event);
+                }
+            }
+        }
+        return candidates.values();
+    }
+
+    /**
+     * @param deadline     UUID of deadline Event
+     * @param eventManager EventManager
+     * @return the work sessions of deadline that are not past
+     */
+    private List<Event> futureSessions(UUID deadline, EventManager eventManager) {
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        List<Event> future = new ArrayList<>(workSessionManager.getWorkSessions(deadline));
+        future.removeAll(workSessionManager.getPastSessions(deadline));
+        return future;
+    }
+
+    /**
+     * @param deadline     UUID of deadline Event
+     * @param eventManager EventManager
+     * @return the hours deadline needs that its past work sessions do not cover, which may be negative
+     */
+    private long hoursLeft(UUID deadline, EventManager eventManager) {
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        return workSessionManager.getTotalHoursNeeded(deadline) - (long)
+                (eventManager.totalHours(workSessionManager.getPastSessions(deadline)));
+    }
+
+    /**
+     * returns the events that may need work sessions: the events of eventManager, and the events of its recursions
+     * from now to IntervalDateInput.OPEN_ENDED_HORIZON ahead, as a deadline that passed cannot get new work sessions.
+     * The recursions are only computed in that window, not whole
+     *
+     * @param eventManager the EventManager to schedule workSessions in
+     * @return the events and repeated events to look at, in no particular order
+     */
+    private List<Event> candidates(EventManager eventManager) {
+        List<Event> candidates = new ArrayList<>(eventManager.getEventMap().values());
+        LocalDateTime now = LocalDateTime.now();
+        candidates.addAll(eventManager.getRepeatedEventManager().getEventsBetween(now,
+                now.plus(IntervalDateInput.OPEN_ENDED_HORIZON)));
+        return candidates;
+    }
+
+    /**
+     * schedules the work sessions of deadlines, earliest deadline first. Deadlines whose windows are apart are planned
+     * independently of each other, so when they fall into more than one cluster each cluster is planned at the same
+     * time as the others (see planClusters). Otherwise they are planned in one scheduling pass of the time getter.
+     * Package private for WorkSessionSchedulerBenchmark
+     *
+     * @param deadlines    the events to schedule workSessions for
+     * @param totalHours   the hours of work sessions to schedule for each of them
+     * @param eventManager the EventManager to schedule workSessions in
+     */
+    void plan(List<Event> deadlines, Map<UUID, Long> totalHours, EventManager eventManager) {
+        deadlines.sort(Comparator.comparing(Event::getEndTime).thenComparing(Event::getID));
+        List<List<Event>> clusters = this.clusters(deadlines, eventManager);
+        if (clusters.size() > 1) {
+            this.planClusters(clusters, totalHours, eventManager);
+        } else {
+            this.planInOnePass(deadlines, totalHours, eventManager);
+        }
+    }
+
+    /**
+     * schedules the work sessions of deadlines in the order given, in one scheduling pass of the time getter. Package
+     * private for WorkSessionSchedulerBenchmark
+     *
+     * @param deadlines    the events to schedule workSessions for, earliest deadline first
+     * @param totalHours   the hours of work sessions to schedule for each of them
+     * @param eventManager the EventManager to schedule workSessions in
+     */
+    void planInOnePass(List<Event> deadlines, Map<UUID, Long> totalHours, EventManager eventManager) {
+        List<UUID> order = new ArrayList<>();
+        for (Event event : deadlines) {
+            order.add(eventManager.getDefaultEventInfoGetter().getID(event));
+        }
+        this.timeGetter.beginPass(order, eventManager);
+        try {
+            for (UUID deadline : order) {
+                this.placeSessions(deadline, totalHours.get(deadline), eventManager);
+            }
+        } finally {
+            this.timeGetter.endPass();
+        }
+    }
+
+    /**
+     * splits deadlines into clusters that can be planned independently of each other. A deadline is planned against
+     * the schedule from the later of today and its startWorking date to its end, and the sessions placed for
+     * another deadline only change its plan if they fall in that window or the day on either side of it (where
+     * TimeOrderers look for breaks), so deadlines whose padded windows overlap, directly or through other deadlines,
+     * are in the same cluster.
+     * <p>
+     * Work sessions are only placed after now, so the sessions of a deadline in an earlier cluster end before the
+     * window of every deadline in a later one, and no session of a later cluster exists yet when an earlier one is
+     * planned in one pass: each cluster gets the same plan on its own as in one pass with all the others. Deadlines
+     * that are events of recursions are all put in one cluster, as their work sessions are not busy time.
+     *
+     * @param deadlines    the events to schedule workSessions for, earliest deadline first
+     * @param eventManager the EventManager deadlines are stored in
+     * @return the clusters, each one earliest deadline first
+     */
+    private List<List<Event>> clusters(List<Event> deadlines, EventManager eventManager) {
+        LocalDate today = LocalDate.now();
+        Map<UUID, LocalDate[]> windows = new HashMap<>();
+        for (Event event : deadlines) {
+            UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+            if (!eventManager.getEventMap().containsKey(deadline)) {
+                return List.of(deadlines);
+            }
+            LocalDate endDate = eventManager.getDefaultEventInfoGetter().getEndDate(deadline);
+            LocalDate from = eventManager.getStartWorking(deadline).isAfter(today) ?
+                    eventManager.getStartWorking(deadline) : today;
+            from = from.isAfter(endDate) ? endDate : from;
+            windows.put(deadline, new LocalDate[]{from.minusDays(1), endDate.plusDays(1)});
+        }
+        List<Event> byStart = new ArrayList<>(deadlines);
+        byStart.sort(Comparator.comparing(event -> windows.get(event.getID())[0]));
+        Map<UUID, Integer> clusterOf = new HashMap<>();
+        int clusters = 0;
+        LocalDate clusterEnd = null;
+        for (Event event : byStart) {
+            LocalDate[] window = windows.get(event.getID());
+            if (clusterEnd == null || window[0].isAfter(clusterEnd)) {
+                clusters++;
+                clusterEnd = window[1];
+            } else if (window[1].isAfter(clusterEnd)) {
+                clusterEnd = window[1];
+            }
+            clusterOf.put(event.getID(), clusters - 1);
+        }
+        List<List<Event>> result = new ArrayList<>();
+        for (int i = 0; i < clusters; i++) {
+            result.add(new ArrayList<>());
+        }
+        for (Event event : deadlines) {
+            result.get(clusterOf.get(event.getID())).add(event);
+        }
+        return result;
+    }
+
+    /**
+     * plans each cluster on a ForkJoinPool, against a snapshot of the part of the schedule it is planned on: the
+     * deadlines of the cluster, as copies that can take work sessions, and the events, work sessions and repeated
+     * events the time index finds in the padded window of the cluster (see clusters). A work session brings its
+     * deadline into the snapshot, and repeated events are put in as plain events. Planning only reads the schedule in
+     * that window, so the plans are the same as planning all the clusters in one pass. Once every cluster is planned,
+     * the work sessions are set in eventManager; if planning a cluster fails none are
+     *
+     * @param clusters     independent clusters of deadlines, each one earliest deadline first
+     * @param totalHours   the hours of work sessions to schedule for each deadline
+     * @param eventManager the EventManager to schedule workSessions in
+     * @see #clusters
+     */
+    private void planClusters(List<List<Event>> clusters, Map<UUID, Long> totalHours, EventManager eventManager) {
+        List<ClusterPlan> plans = new ArrayList<>();
+        for (List<Event> cluster : clusters) {
+            plans.add(new ClusterPlan(cluster, this.clusterSchedule(cluster, eventManager), totalHours));
+        }
+        ForkJoinTask.invokeAll(plans);
+
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        for (ClusterPlan plan : plans) {
+            EventManager snapshot = plan.join();
+            for (Event event : plan.cluster) {
+                UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+                workSessionManager.setWorkSessions(deadline, snapshot.get(deadline).getWorkSessions());
+                this.plannedWindows.put(deadline, this.window(deadline, eventManager));
+            }
+        }
+    }
+
+    /**
+     * returns the events a cluster is planned against, other than its deadlines: the events in its padded window, the
+     * deadlines of the work sessions in the window, and the repeated events in the window as plain events
+     *
+     * @param cluster      deadlines of eventManager, earliest deadline first
+     * @param eventManager the EventManager to schedule workSessions in
+     * @return the events of the schedule around cluster, which are only read
+     */
+    private List<Event> clusterSchedule(List<Event> cluster, EventManager eventManager) {
+        LocalDate today = LocalDate.now();
+        LocalDate first = null;
+        LocalDate last = null;
+        Set<UUID> deadlines = new HashSet<>();
+        for (Event event : cluster) {
+            UUID deadline = eventManager.getDefaultEventInfoGetter().getID(event);
+            deadlines.add(deadline);
+            LocalDate endDate = eventManager.getDefaultEventInfoGetter().getEndDate(deadline);
+            LocalDate from = eventManager.getStartWorking(deadline).isAfter(today) ?
+                    eventManager.getStartWorking(deadline) : today;
+            from = from.isAfter(endDate) ? endDate : from;
+            first = first == null || from.isBefore(first) ? from : first;
+            last = last == null || endDate.isAfter(last) ? endDate : last;
+        }
+        Map<UUID, Event> schedule = new LinkedHashMap<>();
+        for (Event event : eventManager.getEventsBetween(first.minusDays(1).atStartOfDay(),
+                last.plusDays(2).atStartOfDay())) {
+            UUID owner = eventManager.getOwnerID(event.getID());
+            if (deadlines.contains(event.getID()) || deadlines.contains(owner)) {
+                continue;
+            }
+            if (eventManager.getEventMap().containsKey(owner)) {
+                schedule.put(owner, eventManager.get(owner));
+            } else if (owner != null) {
+                schedule.put(event.getID(), new Event(event.getID(), event.getName(), event.getStartTime(),
+                        event.getEndTime()));
+            } else {
+                schedule.put(event.getID(), event);
+            }
+        }
+        return new ArrayList<>(schedule.values());
+    }
+
+    /**
+     * plans the work sessions of a cluster of deadlines in one pass, with a scheduler of its own, on a snapshot of the
+     * schedule
+     */
+    private class ClusterPlan extends RecursiveTask<EventManager> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Event> cluster;
+        private final List<Event> schedule;
+        private final Map<UUID, Long> totalHours;
+
+        /**
+         * @param cluster    the deadlines to plan, earliest deadline first
+         * @param schedule   the events of the schedule around the cluster, other than its deadlines, which are only read
+         * @param totalHours the hours of work sessions to schedule for each deadline
+         */
+        private ClusterPlan(List<Event> cluster, List<Event> schedule, Map<UUID, Long> totalHours) {
+            this.cluster = cluster;
+            this.schedule = schedule;
+            this.totalHours = totalHours;
+        }
+
+        /**
+         * @return the snapshot the work sessions were planned in
+         */
+        @Override
+        protected EventManager compute() {
+            Map<UUID, Event> copies = new HashMap<>();
+            for (Event deadline : this.cluster) {
+                copies.put(deadline.getID(), copyOf(deadline));
+            }
+            List<Event> events = new ArrayList<>(copies.values());
+            events.addAll(this.schedule);
+            EventManager snapshot = new EventManager(events);
+            new WorkSessionScheduler(freeTime, dayOrderers, timeOrderers).planInOnePass(new ArrayList<>(this.cluster),
+                    this.totalHours, snapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * @param event an event
+     * @return an event with the same ID, times, information and work sessions as event, that can be changed without
+     * changing event
+     */
+    private static Event copyOf(Event event) {
+        Event copy = new Event(event.getID(), event.getName(), event.getStartTime(), event.getEndTime());
+        copy.setDescription(event.getDescription());
+        copy.setCategories(event.getCategories());
+        copy.setRecursiveId(event.getRecursiveId());
+        copy.setHoursNeeded(event.getHoursNeeded());
+        copy.setSessionLength(event.getSessionLength());
+        copy.setStartWorking(event.getStartWorking());
+        copy.setWorkSessions(new ArrayList<>(event.getWorkSessions()));
+        return copy;
+    }
+
+    /**
+     * @param deadline     UUID of deadline Event
+     * @param eventManager EventManager
+     * @return {start, end} of the window work sessions of deadline are planned in: from the start of its startWorking
+     * date to its end
+     */
+    private LocalDateTime[] window(UUID deadline, EventManager eventManager) {
+        return new LocalDateTime[]{eventManager.getStartWorking(deadline).atStartOfDay(),
+                eventManager.getDefaultEventInfoGetter().getEnd(deadline)};
+    }
+
+    /**
+     * @param interval  {start, end}
+     * @param intervals list of {start, end}, either of which may be null
+     * @return true if interval overlaps or touches one of intervals
+     */
+    private static boolean overlapsAny(LocalDateTime[] interval, List<LocalDateTime[]> intervals) {
+        for (LocalDateTime[] other : intervals) {
+            if (other[0] != null && other[1] != null && !other[0].isAfter(interval[1]) &&
+                    !interval[0].isAfter(other[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * deletes all future work sessions of deadline
+     *
+     * @param deadline     the UUID of the event to schedule workSessions for
+     * @param eventManager the EventManager deadline belongs to
+     * @return the hours of work sessions deadline still needs
+     */
+    private long clearFutureSessions(UUID deadline, EventManager eventManager) {
         WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
         long totalHours = workSessionManager.getTotalHoursNeeded(deadline) - (long)
                 (eventManager.totalHours(workSessionManager.getPastSessions(deadline)));
 
         workSessionManager.setWorkSessions(deadline, workSessionManager.getPastSessions(deadline));
+        return totalHours;
+    }
 
+    /**
+     * schedules work sessions for deadline until totalHours are placed, within a scheduling pass of the time getter
+     *
+     * @param deadline     the UUID of the event to schedule workSessions for
+     * @param totalHours   the hours of work sessions to schedule
+     * @param eventManager the EventManager deadline belongs to schedule workSessions in
+     */
+    private void placeSessions(UUID deadline, long totalHours, EventManager eventManager) {
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        this.plannedWindows.put(deadline, this.window(deadline, eventManager));
         while (totalHours > 0) {
             //Step one: determine the length the work session should be by default
             Long length = this.getLength(deadline, totalHours, eventManager);
@@ -163,13 +638,13 @@ public class WorkSessionScheduler {
                 workSessionManager.addWorkSession(deadline, idealStartTime, idealStartTime.plusHours(length));
                 this.mergeSessions(deadline, eventManager, workSessionManager.getWorkSessions(deadline)
                         .get(workSessionManager.getWorkSessions(deadline).size() - 1));
+                this.timeGetter.sessionAdded(workSessionManager.getWorkSessions(deadline)
+                        .get(workSessionManager.getWorkSessions(deadline).size() - 1));
             }
             totalHours -= length;
         }
     }
 
-    //private methods and helpers
-
 
     /**
      * checks if newSession intersects with or flows into other work session for this event - if it does, merge them into
@@ -1,15 +1,14 @@
 package usecases.events.worksessions.strategies.TimeGetters;
 
 import entities.Event;
+import entities.recursions.RecursiveEvent;
+import usecases.events.DayScheduleCache;
 import usecases.events.EventManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * @author Taite Cullen
@@ -17,6 +16,16 @@ import java.util.UUID;
  */
 public class DefaultTimeGetter implements TimeGetter {
     private final Map<LocalTime, LocalTime> freeTime;
+    // the schedule of the current scheduling pass, or null if free slots are computed from getListSchedule
+    private FreeBusyMap pass;
+    private final Set<UUID> passDeadlines = new HashSet<>();
+    private EventManager passEventManager;
+    // the last day schedule built, and what it was built from
+    private Map<LocalDate, List<Event>> daySchedule;
+    private DayScheduleCache daySchedulePartOf;
+    private long dayScheduleVersion;
+    private LocalDate dayScheduleEnd;
+    private LocalDateTime dayScheduleHour;
 
     /**
      * @param freeTime map of key: start time to value: end time of free time slots
@@ -73,4 +82,171 @@ public class DefaultTimeGetter implements TimeGetter {
         }
         return eventManager.eventHelper.timeOrder(schedule);
     }
+
+    /**
+     * builds the schedule of each day from today to the end date of deadline from the DayScheduleCache of
+     * eventManager, with the free time of the day and the block of time around the current hour added as in
+     * getListSchedule. The schedule is built again only if the cache changed, the current hour passed or the end date
+     * is another one, so it is shared by the DayOrderers of a work session
+     *
+     * @param eventManager EventManager
+     * @param deadline     deadline Event
+     * @return unmodifiable map with key: day, value: unmodifiable time ordered List of all Events that occur on day
+     * @see TimeGetter#getDaySchedule
+     */
+    @Override
+    public Map<LocalDate, List<Event>> getDaySchedule(EventManager eventManager, UUID deadline) {
+        DayScheduleCache cache = eventManager.getDayScheduleCache();
+        LocalDate endDate = eventManager.getDefaultEventInfoGetter().getEndDate(deadline);
+        LocalDateTime hour = LocalDateTime.of(LocalDate.now(), LocalTime.of(LocalTime.now().getHour(), 0));
+        if (this.daySchedule != null && cache == this.daySchedulePartOf && cache.getVersion() ==
+                this.dayScheduleVersion && endDate.isEqual(this.dayScheduleEnd) && hour.isEqual(this.dayScheduleHour)) {
+            return this.daySchedule;
+        }
+        Map<LocalDate, List<Event>> daySchedule = new HashMap<>();
+        for (LocalDate day = hour.toLocalDate(); !day.isAfter(endDate); day = day.plusDays(1)) {
+            List<Event> added = new ArrayList<>();
+            if (day.isEqual(hour.toLocalDate())) {
+                added.add(new Event(UUID.randomUUID(), "now", hour, LocalDateTime.of(day,
+                        LocalTime.of(hour.plusHours(1).getHour(), 0))));
+            }
+            for (LocalTime startTime : this.freeTime.keySet()) {
+                added.add(new Event(UUID.randomUUID(), "free time", LocalDateTime.of(day, startTime),
+                        LocalDateTime.of(day, this.freeTime.get(startTime))));
+            }
+            daySchedule.put(day, Collections.unmodifiableList(eventManager.eventHelper.mergeTimeOrdered(
+                    cache.getDay(day), eventManager.eventHelper.timeOrder(added))));
+        }
+        this.daySchedule = Collections.unmodifiableMap(daySchedule);
+        this.daySchedulePartOf = cache;
+        this.dayScheduleVersion = cache.getVersion();
+        this.dayScheduleEnd = endDate;
+        this.dayScheduleHour = hour;
+        return this.daySchedule;
+    }
+
+    /**
+     * builds a FreeBusyMap of the schedule from the day before the earliest startWorking of the deadlines (or today, if
+     * earlier) to the day after the last of them ends, from the events of the time index in that window, the free time
+     * and the current hour. Until endPass, free slots of the deadlines in eventManager are found in the map. If the
+     * schedule has an event that ends before it starts or does not fall on whole minutes, free slots are computed from
+     * getListSchedule as before
+     *
+     * @param deadlines    the events the work sessions of the pass are for
+     * @param eventManager EventManager the deadlines are stored in
+     */
+    @Override
+    public void beginPass(Collection<UUID> deadlines, EventManager eventManager) {
+        this.endPass();
+        if (deadlines.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate first = today;
+        LocalDate endDate = today;
+        for (UUID deadline : deadlines) {
+            LocalDate startWorking = eventManager.getStartWorking(deadline);
+            LocalDate deadlineEnd = eventManager.getDefaultEventInfoGetter().getEndDate(deadline);
+            first = startWorking.isBefore(first) ? startWorking : first;
+            endDate = deadlineEnd.isAfter(endDate) ? deadlineEnd : endDate;
+        }
+        first = first.minusDays(1);
+        LocalDate last = endDate.plusDays(1);
+        LocalDateTime after = last.plusDays(1).atStartOfDay();
+        FreeBusyMap map = new FreeBusyMap(first, last, () -> this.startsAtOrAfter(eventManager, after));
+
+        boolean kept = map.markBusy(LocalDateTime.of(today, LocalTime.of(LocalTime.now().getHour(), 0)),
+                LocalDateTime.of(today, LocalTime.of(LocalTime.now().plusHours(1).getHour(), 0)));
+        for (LocalDate current = first; kept && !current.isAfter(endDate); current = current.plusDays(1)) {
+            for (LocalTime startTime : this.freeTime.keySet()) {
+                kept &= map.markBusy(LocalDateTime.of(current, startTime),
+                        LocalDateTime.of(current, this.freeTime.get(startTime)));
+            }
+        }
+        for (Event event : eventManager.getEventsBetween(map.getStart(), map.getEnd())) {
+            if (!kept) {
+                break;
+            }
+            kept = this.markBusy(map, event, eventManager);
+        }
+        if (kept) {
+            this.pass = map;
+            this.passDeadlines.addAll(deadlines);
+            this.passEventManager = eventManager;
+        }
+    }
+
+    /**
+     * marks the session busy in the map of the pass
+     *
+     * @param session the work session, as it is in the schedule after merging with adjacent sessions
+     */
+    @Override
+    public void sessionAdded(Event session) {
+        if (this.pass != null && !this.markBusy(this.pass, session, this.passEventManager)) {
+            this.endPass();
+        }
+    }
+
+    /**
+     * stops looking up free slots in the map of the pass
+     */
+    @Override
+    public void endPass() {
+        this.pass = null;
+        this.passDeadlines.clear();
+        this.passEventManager = null;
+    }
+
+    /**
+     * computes the free slots from the FreeBusyMap of the current pass if it has one for deadline that covers [start,
+     * end), and from getListSchedule otherwise
+     *
+     * @see TimeGetter#freeSlots
+     */
+    @Override
+    public Map<LocalDateTime, Long> freeSlots(LocalDateTime start, LocalDateTime end, EventManager eventManager,
+                                              UUID deadline) {
+        if (this.pass != null && eventManager == this.passEventManager && this.passDeadlines.contains(deadline) &&
+                this.pass.covers(start, end)) {
+            return this.pass.freeSlots(start, end);
+        }
+        return TimeGetter.super.freeSlots(start, end, eventManager, deadline);
+    }
+
+    /**
+     * marks an event busy in map the way it is in getListSchedule, split by day
+     *
+     * @return false if the map cannot hold the event
+     */
+    private boolean markBusy(FreeBusyMap map, Event event, EventManager eventManager) {
+        if (event.hasStart()) {
+            for (Event split : eventManager.splitByDay(event)) {
+                if (!map.markBusy(split.getStartTime(), split.getEndTime())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param eventManager EventManager
+     * @param time         a time
+     * @return true if an event of getAllEventsFlatSplit starts at or after time
+     */
+    private boolean startsAtOrAfter(EventManager eventManager, LocalDateTime time) {
+        List<Event> events = eventManager.flattenWorkSessions(new ArrayList<>(eventManager.getEventMap().values()));
+        for (RecursiveEvent recursiveEvent : eventManager.getRepeatedEventManager().getRecursiveEventMap().values()) {
+            events.addAll(eventManager.recursiveEventList(recursiveEvent));
+        }
+        for (Event event : events) {
+            // the last part of an event split by day starts at midnight of its end date
+            if (event.hasStart() && (!event.getStartTime().isBefore(time) ||
+                    !event.getEndTime().toLocalDate().atStartOfDay().isBefore(time))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
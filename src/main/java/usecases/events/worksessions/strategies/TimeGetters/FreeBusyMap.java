@@ -0,0 +1,262 @@
+package usecases.events.worksessions.strategies.TimeGetters;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * busy and free time over a run of whole days at minute resolution, one bit per minute packed in long words with the
+ * days laid end to end, so that the free slots of a schedule are found a word at a time instead of by walking its
+ * events.
+ * <p>
+ * Besides the busy minutes, the map keeps the minutes where intervals start, where an interval runs on from one minute
+ * into the next, and where intervals of zero length are, which is all TimeGetter#freeSlots looks at when it walks the
+ * same intervals as a time ordered list, so both give the same free slots.
+ *
+ * @see DefaultTimeGetter
+ */
+public class FreeBusyMap {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final LocalDateTime origin;
+    private final int minutes;
+    // minute m is inside an interval
+    private final long[] busy;
+    // an interval of positive length starts at minute m
+    private final long[] starts;
+    // an interval runs on from minute m - 1 into minute m
+    private final long[] crossings;
+    // an interval of zero length is at minute m
+    private final long[] points;
+    private final BooleanSupplier startsLater;
+    private Boolean hasLaterStart;
+
+    /**
+     * constructs a map of the days from first to last with no busy time
+     *
+     * @param first       the first day of the map
+     * @param last        the last day of the map
+     * @param startsLater tells whether some interval starts at or after the end of the map. It is only asked when an
+     *                    answer depends on it, and at most once
+     */
+    public FreeBusyMap(LocalDate first, LocalDate last, BooleanSupplier startsLater) {
+        this.origin = first.atStartOfDay();
+        this.minutes = Math.toIntExact((last.toEpochDay() - first.toEpochDay() + 1) * MINUTES_PER_DAY);
+        int words = (this.minutes + 63) >>> 6;
+        this.busy = new long[words];
+        this.starts = new long[words];
+        this.crossings = new long[words];
+        this.points = new long[words];
+        this.startsLater = startsLater;
+    }
+
+    /**
+     * @return the start of the first day of the map
+     */
+    public LocalDateTime getStart() {
+        return this.origin;
+    }
+
+    /**
+     * @return the end of the last day of the map (exclusive)
+     */
+    public LocalDateTime getEnd() {
+        return this.origin.plusMinutes(this.minutes);
+    }
+
+    /**
+     * marks [start, end) busy, or records an interval of zero length if start equals end. Only the part of the interval
+     * inside the map is kept
+     *
+     * @param start the start of the interval
+     * @param end   the end of the interval
+     * @return false, marking nothing, if the interval does not fall on whole minutes or ends before it starts
+     */
+    public boolean markBusy(LocalDateTime start, LocalDateTime end) {
+        if (!onMinute(start) || !onMinute(end) || end.isBefore(start)) {
+            return false;
+        }
+        long from = Duration.between(this.origin, start).toMinutes();
+        long to = Duration.between(this.origin, end).toMinutes();
+        if (from == to) {
+            if (from >= 0 && from < this.minutes) {
+                set(this.points, (int) from);
+            }
+            return true;
+        }
+        this.setRange(this.busy, from, to);
+        this.setRange(this.crossings, from + 1, to);
+        if (from >= 0 && from < this.minutes) {
+            set(this.starts, (int) from);
+        }
+        return true;
+    }
+
+    /**
+     * @param time a time in the map
+     * @return true if the minute of time is busy
+     */
+    public boolean isBusy(LocalDateTime time) {
+        return this.get(this.busy, this.index(time));
+    }
+
+    /**
+     * @param start the start of the free slots
+     * @param end   the end of the free slots
+     * @return true if freeSlots can answer for [start, end): the window is in the map, before its last minute, and end
+     * falls on a whole minute
+     */
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        return !start.isBefore(this.origin) && end.isBefore(this.getEnd()) && !start.isAfter(end) && onMinute(end);
+    }
+
+    /**
+     * computes the times between busy intervals from start to end and their length in whole hours, as
+     * TimeGetter#freeSlots does for a time ordered list of the same intervals: the last slot, running up to end, is
+     * only kept if some interval starts at or after end
+     *
+     * @param start the start time of the first free slot
+     * @param end   the end time of the last free slot
+     * @return Map with key: LocalDateTime start time of free slot, value: Long duration of free slot in hours
+     * @see #covers
+     */
+    public Map<LocalDateTime, Long> freeSlots(LocalDateTime start, LocalDateTime end) {
+        Map<LocalDateTime, Long> freeSlots = new HashMap<>();
+        int last = this.index(end);
+        // the walk is done in whole minutes, start being the only time that may fall inside one
+        int minute = this.index(start);
+        boolean atStart = true;
+        while (true) {
+            if (this.get(this.busy, minute)) {
+                int free = this.nextClear(this.busy, minute);
+                if (free > last) {
+                    // the busy time runs past end: the walk only stops at end if an interval starts there
+                    if (!this.get(this.crossings, last)) {
+                        freeSlots.put(end, 0L);
+                    }
+                    return freeSlots;
+                }
+                minute = free;
+            } else {
+                int next = this.nextSet(this.busy, minute + 1, last);
+                next = this.nextSet(this.points, minute + 1, next);
+                boolean beforeEnd = next < last;
+                if (!beforeEnd && !this.startsFrom(last, atStart ? start.isBefore(end) : minute < last)) {
+                    return freeSlots;
+                }
+                int slotEnd = beforeEnd ? next : last;
+                if (atStart) {
+                    freeSlots.put(start, Duration.between(start, this.time(slotEnd)).toHours());
+                } else {
+                    freeSlots.put(this.time(minute), (long) ((slotEnd - minute) / 60));
+                }
+                if (!beforeEnd) {
+                    return freeSlots;
+                }
+                minute = next;
+            }
+            atStart = false;
+        }
+    }
+
+    /**
+     * @param minute     a minute of the map
+     * @param withPoints whether intervals of zero length at minute count
+     * @return true if an interval starts at or after minute
+     */
+    private boolean startsFrom(int minute, boolean withPoints) {
+        if (this.nextSet(this.starts, minute, this.minutes) < this.minutes ||
+                this.nextSet(this.points, withPoints ? minute : minute + 1, this.minutes) < this.minutes) {
+            return true;
+        }
+        if (this.hasLaterStart == null) {
+            this.hasLaterStart = this.startsLater.getAsBoolean();
+        }
+        return this.hasLaterStart;
+    }
+
+    private int index(LocalDateTime time) {
+        return (int) Duration.between(this.origin, time).toMinutes();
+    }
+
+    private LocalDateTime time(int minute) {
+        return this.origin.plusMinutes(minute);
+    }
+
+    private static boolean onMinute(LocalDateTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    private boolean get(long[] bits, int minute) {
+        return minute >= 0 && minute < this.minutes && (bits[minute >>> 6] & (1L << minute)) != 0;
+    }
+
+    private static void set(long[] bits, int minute) {
+        bits[minute >>> 6] |= 1L << minute;
+    }
+
+    /**
+     * sets the bits of [from, to), clipped to the map, a word at a time
+     */
+    private void setRange(long[] bits, long from, long to) {
+        int start = (int) Math.max(from, 0);
+        int end = (int) Math.min(to, this.minutes);
+        if (start >= end) {
+            return;
+        }
+        int first = start >>> 6;
+        int last = (end - 1) >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> (63 - ((end - 1) & 63));
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int word = first + 1; word < last; word++) {
+            bits[word] = -1L;
+        }
+        bits[last] |= lastMask;
+    }
+
+    /**
+     * @return the first minute in [from, limit) whose bit is set, or limit if there is none
+     */
+    private int nextSet(long[] bits, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int word = from >>> 6;
+        int lastWord = (limit - 1) >>> 6;
+        long current = bits[word] & (-1L << from);
+        while (current == 0) {
+            if (++word > lastWord) {
+                return limit;
+            }
+            current = bits[word];
+        }
+        return Math.min(limit, (word << 6) + Long.numberOfTrailingZeros(current));
+    }
+
+    /**
+     * @return the first minute at or after from whose bit is clear, or the number of minutes in the map if there is
+     * none
+     */
+    private int nextClear(long[] bits, int from) {
+        if (from >= this.minutes) {
+            return this.minutes;
+        }
+        int word = from >>> 6;
+        long current = ~bits[word] & (-1L << from);
+        while (current == 0) {
+            if (++word == bits.length) {
+                return this.minutes;
+            }
+            current = ~bits[word];
+        }
+        return Math.min(this.minutes, (word << 6) + Long.numberOfTrailingZeros(current));
+    }
+}
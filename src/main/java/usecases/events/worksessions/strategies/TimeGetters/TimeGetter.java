@@ -28,10 +28,34 @@ public interface TimeGetter {
      * @param start        the date to get the start of the schedule from
      * @param deadline     the event that all times must fall before, and that preferred session length and total hours
      *                     are based on
-     * @return a list of all the events that count as interfering with potential work sessions
+     * @return a time ordered list of all the events that count as interfering with potential work sessions
      */
     List<Event> getListSchedule(EventManager eventManager, LocalDate start, UUID deadline);
 
+    /**
+     * starts a scheduling pass: until endPass, the schedule only changes by the work sessions given to sessionAdded,
+     * so a time getter may read it once here instead of on every call to freeSlots
+     *
+     * @param deadlines    the events the work sessions of the pass are for
+     * @param eventManager EventManager the deadlines are stored in
+     */
+    default void beginPass(Collection<UUID> deadlines, EventManager eventManager) {
+    }
+
+    /**
+     * records a work session added to the schedule during the current pass
+     *
+     * @param session the work session, as it is in the schedule after merging with adjacent sessions
+     */
+    default void sessionAdded(Event session) {
+    }
+
+    /**
+     * ends the scheduling pass started by beginPass, after which the schedule may change
+     */
+    default void endPass() {
+    }
+
     /**
      * computes the times between events and the Long length of them in seconds
      *
@@ -41,10 +65,8 @@ public interface TimeGetter {
      */
     default Map<LocalDateTime, Long> freeSlots(LocalDateTime start, LocalDateTime end, EventManager eventManager,
                                                UUID deadline) {
-        // Schedule in a form of a list
+        // Schedule in a form of a list, already time ordered by getListSchedule
         List<Event> schedule = this.getListSchedule(eventManager, start.toLocalDate(), deadline);
-        // Sorts the list
-        eventManager.eventHelper.timeOrder(schedule);
 
         Map<LocalDateTime, Long> freeSlots = new HashMap<>();
 
@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Malik Lahlou
@@ -53,4 +54,16 @@ public class IntervalDateInputTest {
         assertEquals(y.get(0).getEndTime(), LocalDateTime.of(2021, 12, 18, 11,0));
         assertEquals(y.get(1).getEndTime(), LocalDateTime.of(2021, 12, 20, 11,0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void occurrenceFarAfterStartDate() {
+        IntervalDateInput x = new IntervalDateInput(l, null);
+        long index = x.indexOfFirstOccurrenceAtOrAfter(z, LocalDateTime.of(2121, 1, 1, 0, 0));
+        Event event = x.occurrence(z, index);
+        assertEquals(event.getEndTime(), x.occurrenceIterator(z, index).next().getEndTime());
+        assertTrue(!event.getEndTime().isBefore(LocalDateTime.of(2121, 1, 1, 0, 0)));
+        assertTrue(x.occurrence(z, index - 1).getEndTime().isBefore(LocalDateTime.of(2121, 1, 1, 0, 0)));
+        assertEquals(4, x.numberOfOccurrencesBetween(z, LocalDateTime.of(2031, 1, 1, 0, 0),
+                LocalDateTime.of(2031, 1, 11, 0, 0)));
+    }
+}
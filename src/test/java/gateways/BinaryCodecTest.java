@@ -0,0 +1,124 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.IntervalDateInput;
+import entities.recursions.NumberOfRepetitionInput;
+import entities.recursions.RecursiveEvent;
+import org.junit.Test;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryCodecTest {
+    private final BinaryCodec codec = new BinaryCodec();
+    private final UUID userID = UUID.randomUUID();
+
+    private Event deadline() {
+        Event deadline = new Event(UUID.randomUUID(), "essay", LocalDateTime.of(2021, 12, 3, 23, 59, 30, 15));
+        deadline.setDescription("two thousand words");
+        deadline.setCategories(UUID.randomUUID());
+        deadline.setHoursNeeded(12L);
+        deadline.setSessionLength(null);
+        deadline.addWorkSession(LocalDateTime.of(2021, 12, 1, 10, 0), LocalDateTime.of(2021, 12, 1, 12, 0));
+        return deadline;
+    }
+
+    private void assertSameEvent(Event expected, Event actual) {
+        assertEquals(expected.getID(), actual.getID());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getCategories(), actual.getCategories());
+        assertEquals(expected.getRecursiveId(), actual.getRecursiveId());
+        assertEquals(expected.getHoursNeeded(), actual.getHoursNeeded());
+        assertEquals(expected.getSessionLength(), actual.getSessionLength());
+        assertEquals(expected.getStartWorking(), actual.getStartWorking());
+        assertEquals(expected.getWorkSessions().size(), actual.getWorkSessions().size());
+        for (int i = 0; i < expected.getWorkSessions().size(); i++) {
+            assertSameEvent(expected.getWorkSessions().get(i), actual.getWorkSessions().get(i));
+        }
+    }
+
+    @Test
+    public void testEventsRoundTrip() throws IOException {
+        Event deadline = this.deadline();
+        Event lecture = new Event(UUID.randomUUID(), "lecture", 2021, 11, 30, 9, 11, 0, 0);
+        Map<UUID, List<Event>> events = Map.of(this.userID, List.of(deadline, lecture));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeEvents(events, out);
+
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(BinaryCodec.isBinary(in));
+        List<Event> read = codec.readEvents(in).get(this.userID);
+        assertEquals(2, read.size());
+        assertSameEvent(deadline, read.get(0));
+        assertSameEvent(lecture, read.get(1));
+    }
+
+    @Test
+    public void testRecursiveEventsRoundTrip() throws IOException {
+        Event first = new Event(UUID.randomUUID(), "gym", 2021, 11, 1, 7, 8, 0, 0);
+        Event second = new Event(UUID.randomUUID(), "gym", 2021, 11, 3, 7, 8, 0, 0);
+        RecursiveEvent interval = new RecursiveEvent(UUID.randomUUID(), new ArrayList<>(List.of(first, second)),
+                new IntervalDateInput(LocalDateTime.of(2021, 11, 1, 0, 0), null));
+        RecursiveEvent repetitions = new RecursiveEvent(UUID.randomUUID(), new ArrayList<>(List.of(
+                new Event(UUID.randomUUID(), "swim", 2021, 11, 2, 7, 8, 0, 0),
+                new Event(UUID.randomUUID(), "swim", 2021, 11, 4, 7, 8, 0, 0))), new NumberOfRepetitionInput(4));
+        Map<UUID, Map<UUID, RecursiveEvent>> recursions = Map.of(this.userID,
+                Map.of(interval.getId(), interval, repetitions.getId(), repetitions));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeRecursiveEvents(recursions, out);
+
+        Map<UUID, RecursiveEvent> read = codec.readRecursiveEvents(new ByteArrayInputStream(out.toByteArray()))
+                .get(this.userID);
+        for (RecursiveEvent expected : List.of(interval, repetitions)) {
+            RecursiveEvent actual = read.get(expected.getId());
+            assertSameEvent(expected.getEventsInOneCycle().get(0), actual.getEventsInOneCycle().get(0));
+            List<Event> expectedOccurrences = expected.listOfEventsInCycles(expected.getEventsInOneCycle());
+            List<Event> actualOccurrences = actual.listOfEventsInCycles(actual.getEventsInOneCycle());
+            assertTrue(actualOccurrences.size() >= 4);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(expectedOccurrences.get(i).getStartTime(), actualOccurrences.get(i).getStartTime());
+            }
+        }
+        assertArrayEquals(new LocalDateTime[]{LocalDateTime.of(2021, 11, 1, 0, 0), null},
+                ((IntervalDateInput) read.get(interval.getId()).getMethodToGetDate()).getPeriodOfRepetition());
+    }
+
+    @Test
+    public void testUsersRoundTrip() throws IOException {
+        User user = new User(this.userID, "Ada", "ada", "secret");
+        user.setEvents(new ArrayList<>(List.of(this.deadline())));
+        user.getUserPreferences().setProcrastinate(true);
+        user.getUserPreferences().setSpacingSameDay("long");
+        user.getUserPreferences().removeFreeTime(LocalTime.of(0, 0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeUsers(List.of(user), out);
+
+        User read = codec.readUsers(new ByteArrayInputStream(out.toByteArray())).get(0);
+        assertEquals(user.getId(), read.getId());
+        assertEquals(user.getName(), read.getName());
+        assertEquals(user.getUsername(), read.getUsername());
+        assertEquals(user.getPassword(), read.getPassword());
+        assertSameEvent(user.getEvents().get(0), read.getEvents().get(0));
+        assertTrue(read.getUserPreferences().getProcrastinate());
+        assertEquals("long", read.getUserPreferences().getSpacingSameDay());
+        assertEquals(user.getUserPreferences().getFreeTime(), read.getUserPreferences().getFreeTime());
+    }
+
+    @Test
+    public void testLegacyFilesAreRecognised() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JavaSerializationCodec().writeEvents(new HashMap<>(Map.of(this.userID,
+                new ArrayList<>(List.of(this.deadline())))), out);
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(BinaryCodec.isBinary(in));
+        assertThrows(IOException.class, () -> codec.readEvents(in));
+    }
+}
@@ -0,0 +1,190 @@
+package gateways;
+
+import interfaces.RemoteStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ChunkedSyncTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * counts the chunks transferred, and fails the downloads after the given number of them
+     */
+    private static class CountingStore implements RemoteStore {
+        private final RemoteStore store;
+        private final AtomicInteger uploads = new AtomicInteger();
+        private final AtomicInteger downloads = new AtomicInteger();
+        private volatile int downloadsBeforeFailure = Integer.MAX_VALUE;
+
+        CountingStore(RemoteStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public byte[] download(String name) throws IOException {
+            if (name.startsWith("chunks/") && this.downloads.incrementAndGet() > this.downloadsBeforeFailure) {
+                throw new IOException("Connection lost.");
+            }
+            return this.store.download(name);
+        }
+
+        @Override
+        public void upload(String name, byte[] data) throws IOException {
+            if (name.startsWith("chunks/")) {
+                this.uploads.incrementAndGet();
+            }
+            this.store.upload(name, data);
+        }
+
+        @Override
+        public boolean exists(String name) throws IOException {
+            return this.store.exists(name);
+        }
+    }
+
+    private byte[] randomData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private byte[] insert(byte[] data, int at, byte[] inserted) {
+        byte[] result = Arrays.copyOf(data, data.length + inserted.length);
+        System.arraycopy(inserted, 0, result, at, inserted.length);
+        System.arraycopy(data, at, result, at + inserted.length, data.length - at);
+        return result;
+    }
+
+    @Test
+    public void testChunksSurviveInsertion() throws IOException {
+        byte[] data = this.randomData(1 << 20);
+        File file = folder.newFile();
+        Files.write(file.toPath(), data);
+        List<ChunkedSync.Chunk> before = ChunkedSync.chunk(file);
+        Files.write(file.toPath(), this.insert(data, 300_000, "inserted".getBytes()));
+        List<ChunkedSync.Chunk> after = ChunkedSync.chunk(file);
+
+        Set<String> hashes = new HashSet<>();
+        long length = 0;
+        for (ChunkedSync.Chunk chunk : before) {
+            hashes.add(chunk.hash);
+            assertTrue(chunk.length <= ChunkedSync.MAX_CHUNK_LENGTH);
+            length += chunk.length;
+        }
+        assertEquals(data.length, length);
+        int changed = 0;
+        for (ChunkedSync.Chunk chunk : after) {
+            if (!hashes.contains(chunk.hash)) {
+                changed++;
+            }
+        }
+        assertTrue(before.size() > 50);
+        assertTrue("changed " + changed, changed <= 2);
+    }
+
+    @Test
+    public void testOnlyChangesAreTransferred() throws IOException {
+        CountingStore store = new CountingStore(new LocalRemoteStore(folder.newFolder("remote")));
+        File file = folder.newFile("events.ser");
+        byte[] data = this.randomData(1 << 20);
+        Files.write(file.toPath(), data);
+        ChunkedSync sender = new ChunkedSync(store, folder.newFolder("senderCache"), 4);
+        sender.push(file, "events.ser");
+        int chunks = store.uploads.get();
+        assertEquals(ChunkedSync.chunk(file).size(), chunks);
+
+        File received = new File(folder.getRoot(), "received.ser");
+        ChunkedSync receiver = new ChunkedSync(store, folder.newFolder("receiverCache"), 4);
+        assertTrue(receiver.pull("events.ser", received));
+        assertArrayEquals(data, Files.readAllBytes(received.toPath()));
+        assertEquals(chunks, store.downloads.get());
+
+        // the received file is deleted, but the next pull only downloads what changed since
+        assertTrue(received.delete());
+        byte[] changed = this.insert(data, 500_000, "change".getBytes());
+        Files.write(file.toPath(), changed);
+        sender.push(file, "events.ser");
+        assertTrue(store.uploads.get() - chunks <= 2);
+        assertTrue(receiver.pull("events.ser", received));
+        assertArrayEquals(changed, Files.readAllBytes(received.toPath()));
+        assertTrue(store.downloads.get() - chunks <= 2);
+
+        sender.push(file, "events.ser");
+        assertTrue(store.uploads.get() - chunks <= 2);
+        assertFalse(receiver.pull("users.ser", new File(folder.getRoot(), "users.ser")));
+    }
+
+    @Test
+    public void testInterruptedPullResumes() throws IOException {
+        CountingStore store = new CountingStore(new LocalRemoteStore(folder.newFolder("remote")));
+        File file = folder.newFile("events.ser");
+        byte[] data = this.randomData(1 << 20);
+        Files.write(file.toPath(), data);
+        new ChunkedSync(store, folder.newFolder("senderCache"), 1).push(file, "events.ser");
+        int chunks = ChunkedSync.chunk(file).size();
+
+        File received = new File(folder.getRoot(), "received.ser");
+        ChunkedSync receiver = new ChunkedSync(store, folder.newFolder("receiverCache"), 1);
+        store.downloadsBeforeFailure = 10;
+        try {
+            receiver.pull("events.ser", received);
+            fail();
+        } catch (IOException eIO) {
+            assertFalse(received.exists());
+        }
+        store.downloadsBeforeFailure = Integer.MAX_VALUE;
+        store.downloads.set(0);
+        assertTrue(receiver.pull("events.ser", received));
+        assertArrayEquals(data, Files.readAllBytes(received.toPath()));
+        assertEquals(chunks - 10, store.downloads.get());
+    }
+
+    @Test
+    public void testFileReplacedDuringPush() throws IOException {
+        LocalRemoteStore remote = new LocalRemoteStore(folder.newFolder("remote"));
+        File file = folder.newFile("events.ser");
+        byte[] data = this.randomData(1 << 20);
+        Files.write(file.toPath(), data);
+        byte[] replaced = this.insert(data, 0, "replaced".getBytes());
+        // the file is replaced while its first chunk is uploaded, as a merge would replace it
+        RemoteStore store = new CountingStore(remote) {
+            @Override
+            public void upload(String name, byte[] upload) throws IOException {
+                if (name.startsWith("chunks/") && !Arrays.equals(replaced, Files.readAllBytes(file.toPath()))) {
+                    File temporary = folder.newFile();
+                    Files.write(temporary.toPath(), replaced);
+                    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                super.upload(name, upload);
+            }
+        };
+        ChunkedSync sender = new ChunkedSync(store, folder.newFolder("senderCache"), 1);
+        sender.push(file, "events.ser");
+        assertArrayEquals(data, Files.readAllBytes(sender.lastSynced("events.ser").toPath()));
+
+        File received = new File(folder.getRoot(), "received.ser");
+        assertTrue(new ChunkedSync(remote, folder.newFolder("receiverCache"), 1).pull("events.ser", received));
+        assertArrayEquals(data, Files.readAllBytes(received.toPath()));
+    }
+
+    @Test
+    public void testWholeFileFromBefore() throws IOException {
+        LocalRemoteStore store = new LocalRemoteStore(folder.newFolder("remote"));
+        byte[] data = this.randomData(100_000);
+        store.upload("users.ser", data);
+        File received = new File(folder.getRoot(), "users.ser");
+        assertTrue(new ChunkedSync(store, folder.newFolder("cache"), 2).pull("users.ser", received));
+        assertArrayEquals(data, Files.readAllBytes(received.toPath()));
+    }
+}
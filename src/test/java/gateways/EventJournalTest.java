@@ -0,0 +1,94 @@
+package gateways;
+
+import entities.Event;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import usecases.events.EventManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UUID userID = UUID.randomUUID();
+    private final UUID otherUserID = UUID.randomUUID();
+
+    private EventManager savedEventManager(List<Event> userEvents) {
+        return new EventManager(new ArrayList<>(userEvents), new HashMap<>());
+    }
+
+    @Test
+    public void testReplayAfterRestart() throws IOException {
+        File directory = folder.newFolder("journal");
+        Event saved = new Event(UUID.randomUUID(), "saved", LocalDateTime.of(2021, 11, 1, 9, 0),
+                LocalDateTime.of(2021, 11, 1, 10, 0));
+        Event removed = new Event(UUID.randomUUID(), "removed", LocalDateTime.of(2021, 11, 2, 9, 0));
+
+        EventJournal journal = new EventJournal(directory);
+        EventManager eventManager = this.savedEventManager(List.of(saved, removed));
+        journal.follow(this.userID, eventManager);
+        UUID added = eventManager.addEvent("added", LocalDateTime.of(2021, 11, 3, 12, 0));
+        eventManager.getDefaultEventInfoGetter().setStart(saved.getID(), LocalDateTime.of(2021, 11, 1, 8, 0));
+        eventManager.getDefaultEventInfoGetter().setName(saved.getID(), "renamed");
+        eventManager.remove(removed.getID());
+        journal.sync();
+        assertEquals(3, journal.size());
+
+        // the session is lost: only the journal is left on top of the saved events
+        EventJournal reopened = new EventJournal(directory);
+        EventManager restored = this.savedEventManager(List.of(
+                new Event(saved.getID(), "saved", LocalDateTime.of(2021, 11, 1, 9, 0),
+                        LocalDateTime.of(2021, 11, 1, 10, 0)),
+                new Event(removed.getID(), "removed", LocalDateTime.of(2021, 11, 2, 9, 0))));
+        reopened.follow(this.userID, restored);
+        assertEquals(2, restored.getEventMap().size());
+        assertEquals("renamed", restored.get(saved.getID()).getName());
+        assertEquals(LocalDateTime.of(2021, 11, 1, 8, 0), restored.get(saved.getID()).getStartTime());
+        assertFalse(restored.containsID(removed.getID()));
+        assertEquals("added", restored.get(added).getName());
+
+        reopened.clear(this.userID);
+        assertEquals(0, new EventJournal(directory).size());
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File directory = folder.newFolder("journal");
+        EventJournal journal = new EventJournal(directory);
+        EventManager eventManager = this.savedEventManager(List.of());
+        journal.follow(this.userID, eventManager);
+        UUID eventID = eventManager.addEvent("event", LocalDateTime.of(2021, 11, 3, 12, 0));
+        for (int hour = 0; hour < 24; hour++) {
+            eventManager.getDefaultEventInfoGetter().setEnd(eventID, LocalDateTime.of(2021, 11, 4, hour, 0));
+        }
+        journal.sync();
+        journal.compact();
+        eventManager.getDefaultEventInfoGetter().setDescription(eventID, "after the snapshot");
+        journal.sync();
+        journal.awaitCompaction();
+        assertTrue(new File(directory, "snapshot").exists());
+        assertEquals(2, Objects.requireNonNull(directory.list()).length);
+
+        EventJournal reopened = new EventJournal(directory);
+        EventManager otherUser = this.savedEventManager(List.of());
+        reopened.follow(this.otherUserID, otherUser);
+        assertTrue(otherUser.getEventMap().isEmpty());
+        EventManager restored = this.savedEventManager(List.of());
+        reopened.follow(this.userID, restored);
+        Event event = restored.get(eventID);
+        assertEquals(LocalDateTime.of(2021, 11, 4, 23, 0), event.getEndTime());
+        assertEquals("after the snapshot", event.getDescription());
+
+        // saving the other user keeps the changes of this one
+        reopened.clear(this.otherUserID);
+        reopened.awaitCompaction();
+        assertEquals(1, new EventJournal(directory).size());
+    }
+}
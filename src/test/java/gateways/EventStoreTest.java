@@ -0,0 +1,99 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EventStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UUID userID = UUID.randomUUID();
+    private final UUID otherUserID = UUID.randomUUID();
+    private EventStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        this.store = new EventStore(folder.newFolder("store"));
+    }
+
+    private Event event(String name, LocalDateTime start) {
+        return new Event(UUID.randomUUID(), name, start, start.plusHours(1));
+    }
+
+    private Set<String> names(List<Event> events) {
+        Set<String> names = new HashSet<>();
+        for (Event event : events) {
+            names.add(event.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testReadEventsBetween() throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (int day = 1; day <= 30; day++) {
+            events.add(this.event("day " + day, LocalDateTime.of(2021, 11, day, 9, 0)));
+        }
+        Event deadline = new Event(UUID.randomUUID(), "essay", LocalDateTime.of(2021, 12, 20, 23, 59));
+        deadline.addWorkSession(LocalDateTime.of(2021, 11, 15, 13, 0), LocalDateTime.of(2021, 11, 15, 15, 0));
+        events.add(deadline);
+        this.store.writeEvents(this.userID, events, List.of());
+        this.store.writeEvents(this.otherUserID, List.of(this.event("other", LocalDateTime.of(2021, 11, 15, 9, 0))),
+                List.of());
+
+        assertEquals(Set.of("day 14", "day 15", "essay"), this.names(this.store.readEventsBetween(this.userID,
+                LocalDateTime.of(2021, 11, 14, 0, 0), LocalDateTime.of(2021, 11, 16, 0, 0))));
+        assertEquals(Set.of("day 1"), this.names(this.store.readEventsBetween(this.userID,
+                LocalDateTime.of(2021, 11, 1, 9, 30), LocalDateTime.of(2021, 11, 1, 9, 45))));
+        assertEquals(Set.of("essay"), this.names(this.store.readEventsBetween(this.userID,
+                LocalDateTime.of(2021, 12, 20, 0, 0), LocalDateTime.of(2021, 12, 21, 0, 0))));
+        assertTrue(this.store.readEventsBetween(this.userID, LocalDateTime.of(2022, 1, 1, 0, 0),
+                LocalDateTime.of(2022, 2, 1, 0, 0)).isEmpty());
+        assertEquals(31, this.store.readEvents(this.userID).size());
+    }
+
+    @Test
+    public void testWriteOnlyChanges() throws IOException {
+        Event kept = this.event("kept", LocalDateTime.of(2021, 11, 1, 9, 0));
+        Event changed = this.event("changed", LocalDateTime.of(2021, 11, 2, 9, 0));
+        Event removed = this.event("removed", LocalDateTime.of(2021, 11, 3, 9, 0));
+        this.store.writeEvents(this.userID, List.of(kept, changed, removed), List.of());
+
+        Event moved = new Event(changed.getID(), "changed", LocalDateTime.of(2021, 12, 2, 9, 0),
+                LocalDateTime.of(2021, 12, 2, 10, 0));
+        Event added = this.event("added", LocalDateTime.of(2021, 10, 1, 9, 0));
+        this.store.writeEvents(this.userID, List.of(moved, added), List.of(removed.getID()));
+
+        List<Event> events = this.store.readEvents(this.userID);
+        assertEquals(List.of("added", "kept", "changed"), List.of(events.get(0).getName(), events.get(1).getName(),
+                events.get(2).getName()));
+        assertEquals(3, events.size());
+        assertEquals(LocalDateTime.of(2021, 12, 2, 9, 0), events.get(2).getStartTime());
+    }
+
+    @Test
+    public void testUsersAndRecursions() throws IOException {
+        assertTrue(this.store.readUsers().isEmpty());
+        this.store.writeUsers(List.of(new User(this.userID, "Ada", "ada", "secret")));
+        assertEquals("ada", this.store.readUsers().get(0).getUsername());
+
+        RecursiveEvent recursion = new RecursiveEvent(UUID.randomUUID(), List.of(
+                this.event("lecture", LocalDateTime.of(2021, 11, 1, 9, 0)),
+                this.event("lecture", LocalDateTime.of(2021, 11, 8, 9, 0))));
+        recursion.setNumberOfRepetitionDateGetter(3);
+        this.store.writeRecursiveEvents(this.userID, Map.of(recursion.getId(), recursion));
+        assertEquals(Set.of(recursion.getId()), this.store.readRecursiveEvents(this.userID).keySet());
+        assertTrue(this.store.readRecursiveEvents(this.otherUserID).isEmpty());
+    }
+}
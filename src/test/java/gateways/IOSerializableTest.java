@@ -0,0 +1,166 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class IOSerializableTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UUID ada = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private LocalRemoteStore remote;
+
+    @Before
+    public void setUp() throws IOException {
+        this.remote = new LocalRemoteStore(folder.newFolder("remote"));
+    }
+
+    private IOSerializable machine(String name) throws IOException {
+        IOSerializable ioSerializable = new IOSerializable(true, true, this.remote, folder.newFolder(name));
+        ioSerializable.restoreLastSynced();
+        return ioSerializable;
+    }
+
+    private List<Event> events(String... names) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            events.add(new Event(UUID.randomUUID(), names[i], LocalDateTime.of(2021, 11, 1 + i, 9, 0)));
+        }
+        return events;
+    }
+
+    private List<String> names(List<Event> events) {
+        List<String> names = new ArrayList<>();
+        for (Event event : events) {
+            names.add(event.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testReconcileKeepsChangesOnBothSides() throws IOException {
+        IOSerializable first = this.machine("first");
+        first.eventsWriteToSerializable(this.ada, this.events("lecture"));
+        first.eventsWriteToSerializable(this.bob, this.events("gym"));
+        first.recursiveEventsWriteToSerializable(this.ada, new HashMap<>());
+        first.usersWriteToSerializable(List.of(new User(this.ada, "Ada", "ada", "secret")));
+        assertTrue(first.saveToDropbox());
+
+        IOSerializable second = this.machine("second");
+        assertFalse(second.hasSavedData());
+        second.reconcileWithRemote();
+        assertTrue(second.hasSavedData());
+        assertEquals(List.of("lecture"), this.names(second.eventsReadFromSerializable(this.ada)));
+
+        // Ada changes her events on the first machine and Bob his on the second
+        first.eventsWriteToSerializable(this.ada, this.events("lecture", "tutorial"));
+        first.usersWriteToSerializable(List.of(new User(this.ada, "Ada", "ada", "secret"),
+                new User(this.bob, "Bob", "bob", "password")));
+        assertTrue(first.saveToDropbox());
+        second.eventsWriteToSerializable(this.bob, this.events("gym", "run"));
+
+        second.reconcileWithRemote();
+        assertEquals(List.of("lecture", "tutorial"), this.names(second.eventsReadFromSerializable(this.ada)));
+        assertEquals(List.of("gym", "run"), this.names(second.eventsReadFromSerializable(this.bob)));
+        assertEquals(2, second.usersReadFromSerializable().size());
+    }
+
+    @Test
+    public void testOpensFromLastSyncedCopy() throws IOException {
+        IOSerializable first = this.machine("first");
+        first.eventsWriteToSerializable(this.ada, this.events("lecture"));
+        first.recursiveEventsWriteToSerializable(this.ada, new HashMap<>());
+        first.usersWriteToSerializable(List.of(new User(this.ada, "Ada", "ada", "secret")));
+        assertTrue(first.saveToDropbox());
+        first.deleteOldFiles();
+        assertFalse(first.hasSavedData());
+
+        File directory = new File(folder.getRoot(), "first");
+        IOSerializable reopened = new IOSerializable(true, true, this.remote, directory);
+        reopened.restoreLastSynced();
+        assertTrue(reopened.hasSavedData());
+        assertEquals(List.of("lecture"), this.names(reopened.eventsReadFromSerializable(this.ada)));
+    }
+
+    private Map<UUID, Long> userStamps(String machine) throws IOException {
+        try (InputStream input = new FileInputStream(new File(new File(folder.getRoot(), machine), "users.ser"))) {
+            return UserShards.readStamps(input);
+        }
+    }
+
+    private Map<UUID, String> userNames(IOSerializable ioSerializable) {
+        Map<UUID, String> names = new HashMap<>();
+        for (User user : ioSerializable.usersReadFromSerializable()) {
+            names.put(user.getId(), user.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testWriteOnlyChangedUsers() throws IOException {
+        IOSerializable first = this.machine("first");
+        first.eventsWriteToSerializable(this.ada, this.events("lecture"));
+        first.recursiveEventsWriteToSerializable(this.ada, new HashMap<>());
+        first.usersWriteToSerializable(List.of(new User(this.ada, "Ada", "ada", "secret"),
+                new User(this.bob, "Bob", "bob", "password")));
+        Map<UUID, Long> before = this.userStamps("first");
+        first.writeChangedUsers(List.of(new User(this.ada, "Ada Lovelace", "ada", "secret")));
+        Map<UUID, Long> after = this.userStamps("first");
+        assertEquals(before.get(this.bob), after.get(this.bob));
+        assertNotEquals(before.get(this.ada), after.get(this.ada));
+        assertEquals(Map.of(this.ada, "Ada Lovelace", this.bob, "Bob"), this.userNames(first));
+        assertTrue(first.saveToDropbox());
+
+        // each machine renames a different user, and the stamps tell which one changed where
+        IOSerializable second = this.machine("second");
+        second.reconcileWithRemote();
+        first.writeChangedUsers(List.of(new User(this.ada, "Countess", "ada", "secret")));
+        assertTrue(first.saveToDropbox());
+        second.writeChangedUsers(List.of(new User(this.bob, "Robert", "bob", "password")));
+        second.reconcileWithRemote();
+        assertEquals(Map.of(this.ada, "Countess", this.bob, "Robert"), this.userNames(second));
+    }
+
+    @Test
+    public void testWriteOnlyChangedMonths() throws IOException {
+        IOSerializable first = this.machine("first");
+        Event old = new Event(UUID.randomUUID(), "old exam", LocalDateTime.of(2020, 4, 1, 9, 0));
+        Event lecture = new Event(UUID.randomUUID(), "lecture", LocalDateTime.of(2040, 1, 10, 9, 0));
+        Event moved = new Event(UUID.randomUUID(), "lab", LocalDateTime.of(2040, 3, 10, 9, 0));
+        first.eventsWriteToSerializable(this.ada, new ArrayList<>(List.of(old, lecture, moved)));
+        Set<YearMonth> archived = new HashSet<>();
+        Map<YearMonth, byte[]> before = this.months(archived);
+        assertEquals(Set.of(YearMonth.of(2020, 4)), archived);
+
+        // the lab moves a month earlier and the lecture is removed: only those months are written
+        YearMonth from = MonthPartitions.monthOf(moved);
+        moved.setEndTime(moved.getEndTime().minusMonths(1));
+        first.writeEventMonths(this.ada, Map.of(from, List.of(), MonthPartitions.monthOf(moved), List.of(moved),
+                MonthPartitions.monthOf(lecture), List.of()), false);
+        Map<YearMonth, byte[]> after = this.months(new HashSet<>());
+        assertArrayEquals(before.get(YearMonth.of(2020, 4)), after.get(YearMonth.of(2020, 4)));
+        assertFalse(after.containsKey(from));
+        assertEquals(List.of("old exam", "lab"), this.names(first.eventsReadFromSerializable(this.ada)));
+    }
+
+    private Map<YearMonth, byte[]> months(Set<YearMonth> archived) throws IOException {
+        byte[] shard = UserShards.readShard(new File(folder.getRoot(), "first/events.ser"), this.ada);
+        return MonthPartitions.readMonths(new ByteArrayInputStream(shard), archived);
+    }
+}
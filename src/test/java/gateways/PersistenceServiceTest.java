@@ -0,0 +1,212 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+import entities.recursions.RecursiveEvent;
+import interfaces.PersistenceListener;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import usecases.UserManager;
+import usecases.events.EventManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PersistenceServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UUID userID = UUID.randomUUID();
+
+    /**
+     * keeps what is written in memory, and lets the test decide when the first write happens
+     */
+    private static class MemorySerializable extends IOSerializable {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+        private final List<User> savedUsers = new ArrayList<>(List.of(new User(UUID.randomUUID(), "Bob", "bob",
+                "password")));
+        private List<Event> savedEvents;
+        private Map<UUID, RecursiveEvent> savedRecursions;
+
+        MemorySerializable() {
+            super(true, true);
+        }
+
+        @Override
+        void writeEvents(UUID userID, List<Event> events) {
+            this.writing.countDown();
+            try {
+                this.proceed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException eInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+            this.savedEvents = events;
+        }
+
+        @Override
+        void writeEventMonths(UUID userID, Map<YearMonth, List<Event>> months, boolean complete) {
+            List<Event> events = new ArrayList<>();
+            for (List<Event> month : months.values()) {
+                events.addAll(month);
+            }
+            this.writeEvents(userID, events);
+        }
+
+        @Override
+        void writeRecursiveEvents(UUID userID, Map<UUID, RecursiveEvent> recursiveEvents) {
+            this.savedRecursions = recursiveEvents;
+        }
+
+        @Override
+        public List<User> usersReadFromSerializable() {
+            return new ArrayList<>(this.savedUsers);
+        }
+
+        @Override
+        void writeChangedUsers(Collection<User> users) {
+            for (User user : users) {
+                this.savedUsers.removeIf(saved -> saved.getId().equals(user.getId()));
+                this.savedUsers.add(user);
+            }
+        }
+    }
+
+    @Test
+    public void testSaveTakesSnapshot() throws Exception {
+        MemorySerializable ioSerializable = new MemorySerializable();
+        EventJournal journal = new EventJournal(folder.newFolder("journal"));
+        User user = new User(this.userID, "Ada", "ada", "secret");
+        EventManager eventManager = new EventManager(new ArrayList<>(), new HashMap<>());
+        List<String> steps = Collections.synchronizedList(new ArrayList<>());
+        PersistenceService service = new PersistenceService(ioSerializable, journal,
+                new UserManager(List.of(user)), Duration.ofDays(1), 2, false, new PersistenceListener() {
+            @Override
+            public void saveProgressed(String step, int stepsDone, int totalSteps) {
+                steps.add(step);
+            }
+
+            @Override
+            public void saveFailed(String step, Exception exception) {
+                fail(step + " failed: " + exception);
+            }
+        });
+        journal.follow(this.userID, eventManager);
+        service.follow(this.userID, eventManager);
+
+        UUID first = eventManager.addEvent("first", LocalDateTime.of(2021, 11, 1, 9, 0));
+        service.tick();
+        assertTrue(steps.isEmpty());
+        UUID second = eventManager.addEvent("second", LocalDateTime.of(2021, 11, 2, 9, 0));
+        assertTrue(ioSerializable.writing.await(10, TimeUnit.SECONDS));
+
+        // changes made while the save is running are not in it
+        eventManager.getDefaultEventInfoGetter().setName(first, "renamed");
+        eventManager.addEvent("third", LocalDateTime.of(2021, 11, 3, 9, 0));
+        ioSerializable.proceed.countDown();
+        assertTrue(service.shutdown(Duration.ofSeconds(10)));
+
+        assertEquals(List.of("events", "recursive events", "users"), steps);
+        Map<UUID, String> saved = new HashMap<>();
+        for (Event event : ioSerializable.savedEvents) {
+            saved.put(event.getID(), event.getName());
+        }
+        assertEquals(Map.of(first, "first", second, "second"), saved);
+        // the recursions and users did not change, so they are not written
+        assertNull(ioSerializable.savedRecursions);
+        assertEquals(1, ioSerializable.savedUsers.size());
+    }
+
+    @Test
+    public void testSavesOnlyChanges() throws Exception {
+        MemorySerializable ioSerializable = new MemorySerializable();
+        ioSerializable.proceed.countDown();
+        User user = new User(this.userID, "Ada", "ada", "secret");
+        UserManager userManager = new UserManager(List.of(user));
+        EventManager eventManager = new EventManager(new ArrayList<>(), new HashMap<>());
+        PersistenceService service = new PersistenceService(ioSerializable,
+                new EventJournal(folder.newFolder("journal")), userManager, Duration.ofDays(1), 100, false,
+                new PersistenceListener() {
+                    @Override
+                    public void saveFailed(String step, Exception exception) {
+                        fail(step + " failed: " + exception);
+                    }
+                });
+        service.follow(this.userID, eventManager);
+
+        userManager.setMorningPerson(this.userID, true);
+        service.saveNow().get(10, TimeUnit.SECONDS);
+        assertNull(ioSerializable.savedEvents);
+        assertNull(ioSerializable.savedRecursions);
+        assertEquals(2, ioSerializable.savedUsers.size());
+
+        ioSerializable.savedUsers.removeIf(saved -> saved.getId().equals(this.userID));
+        eventManager.addEvent("lecture", LocalDateTime.of(2021, 11, 1, 9, 0));
+        service.saveNow().get(10, TimeUnit.SECONDS);
+        assertEquals(1, ioSerializable.savedEvents.size());
+        assertEquals(1, ioSerializable.savedUsers.size());
+        assertTrue(service.shutdown(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    public void testSavesOnlyChangedMonths() throws Exception {
+        IOSerializable ioSerializable = new IOSerializable(true, true,
+                new LocalRemoteStore(folder.newFolder("remote")), folder.newFolder("files"));
+        EventManager eventManager = new EventManager(new ArrayList<>(), new HashMap<>());
+        PersistenceService service = new PersistenceService(ioSerializable,
+                new EventJournal(folder.newFolder("journal")), new UserManager(List.of()), Duration.ofDays(1), 100,
+                false, new PersistenceListener() {
+                    @Override
+                    public void saveFailed(String step, Exception exception) {
+                        fail(step + " failed: " + exception);
+                    }
+                });
+        service.follow(this.userID, eventManager);
+        eventManager.addEvent("november", LocalDateTime.of(2040, 11, 1, 9, 0));
+        UUID moved = eventManager.addEvent("december", LocalDateTime.of(2040, 12, 1, 9, 0));
+        UUID removed = eventManager.addEvent("january", LocalDateTime.of(2041, 1, 1, 9, 0));
+        service.saveNow().get(10, TimeUnit.SECONDS);
+        byte[] november = this.savedMonths().get(YearMonth.of(2040, 11));
+
+        // moving an event out of a month and removing the only event of another rewrites just those months
+        eventManager.getDefaultEventInfoGetter().setEnd(moved, LocalDateTime.of(2041, 2, 1, 9, 0));
+        eventManager.remove(removed);
+        service.saveNow().get(10, TimeUnit.SECONDS);
+        Map<YearMonth, byte[]> saved = this.savedMonths();
+        assertEquals(Set.of(YearMonth.of(2040, 11), YearMonth.of(2041, 2)), saved.keySet());
+        assertArrayEquals(november, saved.get(YearMonth.of(2040, 11)));
+        assertEquals(2, ioSerializable.eventsReadFromSerializable(this.userID).size());
+        assertTrue(service.shutdown(Duration.ofSeconds(10)));
+    }
+
+    private Map<YearMonth, byte[]> savedMonths() throws IOException {
+        byte[] shard = UserShards.readShard(new File(folder.getRoot(), "files/events.ser"), this.userID);
+        return MonthPartitions.readMonths(new ByteArrayInputStream(shard), new HashSet<>());
+    }
+
+    @Test
+    public void testJournalKeepsLaterChanges() throws IOException {
+        EventJournal journal = new EventJournal(folder.newFolder("journal"));
+        EventManager eventManager = new EventManager(new ArrayList<>(), new HashMap<>());
+        journal.follow(this.userID, eventManager);
+        eventManager.addEvent("saved", LocalDateTime.of(2021, 11, 1, 9, 0));
+        long savedUpTo = journal.getSequence();
+        eventManager.addEvent("not saved", LocalDateTime.of(2021, 11, 2, 9, 0));
+        journal.sync();
+
+        journal.clear(this.userID, savedUpTo);
+        assertEquals(1, journal.size());
+        assertTrue(journal.hasChanges(this.userID));
+        assertFalse(journal.hasChanges(UUID.randomUUID()));
+    }
+}
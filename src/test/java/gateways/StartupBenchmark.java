@@ -0,0 +1,83 @@
+package gateways;
+
+import entities.Event;
+import entities.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Breaks down the time taken to open the program from the last synced copy, with a LocalRemoteStore standing in for
+ * Dropbox, for growing amounts of saved events: the time until the login screen can be shown, the time to merge the
+ * changes made elsewhere in the background, and the time a blocking download of everything took before. Run its main
+ * method; it is not a test.
+ */
+public class StartupBenchmark {
+    private static final int EVENTS_PER_USER = 5000;
+
+    public static void main(String[] args) throws IOException {
+        for (int users : new int[]{1, 10, 50}) {
+            File root = Files.createTempDirectory("startup").toFile();
+            for (String directory : List.of("here", "elsewhere", "fresh")) {
+                Files.createDirectories(new File(root, directory).toPath());
+            }
+            LocalRemoteStore remote = new LocalRemoteStore(new File(root, "remote"));
+            List<UUID> userIDs = new ArrayList<>();
+            List<User> userList = new ArrayList<>();
+            for (int user = 0; user < users; user++) {
+                userIDs.add(UUID.randomUUID());
+                userList.add(new User(userIDs.get(user), "user" + user, "user" + user, "password"));
+            }
+
+            // this machine synced everything and exited, then another machine changed the events of one user
+            IOSerializable here = new IOSerializable(true, true, remote, new File(root, "here"));
+            IOSerializable elsewhere = new IOSerializable(true, true, remote, new File(root, "elsewhere"));
+            for (IOSerializable machine : List.of(here, elsewhere)) {
+                for (UUID userID : userIDs) {
+                    machine.eventsWriteToSerializable(userID, events(userID.hashCode()));
+                    machine.recursiveEventsWriteToSerializable(userID, new HashMap<>());
+                }
+                machine.usersWriteToSerializable(userList);
+            }
+            here.saveToDropbox();
+            here.deleteOldFiles();
+            elsewhere.eventsWriteToSerializable(userIDs.get(0), events(0));
+            elsewhere.saveToDropbox();
+
+            long start = System.nanoTime();
+            IOSerializable opened = new IOSerializable(true, true, remote, new File(root, "here"));
+            opened.restoreLastSynced();
+            long restored = System.nanoTime();
+            opened.usersReadFromSerializable();
+            long loginScreen = System.nanoTime();
+            opened.reconcileWithRemote();
+            long reconciled = System.nanoTime();
+            opened.eventsReadFromSerializable(userIDs.get(0));
+            long loggedIn = System.nanoTime();
+            new IOSerializable(true, false, remote, new File(root, "fresh"));
+            long downloaded = System.nanoTime();
+
+            System.out.printf("%d events, %d bytes: local copy %.1f ms, users %.1f ms, login screen after %.1f ms; " +
+                            "background merge %.1f ms, events at login %.1f ms; full blocking download %.1f ms%n",
+                    users * EVENTS_PER_USER, new File(root, "here/events.ser").length(), (restored - start) / 1e6,
+                    (loginScreen - restored) / 1e6, (loginScreen - start) / 1e6, (reconciled - loginScreen) / 1e6,
+                    (loggedIn - reconciled) / 1e6, (downloaded - loggedIn) / 1e6);
+        }
+    }
+
+    private static List<Event> events(int seed) {
+        Random random = new Random(seed);
+        List<String> names = List.of("lecture", "tutorial", "gym", "lab", "meeting", "essay", "exam");
+        LocalDateTime first = LocalDateTime.of(2021, 9, 1, 0, 0);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS_PER_USER; i++) {
+            LocalDateTime start = first.plusMinutes(15L * random.nextInt(4 * 24 * 365));
+            events.add(new Event(UUID.randomUUID(), names.get(random.nextInt(names.size())), start,
+                    start.plusMinutes(30L * (1 + random.nextInt(6)))));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,72 @@
+package gateways;
+
+import entities.Event;
+import interfaces.StorageCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Compares the size of the saved events and the time taken to save and load them with Java serialization and with
+ * BinaryCodec, for a synthetic calendar. Run its main method; it is not a test.
+ */
+public class StorageCodecBenchmark {
+    private static final int USERS = 20;
+    private static final int EVENTS_PER_USER = 5000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        Map<UUID, List<Event>> events = syntheticCalendar();
+        for (StorageCodec codec : List.of(new JavaSerializationCodec(), new BinaryCodec())) {
+            byte[] saved = new byte[0];
+            long writeNanos = 0;
+            long readNanos = 0;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                codec.writeEvents(events, out);
+                long written = System.nanoTime();
+                codec.readEvents(new ByteArrayInputStream(out.toByteArray()));
+                long read = System.nanoTime();
+                // the first round only warms up
+                if (round > 0) {
+                    writeNanos += written - start;
+                    readNanos += read - written;
+                }
+                saved = out.toByteArray();
+            }
+            System.out.printf("%s: %d bytes, save %.1f ms, load %.1f ms%n", codec.getClass().getSimpleName(),
+                    saved.length, writeNanos / 1e6 / ROUNDS, readNanos / 1e6 / ROUNDS);
+        }
+    }
+
+    private static Map<UUID, List<Event>> syntheticCalendar() {
+        Random random = new Random(42);
+        List<String> names = List.of("lecture", "tutorial", "gym", "lab", "meeting", "essay", "exam");
+        LocalDateTime first = LocalDateTime.of(2021, 9, 1, 0, 0);
+        Map<UUID, List<Event>> events = new HashMap<>();
+        for (int user = 0; user < USERS; user++) {
+            List<Event> userEvents = new ArrayList<>();
+            for (int i = 0; i < EVENTS_PER_USER; i++) {
+                LocalDateTime start = first.plusMinutes(15L * random.nextInt(4 * 24 * 365));
+                String name = names.get(random.nextInt(names.size()));
+                if (random.nextInt(10) == 0) {
+                    Event deadline = new Event(UUID.randomUUID(), name, start);
+                    deadline.setHoursNeeded(6L);
+                    for (int session = 1; session <= 3; session++) {
+                        deadline.addWorkSession(start.minusDays(session), start.minusDays(session).plusHours(2));
+                    }
+                    userEvents.add(deadline);
+                } else {
+                    userEvents.add(new Event(UUID.randomUUID(), name, start, start.plusMinutes(30L +
+                            30L * random.nextInt(4))));
+                }
+            }
+            events.put(UUID.randomUUID(), userEvents);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,83 @@
+package gateways;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UserShardsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadOneShard() throws IOException {
+        Map<UUID, byte[]> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            shards.put(UUID.randomUUID(), new byte[]{(byte) i, (byte) (i + 1)});
+        }
+        File file = folder.newFile("events.ser");
+        try (OutputStream output = new FileOutputStream(file)) {
+            UserShards.writeShards(shards, output);
+        }
+        UUID last = new ArrayList<>(shards.keySet()).get(2);
+        assertArrayEquals(new byte[]{2, 3}, UserShards.readShard(file, last));
+        assertNull(UserShards.readShard(file, UUID.randomUUID()));
+        assertArrayEquals(new byte[]{1, 2}, UserShards.openShard(file, new ArrayList<>(shards.keySet()).get(1))
+                .readAllBytes());
+        assertNull(UserShards.openShard(file, UUID.randomUUID()));
+
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            assertTrue(UserShards.isSharded(input));
+            Map<UUID, byte[]> read = UserShards.readShards(input);
+            assertEquals(shards.keySet(), read.keySet());
+            for (UUID userID : shards.keySet()) {
+                assertArrayEquals(shards.get(userID), read.get(userID));
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryFilesAreNotSharded() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BinaryCodec().writeEvents(Map.of(), output);
+        assertFalse(UserShards.isSharded(new BufferedInputStream(new ByteArrayInputStream(output.toByteArray()))));
+    }
+
+    @Test
+    public void testStamps() throws IOException {
+        UUID kept = UUID.randomUUID();
+        UUID stamped = UUID.randomUUID();
+        Map<UUID, byte[]> shards = new LinkedHashMap<>();
+        shards.put(kept, new byte[]{1});
+        shards.put(stamped, new byte[]{2});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UserShards.writeShards(shards, Map.of(kept, 42L), output);
+
+        Map<UUID, Long> stamps = UserShards.readStamps(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(Long.valueOf(42), stamps.get(kept));
+        assertNotEquals(UserShards.NO_STAMP, (long) stamps.get(stamped));
+    }
+
+    @Test
+    public void testReadVersionOne() throws IOException {
+        UUID userID = UUID.randomUUID();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0x43414C53);
+        output.writeByte(1);
+        output.writeInt(1);
+        output.writeLong(userID.getMostSignificantBits());
+        output.writeLong(userID.getLeastSignificantBits());
+        output.writeInt(2);
+        output.write(new byte[]{7, 8});
+
+        Map<UUID, Long> stamps = new HashMap<>();
+        Map<UUID, byte[]> shards = UserShards.readShards(new ByteArrayInputStream(bytes.toByteArray()), stamps);
+        assertArrayEquals(new byte[]{7, 8}, shards.get(userID));
+        assertEquals(Long.valueOf(UserShards.NO_STAMP), stamps.get(userID));
+    }
+}
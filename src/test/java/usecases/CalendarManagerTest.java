@@ -74,4 +74,16 @@ public class CalendarManagerTest {
         int numOfDaysCurrent = yearMonth.lengthOfMonth();
         assertEquals(this.calendarManager.getCurrentCalendar().getCalendarMap().size(), numOfDaysCurrent);
     }
+
+    @Test(timeout = 100)
+    public void testMonthShards() {
+        CalendarManager smallManager = new CalendarManager(2);
+        smallManager.addToCalendar(UUID1, year + 5, 1, 1);
+        assertEquals(List.of(UUID1), smallManager.getEventID(year + 5, 1, 1));
+        smallManager.getCalendar(year - 5, 1);
+        smallManager.getCalendar(year - 5, 2);
+        assertEquals(List.of(YearMonth.of(year - 5, 1), YearMonth.of(year - 5, 2)), smallManager.getLoadedMonths());
+        smallManager.setMonthLoader((yearMonth, calendar) -> calendar.addEventID(UUID2, yearMonth.getMonthValue()));
+        assertEquals(List.of(UUID2), smallManager.getEventID(year + 5, 3, 3));
+    }
 }
@@ -6,6 +6,7 @@ import org.junit.Test;
 import usecases.calendar.CalendarManager;
 import usecases.events.EventManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -68,4 +69,53 @@ public class ConflictCheckerTest {
         assertEquals(conflictChecker.notifyConflict(year, month, date), uuidList);
         assertEquals(conflictChecker.notifyConflict(year, month, newDate), new ArrayList<>());
     }
+
+    @Test(timeout = 100)
+    public void testGetConflictGroups() {
+        UUID UUID5 = UUID.randomUUID();
+        eventManager.addEvent(new Event(UUID1, "A", LocalDateTime.of(year, month, date, 10, 0),
+                LocalDateTime.of(year, month, date, 12, 0)));
+        eventManager.addEvent(new Event(UUID2, "B", LocalDateTime.of(year, month, date, 11, 0),
+                LocalDateTime.of(year, month, date, 13, 0)));
+        eventManager.addEvent(new Event(UUID3, "C", LocalDateTime.of(year, month, date, 12, 30),
+                LocalDateTime.of(year, month, date, 14, 0)));
+        eventManager.addEvent(new Event(UUID4, "D", LocalDateTime.of(year, month, date, 11, 30)));
+        eventManager.addEvent(new Event(UUID5, "E", LocalDateTime.of(year, month, date, 15, 0),
+                LocalDateTime.of(year, month, date, 16, 0)));
+        for (UUID uuid : List.of(UUID5, UUID4, UUID3, UUID2, UUID1)) {
+            calendarManager.addToCalendar(uuid, year, month, date);
+        }
+        List<List<UUID>> groups = conflictChecker.getConflictGroups(year, month, date, date);
+        assertEquals(1, groups.size());
+        assertEquals(List.of(UUID1, UUID2, UUID4, UUID3), groups.get(0));
+        assertEquals(List.of(UUID4, UUID3, UUID2, UUID1), conflictChecker.notifyConflict(year, month, date));
+    }
+
+    @Test(timeout = 100)
+    public void testNotifyConflictFollowsChanges() {
+        eventManager.addEvent(new Event(UUID1, "A", LocalDateTime.of(year, month, date, 10, 0),
+                LocalDateTime.of(year, month, date, 12, 0)));
+        eventManager.addEvent(new Event(UUID2, "B", LocalDateTime.of(year, month, date, 11, 0),
+                LocalDateTime.of(year, month, date, 13, 0)));
+        calendarManager.addToCalendar(UUID1, year, month, date);
+        calendarManager.addToCalendar(UUID2, year, month, date);
+        assertEquals(List.of(UUID1, UUID2), conflictChecker.notifyConflict(year, month, date));
+
+        // the conflicts are looked up in the index, which follows the change
+        eventManager.getDefaultEventInfoGetter().setStart(UUID2, LocalDateTime.of(year, month, date, 12, 0));
+        assertEquals(List.of(), conflictChecker.notifyConflict(year, month, date));
+    }
+
+    @Test(timeout = 100)
+    public void testNotifyConflictOverMonths() {
+        LocalDateTime nextMonth = LocalDateTime.of(2021, 11, 2, 10, 0);
+        eventManager.addEvent(new Event(UUID1, "A", nextMonth, nextMonth.plusHours(2)));
+        eventManager.addEvent(new Event(UUID2, "B", nextMonth.plusHours(1), nextMonth.plusHours(3)));
+        calendarManager.addToCalendar(UUID1, 2021, 11, 2);
+        calendarManager.addToCalendar(UUID2, 2021, 11, 2);
+        // a week from the 29th of October goes on to the 4th of November
+        assertEquals(List.of(UUID1, UUID2), conflictChecker.notifyConflict(LocalDate.of(2021, 10, 29),
+                LocalDate.of(2021, 11, 4)));
+        assertEquals(List.of(), conflictChecker.notifyConflict(2021, 10, 29, 35));
+    }
 }
@@ -1,12 +1,16 @@
 
 package usecases.events;
 import entities.Event;
+import usecases.calendar.CalendarManager;
+import usecases.events.worksessions.WorkSessionManager;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.Before;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 
 public class EventManagerTest {
@@ -61,4 +65,166 @@ public class EventManagerTest {
                 this.eventManager.splitByDay(this.eventManager.get(UUID6)));
         assertEquals(new ArrayList<>(List.of(this.eventManager.get(UUID1))), this.eventManager.splitByDay(this.eventManager.get(UUID1)));
     }
+
+    @Test(timeout = 100)
+    public void testGetEventsBetween() {
+        List<Event> between = this.eventManager.getEventsBetween(LocalDateTime.of(2021, 10, 1, 4, 30),
+                LocalDateTime.of(2021, 10, 2, 9, 30));
+        assertEquals(2, between.size());
+        assertEquals(UUID2, between.get(0).getID());
+        assertEquals(UUID3, between.get(1).getID());
+        assertEquals(1, this.eventManager.getEventsBetween(LocalDateTime.of(2021, 11, 12, 0, 0),
+                LocalDateTime.of(2021, 11, 12, 1, 0)).size());
+    }
+
+    @Test(timeout = 100)
+    public void testGetEventsOverlapping() {
+        List<Event> overlapping = this.eventManager.getEventsOverlapping(this.eventManager.get(UUID4));
+        assertEquals(1, overlapping.size());
+        assertEquals(UUID5, overlapping.get(0).getID());
+        assertTrue(this.eventManager.getEventsOverlapping(this.eventManager.get(UUID2)).isEmpty());
+    }
+
+    @Test(timeout = 100)
+    public void testGetEventsBetweenAfterChange() {
+        this.eventManager.getDefaultEventInfoGetter().setEnd(UUID1, LocalDateTime.of(2021, 10, 1, 4, 30));
+        assertEquals(UUID1, this.eventManager.getEventsOverlapping(this.eventManager.get(UUID2)).get(0).getID());
+        this.eventManager.remove(UUID1);
+        assertTrue(this.eventManager.getEventsOverlapping(this.eventManager.get(UUID2)).isEmpty());
+    }
+
+    @Test(timeout = 100)
+    public void testGetWorkSession() {
+        WorkSessionManager workSessionManager = new WorkSessionManager(this.eventManager);
+        workSessionManager.addWorkSession(UUID6, LocalDateTime.of(2021, 11, 9, 1, 0),
+                LocalDateTime.of(2021, 11, 9, 2, 0));
+        Event session = workSessionManager.getWorkSessions(UUID6).get(0);
+        assertEquals(session, this.eventManager.get(session.getID()));
+        assertEquals(UUID6, this.eventManager.getOwnerID(session.getID()));
+        workSessionManager.removeWorkSession(UUID6, session);
+        assertFalse(this.eventManager.containsID(session.getID()));
+    }
+
+    @Test(timeout = 100)
+    public void testGetTimeOrderedEvents() {
+        List<Event> ordered = this.eventManager.getTimeOrderedEvents();
+        assertEquals(6, ordered.size());
+        assertEquals(UUID1, ordered.get(0).getID());
+        assertEquals(UUID6, ordered.get(5).getID());
+        this.eventManager.getDefaultEventInfoGetter().setStart(UUID6, LocalDateTime.of(2021, 9, 1, 0, 0));
+        assertEquals(UUID6, this.eventManager.getTimeOrderedEvents().get(0).getID());
+    }
+
+    @Test(timeout = 100)
+    public void testConflictIndex() {
+        ConflictIndex conflictIndex = this.eventManager.getConflictIndex();
+        assertEquals(Set.of(UUID5), conflictIndex.getConflictsWith(UUID4));
+        assertTrue(conflictIndex.hasConflicts(YearMonth.of(2021, 10)));
+        assertFalse(conflictIndex.hasConflicts(YearMonth.of(2021, 11)));
+        this.eventManager.getDefaultEventInfoGetter().setEnd(UUID2, LocalDateTime.of(2021, 10, 1, 6, 0));
+        assertEquals(Set.of(UUID2, UUID3), conflictIndex.getConflictGroup(UUID3));
+        this.eventManager.addEvent(new Event(UUID.randomUUID(), "7", LocalDateTime.of(2021, 11, 11, 0, 0),
+                LocalDateTime.of(2021, 11, 11, 1, 0)));
+        assertTrue(conflictIndex.hasConflicts(YearMonth.of(2021, 11)));
+        this.eventManager.remove(UUID5);
+        assertFalse(conflictIndex.hasConflict(UUID4));
+        this.eventManager.remove(UUID2);
+        assertFalse(conflictIndex.hasConflicts(YearMonth.of(2021, 10)));
+    }
+
+    @Test(timeout = 100)
+    public void testCalendarManager() {
+        CalendarManager calendarManager = this.eventManager.getCalendarManager();
+        assertEquals(List.of(UUID1, UUID2, UUID3), sorted(calendarManager.getEventID(2021, 10, 1)));
+        assertEquals(List.of(UUID6), calendarManager.getEventID(2021, 11, 13));
+        this.eventManager.getDefaultEventInfoGetter().setEnd(UUID6, LocalDateTime.of(2021, 11, 11, 4, 30));
+        assertTrue(calendarManager.getEventID(2021, 11, 13).isEmpty());
+        assertEquals(List.of(UUID6), calendarManager.getEventID(2021, 11, 11));
+        this.eventManager.remove(UUID1);
+        assertEquals(List.of(UUID2, UUID3), sorted(calendarManager.getEventID(2021, 10, 1)));
+        assertSame(calendarManager, this.eventManager.getCalendarManager());
+    }
+
+    @Test(timeout = 100)
+    public void testCalendarIndexForgetsEvictedMonths() {
+        CalendarManager calendarManager = new CalendarManager(3);
+        CalendarIndex calendarIndex = new CalendarIndex(this.eventManager, calendarManager);
+        calendarManager.setMonthLoader(calendarIndex);
+        this.eventManager.addObserver(calendarIndex);
+        YearMonth first = YearMonth.of(2021, 10);
+        for (int i = 0; i < 8; i++) {
+            LocalDateTime time = first.plusMonths(i).atDay(5).atTime(9, 0);
+            this.eventManager.addEvent(new Event(UUID.randomUUID(), "monthly", time, time.plusHours(1)));
+            calendarManager.getCalendar(first.plusMonths(i));
+        }
+        assertTrue(calendarManager.getLoadedMonths().containsAll(calendarIndex.getPlacedMonths()));
+        assertFalse(calendarIndex.getPlacedMonths().contains(first));
+
+        // an event of an evicted month is placed again when its month is loaded again
+        this.eventManager.getDefaultEventInfoGetter().setEnd(UUID1, LocalDateTime.of(2021, 10, 1, 4, 0));
+        assertTrue(calendarManager.getEventID(2021, 10, 1).contains(UUID1));
+        this.eventManager.remove(UUID1);
+        assertFalse(calendarManager.getEventID(2021, 10, 1).contains(UUID1));
+    }
+
+    @Test(timeout = 100)
+    public void testHandleRegistry() {
+        EventHandleRegistry registry = this.eventManager.getHandleRegistry();
+        int handle = registry.getHandle(UUID6);
+        this.eventManager.getDefaultEventInfoGetter().setStart(UUID6, LocalDateTime.of(2021, 9, 1, 0, 0));
+        assertEquals(handle, registry.getHandle(UUID6));
+        assertEquals(UUID6, registry.getID(handle));
+        UUID added = this.eventManager.addEvent("7", LocalDateTime.of(2021, 12, 1, 0, 0));
+        assertEquals(7, registry.getHandle(added));
+        this.eventManager.remove(UUID6);
+        assertNull(registry.getID(handle));
+    }
+
+    @Test(timeout = 100)
+    public void testHandleRegistryReleasesReplacedSessions() {
+        EventHandleRegistry registry = this.eventManager.getHandleRegistry();
+        WorkSessionManager workSessionManager = new WorkSessionManager(this.eventManager);
+        int handles = registry.size();
+        workSessionManager.addWorkSession(UUID6, LocalDateTime.of(2021, 11, 9, 1, 0),
+                LocalDateTime.of(2021, 11, 9, 2, 0));
+        int handle = registry.getHandle(workSessionManager.getWorkSessions(UUID6).get(0).getID());
+        workSessionManager.setWorkSessions(UUID6, new ArrayList<>());
+        assertNull(registry.getID(handle));
+        assertEquals(handles, registry.size());
+    }
+
+    @Test(timeout = 100)
+    public void testDayScheduleCacheMovesSession() {
+        DayScheduleCache cache = this.eventManager.getDayScheduleCache();
+        WorkSessionManager workSessionManager = new WorkSessionManager(this.eventManager);
+        workSessionManager.addWorkSession(UUID6, LocalDateTime.of(2021, 11, 9, 1, 0),
+                LocalDateTime.of(2021, 11, 9, 2, 0));
+        UUID session = workSessionManager.getWorkSessions(UUID6).get(0).getID();
+        this.eventManager.getDefaultEventInfoGetter().setStart(session, LocalDateTime.of(2021, 11, 8, 1, 0));
+        assertEquals(1, cache.getDay(LocalDate.of(2021, 11, 9)).size());
+        this.eventManager.getDefaultEventInfoGetter().setEnd(session, LocalDateTime.of(2021, 11, 8, 2, 0));
+        assertTrue(cache.getDay(LocalDate.of(2021, 11, 9)).isEmpty());
+        assertEquals(session, cache.getDay(LocalDate.of(2021, 11, 8)).get(0).getID());
+    }
+
+    @Test(timeout = 100)
+    public void testRemoveWithoutUpdate() {
+        ConflictIndex conflictIndex = this.eventManager.getConflictIndex();
+        CalendarManager calendarManager = this.eventManager.getCalendarManager();
+        EventHandleRegistry registry = this.eventManager.getHandleRegistry();
+        int handle = registry.getHandle(UUID5);
+        // as when an event is moved into a recursion: the RepeatedEventManager is not told again
+        this.eventManager.addObserver(this.eventManager.getRepeatedEventManager());
+        this.eventManager.removeWithoutUpdate(UUID5);
+        this.eventManager.removeObserver(this.eventManager.getRepeatedEventManager());
+        assertFalse(conflictIndex.hasConflict(UUID4));
+        assertEquals(List.of(UUID4), calendarManager.getEventID(2021, 10, 2));
+        assertNull(registry.getID(handle));
+    }
+
+    private List<UUID> sorted(List<UUID> ids) {
+        List<UUID> result = new ArrayList<>(ids);
+        result.sort(Comparator.comparing(id -> this.eventManager.get(id).getName()));
+        return result;
+    }
 }
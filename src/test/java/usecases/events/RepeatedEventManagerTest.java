@@ -56,4 +56,47 @@ public class RepeatedEventManagerTest {
         assertTrue(map.containsKey(LocalDateTime.of(2021, 11, 25, 11, 0)));
         assertEquals(map.get(LocalDateTime.of(2021, 11, 25, 11, 0)).size(), 2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getEventsBetweenWithoutEndDate() {
+        List<Event> cycle = new ArrayList<>(List.of(new Event(UUID.randomUUID(), "e1", l),
+                new Event(UUID.randomUUID(), "e2", 2021, 11, 18, 10, 11, 0, 0),
+                new Event(UUID.randomUUID(), "e3", 2021, 11, 20, 10, 11, 0, 0)));
+        RecursiveEvent openRecursion = new RecursiveEvent(UUID.randomUUID(), cycle, new IntervalDateInput(l, null));
+        RepeatedEventManager manager = new RepeatedEventManager();
+        manager.addRecursion(openRecursion);
+        LocalDateTime from = LocalDateTime.of(2031, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2031, 1, 11, 0, 0);
+        List<Event> events = manager.getEventsBetween(from, to);
+        assertEquals(4, events.size());
+        for (Event event : events) {
+            assertEquals(event, manager.getThisEventFromRecursion(event.getID()));
+            assertEquals(openRecursion.getId(), manager.getRecursionOf(event.getID()));
+        }
+        assertEquals(events, manager.getEventsBetween(from, to));
+    }
+
+    @Test
+    public void getEventsBetweenAfterListingAll() {
+        List<Event> cycle = new ArrayList<>(List.of(new Event(UUID.randomUUID(), "e1", l),
+                new Event(UUID.randomUUID(), "e2", 2021, 11, 18, 10, 11, 0, 0),
+                new Event(UUID.randomUUID(), "e3", 2021, 11, 20, 10, 11, 0, 0)));
+        RecursiveEvent openRecursion = new RecursiveEvent(UUID.randomUUID(), cycle, new IntervalDateInput(l, null));
+        RepeatedEventManager manager = new RepeatedEventManager();
+        manager.addRecursion(openRecursion);
+        LocalDateTime soon = LocalDateTime.now().plusDays(30);
+        List<Event> near = manager.getEventsBetween(soon, soon.plusDays(10));
+        LocalDateTime from = LocalDateTime.of(2051, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2051, 1, 11, 0, 0);
+        List<Event> far = manager.getEventsBetween(from, to);
+        assertFalse(far.isEmpty());
+
+        // listing every event only maps them up to the horizon, the windows past it are still computed
+        manager.getAllEventsFromRecursiveEvent(openRecursion.getId());
+        assertEquals(new HashSet<>(near), new HashSet<>(manager.getEventsBetween(soon, soon.plusDays(10))));
+        assertEquals(far, manager.getEventsBetween(from, to));
+        for (Event event : far) {
+            assertEquals(event, manager.getThisEventFromRecursion(event.getID()));
+        }
+    }
+}
@@ -6,12 +6,14 @@ import org.junit.Before;
 import org.junit.Test;
 import usecases.events.EventManager;
 import usecases.events.worksessions.strategies.TimeGetters.DefaultTimeGetter;
+import usecases.events.worksessions.strategies.TimeGetters.TimeGetter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.UUID;
+import java.util.*;
+
+import static org.junit.Assert.*;
 
 public class DefaultTimeGetterTest {
     EventManager eventManager;
@@ -42,4 +44,45 @@ public class DefaultTimeGetterTest {
     public void getListSchedule(){
         assert(defaultTimeGetter.getListSchedule(eventManager, LocalDate.now(), deadline).size() == 9);
     }
+
+    @Test
+    public void testGetDaySchedule(){
+        TimeGetter listSchedule = new TimeGetter() {
+            @Override
+            public Map<LocalDateTime, Long> getTimes(UUID deadline, EventManager eventManager, Long length) {
+                return null;
+            }
+
+            @Override
+            public List<Event> getListSchedule(EventManager eventManager, LocalDate start, UUID deadline) {
+                return defaultTimeGetter.getListSchedule(eventManager, start, deadline);
+            }
+        };
+        Map<LocalDate, List<Event>> daySchedule = defaultTimeGetter.getDaySchedule(eventManager, deadline);
+        assertEquals(this.times(listSchedule.getDaySchedule(eventManager, deadline)), this.times(daySchedule));
+        assertSame(daySchedule, defaultTimeGetter.getDaySchedule(eventManager, deadline));
+
+        // the days of an added event and of new work sessions are looked up again
+        eventManager.addEvent(new Event(UUID.randomUUID(), "meeting", end1.minusHours(3), end1.plusDays(1)));
+        new WorkSessionManager(eventManager).addWorkSession(deadline, end2.minusHours(5), end2.minusHours(4));
+        daySchedule = defaultTimeGetter.getDaySchedule(eventManager, deadline);
+        assertEquals(this.times(listSchedule.getDaySchedule(eventManager, deadline)), this.times(daySchedule));
+        assertTrue(this.times(daySchedule).get(end2.toLocalDate()).contains(List.of(end2.minusHours(5),
+                end2.minusHours(4))));
+    }
+
+    /**
+     * @return the {start, end} of the events of each day, in time order
+     */
+    private Map<LocalDate, List<List<LocalDateTime>>> times(Map<LocalDate, List<Event>> daySchedule) {
+        Map<LocalDate, List<List<LocalDateTime>>> times = new HashMap<>();
+        for (LocalDate day : daySchedule.keySet()) {
+            List<List<LocalDateTime>> dayTimes = new ArrayList<>();
+            for (Event event : eventManager.eventHelper.timeOrder(daySchedule.get(day))) {
+                dayTimes.add(Arrays.asList(event.getStartTime(), event.getEndTime()));
+            }
+            times.put(day, dayTimes);
+        }
+        return times;
+    }
 }
@@ -0,0 +1,96 @@
+package usecases.events.worksessions;
+
+import entities.Event;
+import entities.UserPreferences;
+import org.junit.Test;
+import usecases.events.EventManager;
+import usecases.events.worksessions.strategies.TimeGetters.DefaultTimeGetter;
+import usecases.events.worksessions.strategies.TimeGetters.FreeBusyMap;
+import usecases.events.worksessions.strategies.TimeGetters.TimeGetter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class FreeBusyMapTest {
+    private final LocalDate day = LocalDate.of(2021, 11, 15);
+
+    private LocalDateTime at(int hour) {
+        return LocalDateTime.of(this.day, LocalTime.of(hour, 0));
+    }
+
+    @Test
+    public void testFreeSlots() {
+        FreeBusyMap map = new FreeBusyMap(this.day, this.day.plusDays(1), () -> false);
+        assertTrue(map.markBusy(this.at(9), this.at(10)));
+        assertTrue(map.markBusy(this.at(10), this.at(11)));
+        assertTrue(map.markBusy(this.at(13), this.at(14)));
+        assertFalse(map.markBusy(this.at(15), this.at(14)));
+        assertTrue(map.isBusy(this.at(10)));
+        assertFalse(map.isBusy(this.at(11)));
+
+        // nothing starts after 17:00, so the slot running up to it is not kept
+        assertEquals(Map.of(this.at(8), 1L, this.at(11), 2L), map.freeSlots(this.at(8), this.at(17)));
+        map.markBusy(this.at(18), this.at(19));
+        assertEquals(Map.of(this.at(8), 1L, this.at(11), 2L, this.at(14), 3L), map.freeSlots(this.at(8),
+                this.at(17)));
+        // the walk stops at an end where one interval ends and the next starts
+        assertEquals(Map.of(this.at(8), 1L, this.at(10), 0L), map.freeSlots(this.at(8), this.at(10)));
+        assertEquals(Map.of(this.at(8), 1L), map.freeSlots(this.at(8), this.at(9).plusMinutes(30)));
+
+        // an interval of zero length splits the slot it is in
+        map.markBusy(this.at(16), this.at(16));
+        assertEquals(Map.of(this.at(8), 1L, this.at(11), 2L, this.at(14), 2L, this.at(16), 1L),
+                map.freeSlots(this.at(8), this.at(17)));
+    }
+
+    @Test
+    public void testMatchesListSchedule() {
+        Random random = new Random(21);
+        LocalDate today = LocalDate.now();
+        EventManager eventManager = new EventManager(new ArrayList<>());
+        for (int i = 0; i < 80; i++) {
+            LocalDateTime start = today.atStartOfDay().plusMinutes(15L * random.nextInt(20 * 24 * 4));
+            LocalDateTime end = random.nextInt(10) == 0 ? start.toLocalDate().plusDays(1).atStartOfDay() :
+                    start.plusMinutes(15L * random.nextInt(24));
+            eventManager.addEvent(new Event(UUID.randomUUID(), "event " + i, start, end));
+        }
+        Event essay = new Event(UUID.randomUUID(), "essay", LocalDateTime.of(today.plusDays(18), LocalTime.of(17, 0)));
+        essay.setStartWorking(20L);
+        eventManager.addEvent(essay);
+
+        DefaultTimeGetter timeGetter = new DefaultTimeGetter(new UserPreferences().getFreeTime());
+        TimeGetter walk = new TimeGetter() {
+            @Override
+            public Map<LocalDateTime, Long> getTimes(UUID deadline, EventManager eventManager, Long length) {
+                return null;
+            }
+
+            @Override
+            public List<Event> getListSchedule(EventManager eventManager, LocalDate start, UUID deadline) {
+                return timeGetter.getListSchedule(eventManager, start, deadline);
+            }
+        };
+        LocalDateTime deadlineEnd = essay.getEndTime();
+        timeGetter.beginPass(List.of(essay.getID()), eventManager);
+        try {
+            for (int i = 0; i < 300; i++) {
+                LocalDateTime start = today.atStartOfDay().plusMinutes(15L * random.nextInt(19 * 24 * 4));
+                LocalDateTime end = i % 3 == 0 ? deadlineEnd : start.plusMinutes(15L * random.nextInt(4 * 24 * 4));
+                if (end.isAfter(deadlineEnd)) {
+                    end = deadlineEnd;
+                }
+                if (start.isAfter(end)) {
+                    continue;
+                }
+                assertEquals(walk.freeSlots(start, end, eventManager, essay.getID()),
+                        timeGetter.freeSlots(start, end, eventManager, essay.getID()));
+            }
+        } finally {
+            timeGetter.endPass();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package usecases.events.worksessions;
+
+import entities.Event;
+import entities.UserPreferences;
+import usecases.events.EventManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Compares the time the scheduler takes to plan deadlines that fall into many independent clusters, each cluster
+ * planned against a snapshot of its own window, with planning the same deadlines in one pass over the whole schedule,
+ * for growing numbers of busy events. Clearing the work sessions, which both do the same way, is not timed. Run its
+ * main method; it is not a test.
+ */
+public class WorkSessionSchedulerBenchmark {
+    private static final int DEADLINES = 40;
+    private static final long HOURS_NEEDED = 5L;
+    private static final UserPreferences USER_PREFERENCES = new UserPreferences();
+
+    public static void main(String[] args) {
+        boolean warm = false;
+        // the first run warms up the JIT and is not printed
+        for (int busy : new int[]{1000, 1000, 10000, 50000}) {
+            long[] times = new long[2];
+            for (int onePass = 0; onePass < 2; onePass++) {
+                EventManager eventManager = new EventManager(events(busy));
+                List<Event> deadlines = new ArrayList<>();
+                Map<UUID, Long> totalHours = new HashMap<>();
+                for (Event event : eventManager.getEventMap().values()) {
+                    if (!event.hasStart()) {
+                        deadlines.add(event);
+                        totalHours.put(event.getID(), HOURS_NEEDED);
+                    }
+                }
+                deadlines.sort(Comparator.comparing(Event::getEndTime).thenComparing(Event::getID));
+                WorkSessionScheduler scheduler = new WorkSessionSchedulerBuilder().getWorkSessionScheduler(
+                        USER_PREFERENCES);
+                long start = System.nanoTime();
+                if (onePass == 1) {
+                    scheduler.planInOnePass(deadlines, totalHours, eventManager);
+                } else {
+                    scheduler.plan(deadlines, totalHours, eventManager);
+                }
+                times[onePass] = System.nanoTime() - start;
+            }
+            if (warm) {
+                System.out.printf("%d busy events, %d deadlines: clusters %.1f ms, one pass %.1f ms%n", busy,
+                        DEADLINES, times[0] / 1e6, times[1] / 1e6);
+            }
+            warm = true;
+        }
+    }
+
+    /**
+     * @return busy events over the next year, the same for every call with the same count, and DEADLINES deadlines
+     * ten days apart, each one needing HOURS_NEEDED hours from three days before it
+     */
+    private static List<Event> events(int busy) {
+        Random random = new Random(busy);
+        LocalDateTime first = LocalDate.now().plusDays(1).atStartOfDay();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < busy; i++) {
+            LocalDateTime start = first.plusMinutes(15L * random.nextInt(4 * 24 * 365));
+            events.add(new Event(new UUID(busy, i), "meeting " + i, start,
+                    start.plusMinutes(30L * (1 + random.nextInt(4)))));
+        }
+        for (int i = 0; i < DEADLINES; i++) {
+            Event deadline = new Event(new UUID(-1, i), "essay " + i,
+                    LocalDateTime.of(LocalDate.now().plusDays(5 + 9 * i), LocalTime.of(17, 0)));
+            deadline.setHoursNeeded(HOURS_NEEDED);
+            deadline.setStartWorking(3L);
+            events.add(deadline);
+        }
+        return events;
+    }
+}
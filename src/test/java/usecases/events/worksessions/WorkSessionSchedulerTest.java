@@ -11,8 +11,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.Assert.*;
+
 public class WorkSessionSchedulerTest {
     EventManager eventManager = new EventManager(new ArrayList<>());
     WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
@@ -56,4 +59,182 @@ public class WorkSessionSchedulerTest {
                 plusDays(18), eventManager);
         assert(workSessionManager.getWorkSessions(deadline).size() == 4);
     }
+
+    @Test
+    public void testAutoScheduleAll(){
+        EventManager eventManager = new EventManager(new ArrayList<>());
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        List<UUID> deadlines = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UUID id = eventManager.addEvent("essay " + i, LocalDateTime.of(LocalDate.now().plusDays(10 + i),
+                    LocalTime.of(17, 0)));
+            workSessionManager.setHoursNeeded(id, 4L);
+            deadlines.add(id);
+        }
+        new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences).autoScheduleAll(eventManager);
+
+        List<Event> sessions = new ArrayList<>();
+        for (UUID id : deadlines) {
+            assertEquals(4, eventManager.totalHours(workSessionManager.getWorkSessions(id)), 0);
+            sessions.addAll(workSessionManager.getWorkSessions(id));
+        }
+        // sessions placed for one deadline are busy time for the others
+        for (Event session : sessions) {
+            for (Event other : sessions) {
+                assertTrue(session == other || !session.getStartTime().isBefore(other.getEndTime()) ||
+                        !other.getStartTime().isBefore(session.getEndTime()));
+            }
+        }
+    }
+
+    @Test
+    public void testAutoScheduleAllInClusters(){
+        List<Event> events = new ArrayList<>();
+        List<Event> copies = new ArrayList<>();
+        List<UUID> deadlines = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // every other deadline has one overlapping it, so that some clusters have two deadlines
+            LocalDateTime end = LocalDateTime.of(LocalDate.now().plusDays(4 + 8 * (i / 2) + i % 2), LocalTime.of(17, 0));
+            UUID id = UUID.randomUUID();
+            deadlines.add(id);
+            events.add(new Event(id, "essay " + i, end));
+            copies.add(new Event(id, "essay " + i, end));
+            UUID meeting = UUID.randomUUID();
+            events.add(new Event(meeting, "meeting " + i, end.minusDays(1).minusHours(5), end.minusDays(1)));
+            copies.add(new Event(meeting, "meeting " + i, end.minusDays(1).minusHours(5), end.minusDays(1)));
+        }
+        for (List<Event> list : List.of(events, copies)) {
+            for (Event event : list) {
+                if (!event.hasStart()) {
+                    event.setHoursNeeded(5L);
+                    event.setStartWorking(3L);
+                }
+            }
+        }
+        EventManager clustered = new EventManager(events);
+        EventManager oneByOne = new EventManager(copies);
+        new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences).autoScheduleAll(clustered);
+        WorkSessionScheduler scheduler = new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences);
+        for (UUID id : deadlines) {
+            scheduler.autoSchedule(id, oneByOne);
+        }
+
+        // planning the clusters apart gives the same sessions as planning the deadlines one after the other
+        for (UUID id : deadlines) {
+            List<Event> sessions = clustered.eventHelper.timeOrder(clustered.get(id).getWorkSessions());
+            List<Event> expected = oneByOne.eventHelper.timeOrder(oneByOne.get(id).getWorkSessions());
+            assertEquals(5, clustered.totalHours(sessions), 0);
+            assertEquals(expected.size(), sessions.size());
+            for (int i = 0; i < sessions.size(); i++) {
+                assertEquals(expected.get(i).getStartTime(), sessions.get(i).getStartTime());
+                assertEquals(expected.get(i).getEndTime(), sessions.get(i).getEndTime());
+            }
+        }
+    }
+
+    @Test
+    public void testAutoScheduleAllInClustersAroundBusyDays(){
+        List<Event> events = new ArrayList<>();
+        List<UUID> deadlines = new ArrayList<>();
+        List<Event> meetings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            LocalDateTime end = LocalDateTime.of(LocalDate.now().plusDays(6 + 10 * i), LocalTime.of(17, 0));
+            Event essay = new Event(UUID.randomUUID(), "essay " + i, end);
+            essay.setHoursNeeded(5L);
+            essay.setStartWorking(3L);
+            deadlines.add(essay.getID());
+            events.add(essay);
+            // the first day it can be worked on is taken
+            Event meeting = new Event(UUID.randomUUID(), "conference " + i, end.toLocalDate().minusDays(3)
+                    .atStartOfDay(), end.toLocalDate().minusDays(2).atStartOfDay());
+            meetings.add(meeting);
+            events.add(meeting);
+        }
+        EventManager clustered = new EventManager(events);
+        new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences).autoScheduleAll(clustered);
+
+        // the snapshot of each cluster has the busy events of its window
+        for (UUID id : deadlines) {
+            assertEquals(5, clustered.totalHours(clustered.get(id).getWorkSessions()), 0);
+            for (Event session : clustered.get(id).getWorkSessions()) {
+                for (Event meeting : meetings) {
+                    assertTrue(!session.getStartTime().isBefore(meeting.getEndTime()) ||
+                            !meeting.getStartTime().isBefore(session.getEndTime()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAutoScheduleAffected(){
+        EventManager eventManager = new EventManager(new ArrayList<>());
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        UUID soon = eventManager.addEvent("lab", LocalDateTime.of(LocalDate.now().plusDays(5), LocalTime.of(17, 0)));
+        UUID later = eventManager.addEvent("essay", LocalDateTime.of(LocalDate.now().plusDays(30),
+                LocalTime.of(17, 0)));
+        for (UUID id : List.of(soon, later)) {
+            workSessionManager.setHoursNeeded(id, 4L);
+            eventManager.get(id).setStartWorking(3L);
+        }
+        WorkSessionScheduler scheduler = new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences);
+        scheduler.autoScheduleAll(eventManager);
+        List<Event> laterSessions = new ArrayList<>(workSessionManager.getWorkSessions(later));
+        List<Event> soonSessions = new ArrayList<>(workSessionManager.getWorkSessions(soon));
+
+        // a meeting over the first session of the lab only replans the lab
+        Event first = soonSessions.get(0);
+        Event meeting = new Event(UUID.randomUUID(), "meeting", first.getStartTime(), first.getEndTime());
+        eventManager.addEvent(meeting);
+        scheduler.autoScheduleAffected(eventManager, List.<LocalDateTime[]>of(new LocalDateTime[]{
+                meeting.getStartTime(), meeting.getEndTime()}));
+        assertEquals(laterSessions, workSessionManager.getWorkSessions(later));
+        assertNotEquals(soonSessions, workSessionManager.getWorkSessions(soon));
+        assertEquals(4, eventManager.totalHours(workSessionManager.getWorkSessions(soon)), 0);
+        for (Event session : workSessionManager.getWorkSessions(soon)) {
+            assertTrue(!session.getStartTime().isBefore(meeting.getEndTime()) ||
+                    !meeting.getStartTime().isBefore(session.getEndTime()));
+        }
+
+        // a deadline whose hours changed is replanned even if no busy time changed
+        workSessionManager.setHoursNeeded(later, 6L);
+        scheduler.autoScheduleAffected(eventManager, List.of());
+        assertEquals(6, eventManager.totalHours(workSessionManager.getWorkSessions(later)), 0);
+    }
+
+    @Test(timeout = 1000)
+    public void testAutoScheduleAffectedWithNewScheduler(){
+        EventManager eventManager = new EventManager(new ArrayList<>());
+        WorkSessionManager workSessionManager = new WorkSessionManager(eventManager);
+        UUID essay = eventManager.addEvent("essay", LocalDateTime.of(LocalDate.now().plusDays(30),
+                LocalTime.of(17, 0)));
+        workSessionManager.setHoursNeeded(essay, 4L);
+        eventManager.get(essay).setStartWorking(3L);
+        new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences).autoScheduleAll(eventManager);
+        List<Event> sessions = new ArrayList<>(workSessionManager.getWorkSessions(essay));
+
+        // as after logging in: a scheduler that did not plan the essay leaves it alone for a change far from it
+        WorkSessionScheduler scheduler = new WorkSessionSchedulerBuilder().getWorkSessionScheduler(userPreferences);
+        Event meeting = new Event(UUID.randomUUID(), "meeting", LocalDateTime.of(LocalDate.now().plusDays(5),
+                LocalTime.of(9, 0)), LocalDateTime.of(LocalDate.now().plusDays(5), LocalTime.of(10, 0)));
+        eventManager.addEvent(meeting);
+        scheduler.autoScheduleAffected(eventManager, List.<LocalDateTime[]>of(new LocalDateTime[]{
+                meeting.getStartTime(), meeting.getEndTime()}));
+        assertEquals(sessions, workSessionManager.getWorkSessions(essay));
+
+        // a meeting over one of its sessions is found through the session and replans it
+        Event over = new Event(UUID.randomUUID(), "meeting", sessions.get(0).getStartTime(),
+                sessions.get(0).getEndTime());
+        eventManager.addEvent(over);
+        scheduler.autoScheduleAffected(eventManager, List.<LocalDateTime[]>of(new LocalDateTime[]{
+                over.getStartTime(), over.getEndTime()}));
+        assertNotEquals(sessions, workSessionManager.getWorkSessions(essay));
+        assertEquals(4, eventManager.totalHours(workSessionManager.getWorkSessions(essay)), 0);
+
+        // a new deadline is found in the changed interval it was added at
+        UUID lab = eventManager.addEvent("lab", LocalDateTime.of(LocalDate.now().plusDays(10), LocalTime.of(17, 0)));
+        workSessionManager.setHoursNeeded(lab, 2L);
+        scheduler.autoScheduleAffected(eventManager, List.<LocalDateTime[]>of(new LocalDateTime[]{
+                eventManager.get(lab).getEndTime(), eventManager.get(lab).getEndTime()}));
+        assertEquals(2, eventManager.totalHours(workSessionManager.getWorkSessions(lab)), 0);
+    }
 }